@@ -0,0 +1,130 @@
+package org.htomar.akamai.benchmark;
+
+import org.htomar.akamai.request.PurgeBodySize;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.transport.HttpTransport;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.credentials.OpenAkamaiCredential;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixtures shared by the benchmarks.
+ *
+ * @author Himanshu Tomar
+ */
+public final class BenchmarkData {
+
+    /**
+     * Base URL of the benchmark credential.
+     */
+    public static final String BASE_URL = "https://akab-benchmark.purge.akamaiapis.net";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return a credential with realistic token and secret lengths.
+     */
+    public static ClientCredential credential() {
+        return new OpenAkamaiCredential(
+                "akab-client-token-xxx-xxxxxxxxxxxxxxxx",
+                "akab-access-token-xxx-xxxxxxxxxxxxxxxx",
+                "SOMEsecretSOMEsecretSOMEsecretSOMEsecret0=",
+                BASE_URL);
+    }
+
+    /**
+     * Returns the given number of distinct URLs, mixing absolute URLs, paths
+     * and paths without a leading slash.
+     *
+     * @param count the number of URLs.
+     * @return the URLs.
+     */
+    public static List<String> urls(final int count) {
+        List<String> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0:
+                    urls.add("https://www.example.com/Catalog/Product-" + i + ".html?ref=Home");
+                    break;
+                case 1:
+                    urls.add("/static/css/site." + i + ".css");
+                    break;
+                default:
+                    urls.add("images/banner/" + i + ".png");
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Returns a URL purge request whose body is about the given size.
+     *
+     * @param listSize "1" or "100" for that many URLs, "10k" or "50k" for a
+     *                 body of that many bytes.
+     * @return the purge request.
+     */
+    public static PurgeRequest<String> urlRequest(final String listSize) {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        if (listSize.endsWith("k")) {
+            int maxBodySize = Integer.parseInt(
+                    listSize.substring(0, listSize.length() - 1)) * 1000;
+            List<String> urls = new ArrayList<>();
+            purgeRequest.setObjects(urls);
+            for (String url : urls(maxBodySize / 10)) {
+                if (PurgeBodySize.ofRequest(purgeRequest)
+                        + PurgeBodySize.ofString(url) + 1 > maxBodySize) {
+                    break;
+                }
+                urls.add(url.startsWith("/") || url.startsWith("http") ? url : "/" + url);
+            }
+        } else {
+            purgeRequest.setObjects(urls(Integer.parseInt(listSize)));
+        }
+        return purgeRequest;
+    }
+
+    /**
+     * Returns the given number of CPCodes, a tenth of them invalid.
+     *
+     * @param count the number of CPCodes.
+     * @return the CPCodes.
+     */
+    public static List<Integer> cpCodes(final int count) {
+        List<Integer> cpCodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cpCodes.add(i % 10 == 0 ? -i : 100000 + i);
+        }
+        return cpCodes;
+    }
+
+    /**
+     * @return a transport answering every request with 201 without any I/O.
+     */
+    public static HttpTransport noOpTransport() {
+        PurgeResponse purgeResponse = new PurgeResponse();
+        purgeResponse.setHttpStatus("201");
+        purgeResponse.setPurgeId("benchmark");
+        return new HttpTransport() {
+            @Override
+            public <T> ResponseEntity<T> exchange(final String url,
+                                                  final HttpMethod method,
+                                                  final HttpEntity<?> entity,
+                                                  final Class<T> responseType) {
+                return new ResponseEntity<>(responseType.cast(purgeResponse),
+                        HttpStatus.CREATED);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package org.htomar.akamai.benchmark;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.headers.CustomHeaders;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.openakamai.edge.auth.credentials.BasicCredential;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full CCU v3 purge request assembly, pre-processing,
+ * serialization, signing and header construction, against a transport that
+ * does no I/O, and of the {@link CustomHeaders} constructors.
+ *
+ * @author Himanshu Tomar
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestAssemblyBenchmark {
+
+    @Param({"1", "100"})
+    private int urlCount;
+
+    private CachePurgeV3 cachePurgeV3;
+    private ClientCredential credential;
+    private BasicCredential basicCredential;
+    private List<String> urls;
+
+    @Setup
+    public void setUp() {
+        cachePurgeV3 = new CachePurgeV3(BenchmarkData.noOpTransport());
+        credential = BenchmarkData.credential();
+        basicCredential = new BasicCredential("benchmark-user", "benchmark-password");
+        urls = BenchmarkData.urls(urlCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cachePurgeV3.close();
+    }
+
+    @Benchmark
+    public PurgeResponse purgeByURL() throws RequestSigningException {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(new ArrayList<>(urls));
+        return cachePurgeV3.purgeByURL(purgeRequest, credential, BenchmarkData.BASE_URL);
+    }
+
+    @Benchmark
+    public CustomHeaders authHeaders() {
+        return new CustomHeaders("EG1-HMAC-SHA256 client_token=akab-client-token;");
+    }
+
+    @Benchmark
+    public CustomHeaders basicAuthHeaders() {
+        return new CustomHeaders(basicCredential);
+    }
+}
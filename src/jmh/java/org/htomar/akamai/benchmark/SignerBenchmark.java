@@ -0,0 +1,100 @@
+package org.htomar.akamai.benchmark;
+
+import org.htomar.akamai.request.PurgeBody;
+import org.htomar.akamai.request.PurgeBodyEncoder;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeRequestWriter;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+import org.htomar.openakamai.edge.auth.signer.EdgeGridV1Signer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link EdgeGridV1Signer} for purge lists of 1 and 100 URLs
+ * and for 10k and 50k byte bodies, and of the Jackson and streaming body
+ * encoders.
+ *
+ * @author Himanshu Tomar
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignerBenchmark {
+
+    private static final String ENDPOINT = "/ccu/v3/invalidate/url/production";
+
+    @Param({"1", "100", "10k", "50k"})
+    private String listSize;
+
+    private EdgeGridV1Signer signer;
+    private ClientCredential credential;
+    private PurgeRequest<String> purgeRequest;
+    private byte[] body;
+    private PurgeBody encodedBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        signer = new EdgeGridV1Signer();
+        credential = BenchmarkData.credential();
+        purgeRequest = BenchmarkData.urlRequest(listSize);
+        body = PurgeRequestWriter.toBytes(purgeRequest);
+        encodedBody = PurgeBodyEncoder.encode(purgeRequest);
+    }
+
+    /**
+     * Signs an already serialized body.
+     */
+    @Benchmark
+    public HttpHeaders signBody() throws RequestSigningException {
+        return signer.sign(credential, BenchmarkData.BASE_URL, ENDPOINT, body);
+    }
+
+    /**
+     * Serializes and signs a purge request.
+     */
+    @Benchmark
+    public HttpHeaders signRequest() throws RequestSigningException {
+        return signer.sign(credential, BenchmarkData.BASE_URL, ENDPOINT, purgeRequest);
+    }
+
+    /**
+     * Signs an encoded body, reusing its content hash.
+     */
+    @Benchmark
+    public HttpHeaders signEncodedBody() throws RequestSigningException {
+        return signer.sign(credential, BenchmarkData.BASE_URL, ENDPOINT, encodedBody);
+    }
+
+    /**
+     * Serializes a purge request with Jackson.
+     */
+    @Benchmark
+    public byte[] writeBody() throws IOException {
+        return PurgeRequestWriter.toBytes(purgeRequest);
+    }
+
+    /**
+     * Encodes and hashes a purge request with the streaming encoder.
+     */
+    @Benchmark
+    public PurgeBody encodeBody() {
+        return PurgeBodyEncoder.encode(purgeRequest);
+    }
+}
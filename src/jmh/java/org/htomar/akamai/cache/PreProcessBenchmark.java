@@ -0,0 +1,102 @@
+package org.htomar.akamai.cache;
+
+import org.htomar.akamai.benchmark.BenchmarkData;
+import org.htomar.akamai.request.CPCodeRequest;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeRequestWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the URL normalization and CPCode filtering done by
+ * {@link CachePurgeV3} before sending a purge request, and of the boxed and
+ * primitive CPCode request bodies.
+ *
+ * @author Himanshu Tomar
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreProcessBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private CachePurgeV3 cachePurgeV3;
+    private List<String> urls;
+    private List<Integer> cpCodes;
+    private PurgeRequest<String> urlRequest;
+    private PurgeRequest<Integer> cpCodeRequest;
+    private int[] cpCodeArray;
+
+    @Setup
+    public void setUp() {
+        cachePurgeV3 = new CachePurgeV3(BenchmarkData.noOpTransport());
+        urls = BenchmarkData.urls(size);
+        cpCodes = BenchmarkData.cpCodes(size);
+        urlRequest = new PurgeRequest<>();
+        cpCodeRequest = new PurgeRequest<>();
+        cpCodeArray = cpCodes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Pre-processing replaces the objects of the URL request, so every
+     * invocation starts again from the original lists.
+     */
+    @Setup(Level.Invocation)
+    public void resetObjects() {
+        urlRequest.setObjects(urls);
+        cpCodeRequest.setObjects(cpCodes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cachePurgeV3.close();
+    }
+
+    @Benchmark
+    public List<String> normalizeUrls() {
+        cachePurgeV3.preProcessPurgeRequest(urlRequest);
+        return urlRequest.getObjects();
+    }
+
+    @Benchmark
+    public CPCodeRequest filterCPCodes() {
+        return cachePurgeV3.preProcessCPCodeRequest(cpCodeRequest, BenchmarkData.BASE_URL);
+    }
+
+    @Benchmark
+    public byte[] writeCPCodes() {
+        return cachePurgeV3.preProcessCPCodeRequest(cpCodeRequest, BenchmarkData.BASE_URL)
+                .toBytes();
+    }
+
+    @Benchmark
+    public byte[] writeBoxedCPCodes() throws Exception {
+        return PurgeRequestWriter.toBytes(cpCodeRequest);
+    }
+
+    @Benchmark
+    public byte[] writePrimitiveCPCodes() {
+        CPCodeRequest request = new CPCodeRequest(cpCodeArray);
+        request.normalize();
+        return request.toBytes();
+    }
+}
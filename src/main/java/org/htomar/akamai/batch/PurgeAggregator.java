@@ -0,0 +1,416 @@
+package org.htomar.akamai.batch;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.journal.JournalEntry;
+import org.htomar.akamai.journal.PurgeJournal;
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeBodySize;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.PurgeType;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous purge aggregator in front of {@link CachePurgeV3}.
+ * <p>
+ * Objects submitted by concurrent callers are gathered per endpoint and
+ * hostname into a single batch, duplicates are removed, and the batch is
+ * sent as one CCU request once its body would exceed the configured size or
+ * once the linger time of its first submission runs out. Each caller receives a future that
+ * completes with the {@link PurgeResponse} of the batch its objects went into.
+ * </p>
+ * <p>
+ * When given a {@link PurgeJournal}, submitted objects are recorded before
+ * the future is returned and marked done once CCU has returned a purge id
+ * for their batch. {@link #resubmitPending()} queues the objects left
+ * pending by a previous run, skipping those still queued.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeAggregator implements Closeable {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PurgeAggregator.class);
+
+    /**
+     * Default maximum body size of a batch, matching the signer's limit.
+     */
+    public static final int DEFAULT_MAX_BODY_SIZE = 50000;
+
+    /**
+     * Default time a batch waits for more objects before it is sent.
+     */
+    public static final long DEFAULT_LINGER_MILLIS = 200;
+
+    private final CachePurgeV3 cachePurgeV3;
+    private final ClientCredential credential;
+    private final int maxBodySize;
+    private final long lingerMillis;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Open batches keyed by endpoint and hostname.
+     */
+    private final Map<String, Batch<?>> batches = new HashMap<>();
+
+    /**
+     * Ids of the journal entries queued and not yet sent.
+     */
+    private final Set<Long> queuedJournalIds = new HashSet<>();
+
+    private volatile PurgeJournal journal;
+    private boolean closed;
+
+    /**
+     * Constructor using the default body size and linger time.
+     *
+     * @param cachePurgeV3 the purge utility used for sending batches.
+     * @param credential   credentials to be used for open Akamai authentication.
+     */
+    public PurgeAggregator(final CachePurgeV3 cachePurgeV3,
+                           final ClientCredential credential) {
+        this(cachePurgeV3, credential, DEFAULT_MAX_BODY_SIZE,
+                DEFAULT_LINGER_MILLIS, 2);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cachePurgeV3  the purge utility used for sending batches.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param maxBodySize   the maximum body size in bytes of a batch.
+     * @param lingerMillis  the time a batch waits for more objects.
+     * @param senderThreads the number of threads sending batches.
+     */
+    public PurgeAggregator(final CachePurgeV3 cachePurgeV3,
+                           final ClientCredential credential,
+                           final int maxBodySize,
+                           final long lingerMillis,
+                           final int senderThreads) {
+        Assert.notNull(cachePurgeV3, "cache purge cannot be null.");
+        Assert.notNull(credential, "credential cannot be null.");
+        Assert.isTrue(maxBodySize > 0, "max body size should be positive.");
+        Assert.isTrue(lingerMillis >= 0, "linger time cannot be negative.");
+        Assert.isTrue(senderThreads > 0, "sender threads should be positive.");
+        this.cachePurgeV3 = cachePurgeV3;
+        this.credential = credential;
+        this.maxBodySize = maxBodySize;
+        this.lingerMillis = lingerMillis;
+        this.scheduler = Executors.newScheduledThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "akamai-purge-aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the journal recording submitted objects until CCU accepts them.
+     *
+     * @param journal the journal, null to stop recording.
+     */
+    public synchronized void setJournal(final PurgeJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Queues again the objects recorded in the journal and never accepted by
+     * CCU, typically those of a previous run that stopped before sending them.
+     * Entries still queued, by this aggregator or an earlier call, are
+     * skipped, so that calling again only retries the entries whose batch
+     * failed.
+     *
+     * @return the futures of the resubmitted entries, in journal order.
+     */
+    public synchronized List<CompletableFuture<PurgeResponse>> resubmitPending() {
+        Assert.state(journal != null, "no journal set.");
+        List<CompletableFuture<PurgeResponse>> futures = new ArrayList<>();
+        for (JournalEntry entry : journal.getPending()) {
+            if (queuedJournalIds.contains(entry.getId())) {
+                continue;
+            }
+            futures.add(add(entry.getType(), entry.getAction(), entry.getNetwork(),
+                    entry.getHostname(), entry.getObjects(), entry.getId()));
+        }
+        LOGGER.info("Resubmitted {} pending journal entries", futures.size());
+        return futures;
+    }
+
+    /**
+     * Queues the URL(s) of the given request for purging.
+     *
+     * @param purgeRequest the purge request object.
+     * @return a future completed with the response of the batch the URL(s) went into.
+     */
+    public CompletableFuture<PurgeResponse> purgeByURL(
+            final PurgeRequest<String> purgeRequest) {
+        Assert.notEmpty(purgeRequest.getObjects(),
+                "purge request object cannot be null.");
+        List<String> urls = new ArrayList<>(purgeRequest.getObjects().size());
+        for (String url : purgeRequest.getObjects()) {
+            if (StringUtils.hasText(url)) {
+                urls.add(url);
+            }
+        }
+        return add(PurgeType.URL, PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION,
+                purgeRequest.getHostname(), urls);
+    }
+
+    /**
+     * Queues the CPCode(s) of the given request for purging.
+     *
+     * @param purgeRequest the purge request object.
+     * @return a future completed with the response of the batch the CPCode(s) went into.
+     */
+    public CompletableFuture<PurgeResponse> purgeByCPCode(
+            final PurgeRequest<Integer> purgeRequest) {
+        Assert.notEmpty(purgeRequest.getObjects(),
+                "purge request object cannot be null.");
+        List<Integer> cpCodes = new ArrayList<>(purgeRequest.getObjects().size());
+        for (Integer cpCode : purgeRequest.getObjects()) {
+            if (cpCode != null && cpCode > 0) {
+                cpCodes.add(cpCode);
+            }
+        }
+        return add(PurgeType.CPCODE, PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION,
+                purgeRequest.getHostname(), cpCodes);
+    }
+
+    /**
+     * Queues the cache tag(s) of the given request for invalidation.
+     *
+     * @param purgeRequest the purge request object.
+     * @return a future completed with the response of the batch the tag(s) went into.
+     */
+    public CompletableFuture<PurgeResponse> purgeByTag(
+            final PurgeRequest<String> purgeRequest) {
+        return purge(purgeRequest, PurgeType.TAG, PurgeAction.INVALIDATE,
+                PurgeNetwork.PRODUCTION);
+    }
+
+    /**
+     * Queues the objects of the given request for the given action and
+     * network. Objects are batched separately per type, action, network and
+     * hostname.
+     *
+     * @param purgeRequest the purge request object, with URL or tag strings,
+     *                     or CPCode numbers, as objects.
+     * @param type         the type of the purge objects.
+     * @param action       the purge action.
+     * @param network      the target network.
+     * @return a future completed with the response of the batch the objects went into.
+     */
+    public CompletableFuture<PurgeResponse> purge(final PurgeRequest<?> purgeRequest,
+                                                  final PurgeType type,
+                                                  final PurgeAction action,
+                                                  final PurgeNetwork network) {
+        Assert.notNull(type, "purge type cannot be null.");
+        Assert.notNull(action, "purge action cannot be null.");
+        Assert.notNull(network, "purge network cannot be null.");
+        Assert.notEmpty(purgeRequest.getObjects(),
+                "purge request object cannot be null.");
+        List<Object> objects = new ArrayList<>(purgeRequest.getObjects().size());
+        for (Object object : purgeRequest.getObjects()) {
+            if (type == PurgeType.CPCODE
+                    ? object instanceof Integer && (Integer) object > 0
+                    : object instanceof String && StringUtils.hasText((String) object)) {
+                objects.add(object);
+            }
+        }
+        return add(type, action, network, purgeRequest.getHostname(), objects);
+    }
+
+    private synchronized <T> CompletableFuture<PurgeResponse> add(
+            final PurgeType type, final PurgeAction action,
+            final PurgeNetwork network, final String hostname,
+            final Collection<T> objects) {
+        Assert.state(!closed, "aggregator is closed.");
+        Assert.notEmpty(objects, "purge request object cannot be null.");
+        long journalId = journal == null
+                ? 0
+                : journal.append(type, action, network, hostname,
+                new ArrayList<>(objects)).getId();
+        return add(type, action, network, hostname, objects, journalId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<PurgeResponse> add(
+            final PurgeType type, final PurgeAction action,
+            final PurgeNetwork network, final String hostname,
+            final Collection<T> objects, final long journalId) {
+        Assert.state(!closed, "aggregator is closed.");
+        String key = type.getEndpoint(action, network) + '|' + hostname;
+        Batch<T> batch = (Batch<T>) batches.get(key);
+        int added = batch == null ? 0 : batch.sizeOfNew(objects);
+        if (batch != null && batch.size + added > maxBodySize) {
+            dispatch(key, batch);
+            batch = null;
+        }
+        if (batch == null) {
+            batch = new Batch<>(type, action, network, hostname);
+            batches.put(key, batch);
+            final Batch<T> scheduled = batch;
+            batch.lingerTask = scheduler.schedule(() -> flush(key, scheduled),
+                    lingerMillis, TimeUnit.MILLISECONDS);
+        }
+        batch.addAll(objects);
+        if (journalId > 0) {
+            batch.journalIds.add(journalId);
+            queuedJournalIds.add(journalId);
+        }
+        if (batch.size >= maxBodySize) {
+            dispatch(key, batch);
+        }
+        return batch.future;
+    }
+
+    /**
+     * Sends all open batches without waiting for their linger time.
+     */
+    public synchronized void flush() {
+        Iterator<Map.Entry<String, Batch<?>>> iterator = batches.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Batch<?> batch = iterator.next().getValue();
+            iterator.remove();
+            send(batch);
+        }
+    }
+
+    private synchronized void flush(final String key, final Batch<?> batch) {
+        if (batches.get(key) == batch) {
+            dispatch(key, batch);
+        }
+    }
+
+    private synchronized void sent(final Collection<Long> journalIds) {
+        queuedJournalIds.removeAll(journalIds);
+    }
+
+    private void dispatch(final String key, final Batch<?> batch) {
+        batches.remove(key);
+        send(batch);
+    }
+
+    private void send(final Batch<?> batch) {
+        if (batch.lingerTask != null) {
+            batch.lingerTask.cancel(false);
+        }
+        scheduler.execute(batch::send);
+    }
+
+    /**
+     * Sends all open batches and waits for the in-flight ones to complete.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flush();
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warn("Timed out waiting for pending purge batches");
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Objects gathered for one CCU request.
+     *
+     * @param <T> the purge object type.
+     */
+    private final class Batch<T> {
+        private final PurgeType type;
+        private final PurgeAction action;
+        private final PurgeNetwork network;
+        private final String hostname;
+        private final Set<T> objects = new LinkedHashSet<>();
+        private final CompletableFuture<PurgeResponse> future = new CompletableFuture<>();
+        private final List<Long> journalIds = new ArrayList<>();
+        private int size;
+        private ScheduledFuture<?> lingerTask;
+
+        private Batch(final PurgeType type, final PurgeAction action,
+                      final PurgeNetwork network, final String hostname) {
+            this.type = type;
+            this.action = action;
+            this.network = network;
+            this.hostname = hostname;
+            this.size = PurgeBodySize.ofEnvelope(null, hostname);
+        }
+
+        private int sizeOfNew(final Collection<T> candidates) {
+            int added = 0;
+            for (T object : candidates) {
+                if (!objects.contains(object)) {
+                    added += sizeOf(object);
+                }
+            }
+            return added;
+        }
+
+        private void addAll(final Collection<T> candidates) {
+            for (T object : candidates) {
+                if (objects.add(object)) {
+                    size += sizeOf(object);
+                }
+            }
+        }
+
+        private int sizeOf(final T object) {
+            // one byte for the separator, one for a possibly prepended '/'
+            return PurgeBodySize.ofObject(object) + (type == PurgeType.URL ? 2 : 1);
+        }
+
+        private void send() {
+            try {
+                PurgeRequest<T> request = new PurgeRequest<>();
+                request.setHostname(hostname);
+                request.setObjects(new ArrayList<>(objects));
+                PurgeResponse response = cachePurgeV3.purge(request, credential,
+                        credential.getBaseURL(), type, action, network);
+                PurgeJournal current = journal;
+                if (current != null && !journalIds.isEmpty() && response != null
+                        && response.getPurgeId() != null) {
+                    current.markDone(journalIds);
+                }
+                sent(journalIds);
+                future.complete(response);
+            } catch (Exception exception) {
+                LOGGER.error("Failed to purge batch of " + objects.size()
+                        + " object(s)", exception);
+                sent(journalIds);
+                future.completeExceptionally(exception);
+            }
+        }
+    }
+}
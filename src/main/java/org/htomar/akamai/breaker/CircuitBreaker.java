@@ -0,0 +1,250 @@
+package org.htomar.akamai.breaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker of one CCU endpoint of one host.
+ * <p>
+ * The outcomes of the last {@link CircuitBreakerConfig#getSlidingWindowSize()}
+ * calls are kept in a ring. Once it holds enough calls, a failure rate or a
+ * slow call rate at or above its threshold opens the circuit: calls are
+ * rejected for {@link CircuitBreakerConfig#getOpenDurationMillis()}, then a
+ * few probes are let through. The circuit closes again if the probes stay
+ * under both thresholds, and opens for another period otherwise.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class CircuitBreaker {
+
+    /**
+     * States of a circuit.
+     */
+    public enum State {
+        /**
+         * Calls go through and their outcomes are recorded.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected without being sent.
+         */
+        OPEN,
+        /**
+         * A limited number of probe calls go through.
+         */
+        HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final long slowCallNanos;
+    private final Consumer<CircuitBreakerEvent> publisher;
+
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int probesStarted;
+    private int probeCalls;
+    private int probeFailures;
+    private int probeSlowCalls;
+
+    /**
+     * Constructor.
+     *
+     * @param name      the name of the circuit, its host and endpoint.
+     * @param config    the thresholds.
+     * @param publisher receives the state changes, outside of the lock.
+     */
+    CircuitBreaker(final String name, final CircuitBreakerConfig config,
+                   final Consumer<CircuitBreakerEvent> publisher) {
+        this.name = name;
+        this.config = config;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationMillis());
+        this.publisher = publisher;
+        this.window = new byte[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * @return the name of the circuit, its host and endpoint
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the failure rate of the calls in the window, in percent
+     */
+    public synchronized int getFailureRate() {
+        return rate(failures, windowCalls);
+    }
+
+    /**
+     * @return the slow call rate of the calls in the window, in percent
+     */
+    public synchronized int getSlowCallRate() {
+        return rate(slowCalls, windowCalls);
+    }
+
+    /**
+     * Asks for a call to go through. A permitted call must be followed by
+     * {@link #onResult(long, boolean)} or {@link #release()}.
+     *
+     * @return whether the call is permitted.
+     */
+    boolean tryAcquire() {
+        CircuitBreakerEvent event = null;
+        boolean permitted;
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openUntil >= 0) {
+                event = transition(State.HALF_OPEN, 0, 0);
+                probesStarted = 0;
+                probeCalls = 0;
+                probeFailures = 0;
+                probeSlowCalls = 0;
+            }
+            if (state == State.CLOSED) {
+                permitted = true;
+            } else if (state == State.HALF_OPEN && probesStarted < config.getHalfOpenProbes()) {
+                probesStarted++;
+                permitted = true;
+            } else {
+                permitted = false;
+            }
+        }
+        publish(event);
+        return permitted;
+    }
+
+    /**
+     * Gives back a permitted call that was not sent.
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN && probesStarted > 0) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     *
+     * @param nanos  the duration of the call.
+     * @param failed whether the call failed.
+     */
+    void onResult(final long nanos, final boolean failed) {
+        boolean slow = nanos >= slowCallNanos;
+        CircuitBreakerEvent event = null;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+                if (windowCalls >= config.getMinimumCalls()
+                        && exceedsThresholds(failures, slowCalls, windowCalls)) {
+                    event = open(rate(failures, windowCalls), rate(slowCalls, windowCalls));
+                }
+            } else if (state == State.HALF_OPEN) {
+                probeCalls++;
+                probeFailures += failed ? 1 : 0;
+                probeSlowCalls += slow ? 1 : 0;
+                if (probeCalls >= config.getHalfOpenProbes()) {
+                    int failureRate = rate(probeFailures, probeCalls);
+                    int slowCallRate = rate(probeSlowCalls, probeCalls);
+                    if (exceedsThresholds(probeFailures, probeSlowCalls, probeCalls)) {
+                        event = open(failureRate, slowCallRate);
+                    } else {
+                        resetWindow();
+                        event = transition(State.CLOSED, failureRate, slowCallRate);
+                    }
+                }
+            }
+        }
+        publish(event);
+    }
+
+    /**
+     * Returns how long a parked request should wait before being sent.
+     *
+     * @return 0 if a call would be permitted now, the remaining open time in
+     * nanoseconds, or -1 if all probes are in flight.
+     */
+    synchronized long waitNanos() {
+        if (state == State.OPEN) {
+            return Math.max(0, openUntil - System.nanoTime());
+        }
+        if (state == State.HALF_OPEN && probesStarted >= config.getHalfOpenProbes()) {
+            return -1;
+        }
+        return 0;
+    }
+
+    private boolean exceedsThresholds(final int failed, final int slow, final int calls) {
+        return rate(failed, calls) >= config.getFailureRateThreshold()
+                || rate(slow, calls) >= config.getSlowCallRateThreshold();
+    }
+
+    private void record(final byte outcome) {
+        if (windowCalls == window.length) {
+            byte evicted = window[windowIndex];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = outcome;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        windowIndex = windowIndex + 1 == window.length ? 0 : windowIndex + 1;
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCalls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private CircuitBreakerEvent open(final int failureRate, final int slowCallRate) {
+        openUntil = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMillis());
+        return transition(State.OPEN, failureRate, slowCallRate);
+    }
+
+    private CircuitBreakerEvent transition(final State to, final int failureRate,
+                                           final int slowCallRate) {
+        State from = state;
+        state = to;
+        return new CircuitBreakerEvent(name, from, to, failureRate, slowCallRate);
+    }
+
+    private void publish(final CircuitBreakerEvent event) {
+        if (event != null) {
+            publisher.accept(event);
+        }
+    }
+
+    private static int rate(final int count, final int calls) {
+        return calls == 0 ? 0 : count * 100 / calls;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker [name=" + name + ", state=" + state
+                + ", calls=" + windowCalls + ", failureRate="
+                + rate(failures, windowCalls) + ", slowCallRate="
+                + rate(slowCalls, windowCalls) + "]";
+    }
+}
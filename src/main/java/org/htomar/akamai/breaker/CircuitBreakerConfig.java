@@ -0,0 +1,140 @@
+package org.htomar.akamai.breaker;
+
+/**
+ * Thresholds applied by {@link PurgeCircuitBreaker} to each CCU endpoint.
+ *
+ * @author Himanshu Tomar
+ */
+public class CircuitBreakerConfig {
+    private int slidingWindowSize = 20;
+    private int minimumCalls = 10;
+    private int failureRateThreshold = 50;
+    private long slowCallDurationMillis = 5000;
+    private int slowCallRateThreshold = 80;
+    private long openDurationMillis = 30000;
+    private int halfOpenProbes = 3;
+    private int parkingCapacity = 0;
+
+    /**
+     * @return the number of most recent calls the rates are computed over
+     */
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    /**
+     * @param slidingWindowSize the number of most recent calls the rates are computed over
+     */
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    /**
+     * @return the number of calls needed in the window before it can open the circuit
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @param minimumCalls the number of calls needed in the window before it can open the circuit
+     */
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * @return the percentage of failed calls opening the circuit
+     */
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * @param failureRateThreshold the percentage of failed calls opening the circuit
+     */
+    public void setFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    /**
+     * @return the duration above which a call counts as slow
+     */
+    public long getSlowCallDurationMillis() {
+        return slowCallDurationMillis;
+    }
+
+    /**
+     * @param slowCallDurationMillis the duration above which a call counts as slow
+     */
+    public void setSlowCallDurationMillis(long slowCallDurationMillis) {
+        this.slowCallDurationMillis = slowCallDurationMillis;
+    }
+
+    /**
+     * @return the percentage of slow calls opening the circuit
+     */
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * @param slowCallRateThreshold the percentage of slow calls opening the circuit
+     */
+    public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    /**
+     * @return how long an open circuit rejects calls before letting probes through
+     */
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    /**
+     * @param openDurationMillis how long an open circuit rejects calls before letting probes through
+     */
+    public void setOpenDurationMillis(long openDurationMillis) {
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    /**
+     * @return the number of probe calls let through by a half-open circuit
+     */
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    /**
+     * @param halfOpenProbes the number of probe calls let through by a half-open circuit
+     */
+    public void setHalfOpenProbes(int halfOpenProbes) {
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * @return the number of asynchronous requests parked per endpoint while its circuit is open, 0 to fail fast
+     */
+    public int getParkingCapacity() {
+        return parkingCapacity;
+    }
+
+    /**
+     * @param parkingCapacity the number of asynchronous requests parked per endpoint while its circuit is open, 0 to fail fast
+     */
+    public void setParkingCapacity(int parkingCapacity) {
+        this.parkingCapacity = parkingCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerConfig [slidingWindowSize=" + slidingWindowSize
+                + ", minimumCalls=" + minimumCalls + ", failureRateThreshold="
+                + failureRateThreshold + ", slowCallDurationMillis="
+                + slowCallDurationMillis + ", slowCallRateThreshold="
+                + slowCallRateThreshold + ", openDurationMillis="
+                + openDurationMillis + ", halfOpenProbes=" + halfOpenProbes
+                + ", parkingCapacity=" + parkingCapacity + "]";
+    }
+}
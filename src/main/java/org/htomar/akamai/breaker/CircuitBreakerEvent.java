@@ -0,0 +1,85 @@
+package org.htomar.akamai.breaker;
+
+/**
+ * A state change of the circuit of one CCU endpoint.
+ *
+ * @author Himanshu Tomar
+ */
+public class CircuitBreakerEvent {
+    private final String name;
+    private final CircuitBreaker.State from;
+    private final CircuitBreaker.State to;
+    private final int failureRate;
+    private final int slowCallRate;
+    private final long timestamp;
+
+    /**
+     * Constructor.
+     *
+     * @param name         the name of the circuit, its host and endpoint.
+     * @param from         the previous state.
+     * @param to           the new state.
+     * @param failureRate  the failure rate that led to the change, in percent.
+     * @param slowCallRate the slow call rate that led to the change, in percent.
+     */
+    public CircuitBreakerEvent(final String name, final CircuitBreaker.State from,
+                               final CircuitBreaker.State to, final int failureRate,
+                               final int slowCallRate) {
+        this.name = name;
+        this.from = from;
+        this.to = to;
+        this.failureRate = failureRate;
+        this.slowCallRate = slowCallRate;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the name of the circuit, its host and endpoint
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the previous state
+     */
+    public CircuitBreaker.State getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the new state
+     */
+    public CircuitBreaker.State getTo() {
+        return to;
+    }
+
+    /**
+     * @return the failure rate that led to the change, in percent
+     */
+    public int getFailureRate() {
+        return failureRate;
+    }
+
+    /**
+     * @return the slow call rate that led to the change, in percent
+     */
+    public int getSlowCallRate() {
+        return slowCallRate;
+    }
+
+    /**
+     * @return the time of the change, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerEvent [name=" + name + ", from=" + from
+                + ", to=" + to + ", failureRate=" + failureRate
+                + ", slowCallRate=" + slowCallRate + ", timestamp="
+                + timestamp + "]";
+    }
+}
@@ -0,0 +1,19 @@
+package org.htomar.akamai.breaker;
+
+/**
+ * Callback notified by {@link PurgeCircuitBreaker} when the circuit of a CCU
+ * endpoint changes state.
+ *
+ * @author Himanshu Tomar
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+
+    /**
+     * Called after a circuit changed state. Runs on the thread that caused
+     * the change, so it should return quickly.
+     *
+     * @param event the state change.
+     */
+    void onStateChange(CircuitBreakerEvent event);
+}
@@ -0,0 +1,385 @@
+package org.htomar.akamai.breaker;
+
+import org.htomar.akamai.exception.CircuitOpenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Client-side circuit breaking for the CCU endpoints.
+ * <p>
+ * Each host and endpoint pair gets its own {@link CircuitBreaker}. Purge
+ * utilities ask for permission before each HTTP call and report its outcome:
+ * I/O errors, timeouts and 5xx responses count as failures, and calls longer
+ * than {@link CircuitBreakerConfig#getSlowCallDurationMillis()} as slow. While
+ * a circuit is open, calls fail at once with a {@link CircuitOpenException}
+ * instead of waiting for a read timeout.
+ * </p>
+ * <p>
+ * With a positive {@link CircuitBreakerConfig#getParkingCapacity()}, rejected
+ * requests can instead be parked. Once the circuit lets calls through again,
+ * the parked requests of each endpoint are delivered in order, one at a time,
+ * the first ones acting as the half-open probes. Deliveries do not block the
+ * daemon drain thread, so a slow endpoint does not hold back the others, and
+ * a request rejected again stays at the head of its queue.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeCircuitBreaker implements Closeable {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PurgeCircuitBreaker.class);
+
+    /**
+     * How long to wait before checking again a circuit whose probes are all
+     * in flight.
+     */
+    private static final long PROBE_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final CircuitBreakerConfig config;
+    private final ConcurrentMap<String, ConcurrentMap<String, Endpoint>> endpoints =
+            new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<CircuitBreakerListener> listeners =
+            new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService drainScheduler;
+    private volatile boolean closed;
+
+    /**
+     * Circuit and parked requests of one host and endpoint.
+     */
+    private static final class Endpoint {
+        private final CircuitBreaker breaker;
+        private final BlockingQueue<Parked<?>> parked;
+
+        /**
+         * Whether a drain is scheduled or delivering a request.
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Endpoint(final CircuitBreaker breaker, final int parkingCapacity) {
+            this.breaker = breaker;
+            this.parked = parkingCapacity > 0 ? new ArrayBlockingQueue<>(parkingCapacity) : null;
+        }
+    }
+
+    /**
+     * A request waiting for its circuit to let calls through.
+     */
+    private static final class Parked<T> {
+        private final Supplier<CompletableFuture<T>> delivery;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Parked(final Supplier<CompletableFuture<T>> delivery) {
+            this.delivery = delivery;
+        }
+    }
+
+    /**
+     * Constructor using the default {@link CircuitBreakerConfig}.
+     */
+    public PurgeCircuitBreaker() {
+        this(new CircuitBreakerConfig());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config the thresholds applied to each endpoint.
+     */
+    public PurgeCircuitBreaker(final CircuitBreakerConfig config) {
+        Assert.notNull(config, "circuit breaker config cannot be null.");
+        Assert.isTrue(config.getSlidingWindowSize() > 0,
+                "sliding window size should be positive.");
+        Assert.isTrue(config.getMinimumCalls() > 0
+                        && config.getMinimumCalls() <= config.getSlidingWindowSize(),
+                "minimum calls should be between 1 and the sliding window size.");
+        Assert.isTrue(config.getHalfOpenProbes() > 0, "half-open probes should be positive.");
+        Assert.isTrue(config.getOpenDurationMillis() >= 0,
+                "open duration cannot be negative.");
+        Assert.isTrue(config.getParkingCapacity() >= 0,
+                "parking capacity cannot be negative.");
+        this.config = config;
+    }
+
+    /**
+     * Adds a listener of the state changes of all circuits.
+     *
+     * @param listener the listener.
+     */
+    public void addListener(final CircuitBreakerListener listener) {
+        Assert.notNull(listener, "listener cannot be null.");
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(CircuitBreakerListener)}.
+     *
+     * @param listener the listener.
+     */
+    public void removeListener(final CircuitBreakerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Asks for one call to the given endpoint. A permitted call must be
+     * followed by {@link #onResult(String, String, long, Throwable)} or
+     * {@link #release(String, String)}.
+     *
+     * @param hostName the request base host name.
+     * @param endPoint the invalidation endpoint.
+     * @throws CircuitOpenException if the circuit of the endpoint rejects the call.
+     */
+    public void acquire(final String hostName, final String endPoint)
+            throws CircuitOpenException {
+        CircuitBreaker breaker = endpointOf(hostName, endPoint).breaker;
+        if (!breaker.tryAcquire()) {
+            throw new CircuitOpenException(String.format(
+                    "Circuit of '%s' is %s, request not sent",
+                    breaker.getName(), breaker.getState()));
+        }
+    }
+
+    /**
+     * Gives back a call permitted by {@link #acquire(String, String)} that
+     * was not sent after all.
+     *
+     * @param hostName the request base host name.
+     * @param endPoint the invalidation endpoint.
+     */
+    public void release(final String hostName, final String endPoint) {
+        endpointOf(hostName, endPoint).breaker.release();
+    }
+
+    /**
+     * Records the outcome of a call permitted by {@link #acquire(String, String)}.
+     *
+     * @param hostName the request base host name.
+     * @param endPoint the invalidation endpoint.
+     * @param nanos    the duration of the call.
+     * @param failure  the failure of the call, null if it got a response.
+     */
+    public void onResult(final String hostName, final String endPoint,
+                         final long nanos, final Throwable failure) {
+        endpointOf(hostName, endPoint).breaker.onResult(nanos, isFailure(failure));
+    }
+
+    /**
+     * Tells whether the given failure says the endpoint is unhealthy. Client
+     * errors, 429 included, do not count.
+     *
+     * @param failure the failure of a call, null if it got a response.
+     * @return whether the failure counts against the circuit.
+     */
+    public static boolean isFailure(final Throwable failure) {
+        return failure instanceof ResourceAccessException
+                || failure instanceof HttpServerErrorException;
+    }
+
+    /**
+     * @param hostName the request base host name.
+     * @param endPoint the invalidation endpoint.
+     * @return the circuit breaker of the given endpoint
+     */
+    public CircuitBreaker getCircuitBreaker(final String hostName, final String endPoint) {
+        return endpointOf(hostName, endPoint).breaker;
+    }
+
+    /**
+     * @return whether rejected requests can be parked instead of failing
+     */
+    public boolean isParking() {
+        return config.getParkingCapacity() > 0;
+    }
+
+    /**
+     * Parks a rejected request until the circuit of its endpoint lets calls
+     * through again.
+     *
+     * @param hostName the request base host name.
+     * @param endPoint the invalidation endpoint.
+     * @param delivery sends the request without blocking and returns its
+     *                 future, called on the drain thread.
+     * @param <T>      the result type.
+     * @return a future completed with the result of the delivery.
+     * @throws CircuitOpenException if parking is disabled or the queue of the endpoint is full.
+     */
+    public <T> CompletableFuture<T> park(final String hostName, final String endPoint,
+                                         final Supplier<CompletableFuture<T>> delivery)
+            throws CircuitOpenException {
+        Endpoint endpoint = endpointOf(hostName, endPoint);
+        Parked<T> parked = new Parked<>(delivery);
+        if (closed || endpoint.parked == null || !endpoint.parked.offer(parked)) {
+            throw new CircuitOpenException(String.format(
+                    "Circuit of '%s' is open and no more requests can be parked",
+                    endpoint.breaker.getName()));
+        }
+        LOGGER.debug("Parked a request for '{}', {} waiting",
+                endpoint.breaker.getName(), endpoint.parked.size());
+        scheduleDrain(endpoint, endpoint.breaker.waitNanos());
+        return parked.result;
+    }
+
+    /**
+     * @param hostName the request base host name.
+     * @param endPoint the invalidation endpoint.
+     * @return the number of requests parked for the given endpoint
+     */
+    public int getParkedCount(final String hostName, final String endPoint) {
+        BlockingQueue<Parked<?>> parked = endpointOf(hostName, endPoint).parked;
+        return parked == null ? 0 : parked.size();
+    }
+
+    private Endpoint endpointOf(final String hostName, final String endPoint) {
+        ConcurrentMap<String, Endpoint> hostEndpoints = endpoints.get(hostName);
+        if (hostEndpoints == null) {
+            hostEndpoints = endpoints.computeIfAbsent(hostName,
+                    host -> new ConcurrentHashMap<>());
+        }
+        Endpoint endpoint = hostEndpoints.get(endPoint);
+        if (endpoint == null) {
+            endpoint = hostEndpoints.computeIfAbsent(endPoint,
+                    path -> new Endpoint(new CircuitBreaker(hostName + path, config,
+                            this::publish), config.getParkingCapacity()));
+        }
+        return endpoint;
+    }
+
+    private void publish(final CircuitBreakerEvent event) {
+        LOGGER.info("Circuit of '{}' changed from {} to {} (failure rate {}%, slow call rate {}%)",
+                event.getName(), event.getFrom(), event.getTo(),
+                event.getFailureRate(), event.getSlowCallRate());
+        for (CircuitBreakerListener listener : listeners) {
+            try {
+                listener.onStateChange(event);
+            } catch (RuntimeException exception) {
+                LOGGER.warn("Circuit breaker listener failed", exception);
+            }
+        }
+    }
+
+    private void scheduleDrain(final Endpoint endpoint, final long waitNanos) {
+        if (closed || !endpoint.draining.compareAndSet(false, true)) {
+            return;
+        }
+        continueDrain(endpoint, waitNanos);
+    }
+
+    /**
+     * Schedules the next step of a drain owning the endpoint.
+     */
+    private void continueDrain(final Endpoint endpoint, final long waitNanos) {
+        try {
+            getDrainScheduler().schedule(() -> drain(endpoint),
+                    waitNanos < 0 ? PROBE_RECHECK_NANOS : waitNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            // closed meanwhile, the parked requests are failed by close()
+            endpoint.draining.set(false);
+        }
+    }
+
+    /**
+     * Delivers the parked request at the head of the queue of the endpoint
+     * once its circuit permits. The request is only removed from the queue
+     * once delivered, and the drain goes on from its completion.
+     */
+    private void drain(final Endpoint endpoint) {
+        Parked<?> parked = endpoint.parked.peek();
+        if (closed || parked == null) {
+            endpoint.draining.set(false);
+            // a request may have been parked after the peek
+            if (!endpoint.parked.isEmpty()) {
+                scheduleDrain(endpoint, 0);
+            }
+            return;
+        }
+        long waitNanos = endpoint.breaker.waitNanos();
+        if (waitNanos != 0) {
+            continueDrain(endpoint, waitNanos);
+            return;
+        }
+        deliver(endpoint, parked);
+    }
+
+    /**
+     * Sends a parked request and continues the drain once it completes.
+     */
+    private <T> void deliver(final Endpoint endpoint, final Parked<T> parked) {
+        CompletableFuture<T> delivered;
+        try {
+            delivered = parked.delivery.get();
+        } catch (RuntimeException exception) {
+            delivered = new CompletableFuture<>();
+            delivered.completeExceptionally(exception);
+        }
+        delivered.whenComplete((result, failure) -> {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            if (cause instanceof CircuitOpenException) {
+                // rejected again, the request stays at the head of the queue
+                continueDrain(endpoint, endpoint.breaker.waitNanos());
+                return;
+            }
+            endpoint.parked.remove(parked);
+            if (cause == null) {
+                parked.result.complete(result);
+            } else {
+                parked.result.completeExceptionally(cause);
+            }
+            continueDrain(endpoint, 0);
+        });
+    }
+
+    private synchronized ScheduledExecutorService getDrainScheduler() {
+        if (drainScheduler == null) {
+            drainScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "akamai-circuit-drain");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return drainScheduler;
+    }
+
+    /**
+     * Stops delivering parked requests and fails them.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (drainScheduler != null) {
+                drainScheduler.shutdownNow();
+            }
+        }
+        for (ConcurrentMap<String, Endpoint> hostEndpoints : endpoints.values()) {
+            for (Endpoint endpoint : hostEndpoints.values()) {
+                Parked<?> parked;
+                while (endpoint.parked != null && (parked = endpoint.parked.poll()) != null) {
+                    parked.result.completeExceptionally(new CircuitOpenException(
+                            "Circuit breaker closed before the request was delivered"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package org.htomar.akamai.bulk;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.exception.BulkPurgeException;
+import org.htomar.akamai.request.PurgeBodySize;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Streaming bulk purge through {@link CachePurgeV3}.
+ * <p>
+ * URLs or CPCodes are read one record at a time from an {@link InputStream},
+ * a memory-mapped file or an {@link Iterator}, normalized and filtered on the
+ * fly, and sent in requests whose body stays within the maximum body size.
+ * Only the request being filled is held in memory, whatever the input size.
+ * Requests are sent one after another.
+ * </p>
+ * <p>
+ * Progress is counted in input records, one per line of a stream or file.
+ * After each accepted request the {@link BulkPurgeListener} receives the
+ * offset of the first record not yet purged; a run failing with a
+ * {@link BulkPurgeException} carries the same offset. Starting a new run
+ * from that offset purges the rest of the input.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class BulkPurge {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(BulkPurge.class);
+
+    /**
+     * Default maximum body size of a request, matching the signer's limit.
+     */
+    public static final int DEFAULT_MAX_BODY_SIZE = 50000;
+
+    private final CachePurgeV3 cachePurgeV3;
+    private final ClientCredential credential;
+    private final String baseURL;
+    private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private String hostname;
+    private BulkPurgeListener listener;
+
+    /**
+     * Constructor.
+     *
+     * @param cachePurgeV3 the purge utility sending the requests.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param baseURL      the CCU base URL the requests are sent to.
+     */
+    public BulkPurge(final CachePurgeV3 cachePurgeV3,
+                     final ClientCredential credential,
+                     final String baseURL) {
+        Assert.notNull(cachePurgeV3, "cache purge cannot be null.");
+        Assert.notNull(credential, "credential cannot be null.");
+        Assert.hasText(baseURL, "base URL cannot be null.");
+        Assert.isTrue(baseURL.toLowerCase().startsWith("https"),
+                "base URL should start with https.");
+        this.cachePurgeV3 = cachePurgeV3;
+        this.credential = credential;
+        this.baseURL = baseURL;
+    }
+
+    /**
+     * Purges the URLs read from the given stream, one per line. Empty lines
+     * and lines starting with "#" are skipped. The stream is not closed.
+     *
+     * @param inputStream the UTF-8 encoded URLs.
+     * @param offset      the number of lines to skip, 0 to start from the beginning.
+     * @return the progress of the completed run.
+     * @throws BulkPurgeException if a request fails or the stream cannot be read.
+     */
+    public BulkPurgeProgress purgeURLs(final InputStream inputStream,
+                                       final long offset) throws BulkPurgeException {
+        return purgeURLs(lines(inputStream), offset);
+    }
+
+    /**
+     * Purges the URLs of the given file, one per line, reading it through a
+     * memory-mapped window. Empty lines and lines starting with "#" are
+     * skipped.
+     *
+     * @param path   the UTF-8 encoded file.
+     * @param offset the number of lines to skip, 0 to start from the beginning.
+     * @return the progress of the completed run.
+     * @throws IOException        if the file cannot be opened.
+     * @throws BulkPurgeException if a request fails or the file cannot be read.
+     */
+    public BulkPurgeProgress purgeURLs(final Path path, final long offset)
+            throws IOException, BulkPurgeException {
+        try (MappedLineIterator lines = new MappedLineIterator(path)) {
+            return purgeURLs(lines, offset);
+        }
+    }
+
+    /**
+     * Purges the given URLs. Empty URLs are skipped.
+     *
+     * @param urls   the URLs.
+     * @param offset the number of URLs to skip, 0 to start from the beginning.
+     * @return the progress of the completed run.
+     * @throws BulkPurgeException if a request fails.
+     */
+    public BulkPurgeProgress purgeURLs(final Iterator<String> urls,
+                                       final long offset) throws BulkPurgeException {
+        return run(urls, offset, BulkPurge::toURL, purgeRequest ->
+                cachePurgeV3.purgeByURL(purgeRequest, credential, baseURL));
+    }
+
+    /**
+     * Purges the CPCodes read from the given stream, one per line. Lines
+     * that are not positive numbers are skipped. The stream is not closed.
+     *
+     * @param inputStream the UTF-8 encoded CPCodes.
+     * @param offset      the number of lines to skip, 0 to start from the beginning.
+     * @return the progress of the completed run.
+     * @throws BulkPurgeException if a request fails or the stream cannot be read.
+     */
+    public BulkPurgeProgress purgeCPCodes(final InputStream inputStream,
+                                          final long offset) throws BulkPurgeException {
+        return run(lines(inputStream), offset, BulkPurge::toCPCode,
+                this::purgeByCPCode);
+    }
+
+    /**
+     * Purges the CPCodes of the given file, one per line, reading it through
+     * a memory-mapped window. Lines that are not positive numbers are skipped.
+     *
+     * @param path   the UTF-8 encoded file.
+     * @param offset the number of lines to skip, 0 to start from the beginning.
+     * @return the progress of the completed run.
+     * @throws IOException        if the file cannot be opened.
+     * @throws BulkPurgeException if a request fails or the file cannot be read.
+     */
+    public BulkPurgeProgress purgeCPCodes(final Path path, final long offset)
+            throws IOException, BulkPurgeException {
+        try (MappedLineIterator lines = new MappedLineIterator(path)) {
+            return run(lines, offset, BulkPurge::toCPCode, this::purgeByCPCode);
+        }
+    }
+
+    /**
+     * Purges the given CPCodes. Null and non-positive CPCodes are skipped.
+     *
+     * @param cpCodes the CPCodes.
+     * @param offset  the number of CPCodes to skip, 0 to start from the beginning.
+     * @return the progress of the completed run.
+     * @throws BulkPurgeException if a request fails.
+     */
+    public BulkPurgeProgress purgeCPCodes(final Iterator<Integer> cpCodes,
+                                          final long offset) throws BulkPurgeException {
+        return run(cpCodes, offset,
+                cpCode -> cpCode != null && cpCode > 0 ? cpCode : null,
+                this::purgeByCPCode);
+    }
+
+    private PurgeResponse purgeByCPCode(final PurgeRequest<Integer> purgeRequest)
+            throws RequestSigningException {
+        return cachePurgeV3.purgeByCPCode(purgeRequest, credential, baseURL);
+    }
+
+    /**
+     * Reads the records past the offset and sends them in size-bounded
+     * requests.
+     *
+     * @param records  the input records.
+     * @param offset   the number of records to skip.
+     * @param toObject converts a record into a purge object, null to skip it.
+     * @param sender   sends a request.
+     * @param <S>      the record type.
+     * @param <T>      the purge object type.
+     * @return the progress of the completed run.
+     * @throws BulkPurgeException if a request fails or a record cannot be read.
+     */
+    private <S, T> BulkPurgeProgress run(final Iterator<S> records,
+                                         final long offset,
+                                         final Function<S, T> toObject,
+                                         final Sender<T> sender)
+            throws BulkPurgeException {
+        Assert.notNull(records, "records cannot be null.");
+        Assert.isTrue(offset >= 0, "offset cannot be negative.");
+        BulkPurgeProgress progress = new BulkPurgeProgress(offset);
+        long index = 0;
+        try {
+            while (index < offset && records.hasNext()) {
+                records.next();
+                index++;
+            }
+            int envelopeSize = PurgeBodySize.ofEnvelope(null, hostname);
+            Set<T> batch = new LinkedHashSet<>();
+            int bodySize = envelopeSize;
+            while (records.hasNext()) {
+                T object = toObject.apply(records.next());
+                if (object == null) {
+                    progress.onSkipped();
+                } else if (!batch.contains(object)) {
+                    int objectSize = PurgeBodySize.ofObject(object);
+                    if (!batch.isEmpty() && bodySize + objectSize + 1 > maxBodySize) {
+                        send(batch, index, sender, progress);
+                        batch.clear();
+                        bodySize = envelopeSize;
+                    }
+                    bodySize += batch.isEmpty() ? objectSize : objectSize + 1;
+                    batch.add(object);
+                }
+                index++;
+            }
+            if (!batch.isEmpty()) {
+                send(batch, index, sender, progress);
+            }
+            progress.onEnd(index);
+        } catch (RuntimeException | RequestSigningException exception) {
+            throw new BulkPurgeException("Bulk purge stopped, resume from offset "
+                    + progress.getOffset(), exception, progress.getOffset());
+        }
+        LOGGER.info("Bulk purge completed: {}", progress);
+        return progress;
+    }
+
+    private <T> void send(final Set<T> batch, final long nextOffset,
+                          final Sender<T> sender,
+                          final BulkPurgeProgress progress)
+            throws RequestSigningException {
+        PurgeRequest<T> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setHostname(hostname);
+        purgeRequest.setObjects(new ArrayList<>(batch));
+        PurgeResponse response = sender.send(purgeRequest);
+        progress.onRequest(nextOffset, batch.size(), response);
+        LOGGER.debug("Bulk purge request accepted: {}", progress);
+        if (listener != null) {
+            listener.onProgress(progress);
+        }
+    }
+
+    private static Iterator<String> lines(final InputStream inputStream) {
+        Assert.notNull(inputStream, "input stream cannot be null.");
+        return new BufferedReader(new InputStreamReader(inputStream,
+                StandardCharsets.UTF_8)).lines().iterator();
+    }
+
+    private static String toURL(final String line) {
+        if (line == null) {
+            return null;
+        }
+        String url = line.trim();
+        return url.isEmpty() || url.startsWith("#")
+                ? null
+                : CachePurgeV3.normalizeURL(url);
+    }
+
+    private static Integer toCPCode(final String line) {
+        try {
+            int cpCode = Integer.parseInt(line.trim());
+            return cpCode > 0 ? cpCode : null;
+        } catch (NumberFormatException numberFormatException) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the maximum body size of a request
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Sets the maximum body size of a request, at most the signer's limit.
+     *
+     * @param maxBodySize the maximum body size in bytes
+     */
+    public void setMaxBodySize(final int maxBodySize) {
+        Assert.isTrue(maxBodySize > 0, "max body size should be positive.");
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * @return the CCU base URL the requests are sent to
+     */
+    public String getBaseURL() {
+        return baseURL;
+    }
+
+    /**
+     * @return the hostname of relative URLs, null if none
+     */
+    public String getHostname() {
+        return hostname;
+    }
+
+    /**
+     * Sets the hostname sent with each request, to which relative URLs apply.
+     *
+     * @param hostname the hostname, null for none
+     */
+    public void setHostname(final String hostname) {
+        this.hostname = hostname;
+    }
+
+    /**
+     * @return the progress listener, null if none
+     */
+    public BulkPurgeListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the listener notified after each accepted request.
+     *
+     * @param listener the listener, null for none
+     */
+    public void setListener(final BulkPurgeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sends one request of the bulk purge.
+     *
+     * @param <T> the purge object type.
+     */
+    private interface Sender<T> {
+        PurgeResponse send(PurgeRequest<T> purgeRequest)
+                throws RequestSigningException;
+    }
+}
@@ -0,0 +1,18 @@
+package org.htomar.akamai.bulk;
+
+/**
+ * Callback notified by {@link BulkPurge} after each accepted request.
+ *
+ * @author Himanshu Tomar
+ */
+@FunctionalInterface
+public interface BulkPurgeListener {
+
+    /**
+     * Called after a request of the bulk purge was accepted. The offset of
+     * the progress can be persisted to resume a failed run.
+     *
+     * @param progress the progress so far, including the last response.
+     */
+    void onProgress(BulkPurgeProgress progress);
+}
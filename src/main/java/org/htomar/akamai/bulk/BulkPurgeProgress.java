@@ -0,0 +1,87 @@
+package org.htomar.akamai.bulk;
+
+import org.htomar.akamai.request.PurgeResponse;
+
+/**
+ * Progress of a {@link BulkPurge} run.
+ *
+ * @author Himanshu Tomar
+ */
+public class BulkPurgeProgress {
+    private long offset;
+    private long objects;
+    private long skipped;
+    private int requests;
+    private PurgeResponse lastResponse;
+
+    /**
+     * Constructor.
+     *
+     * @param offset the input offset the run started from.
+     */
+    BulkPurgeProgress(final long offset) {
+        this.offset = offset;
+    }
+
+    void onRequest(final long requestOffset, final int requestObjects,
+                   final PurgeResponse response) {
+        offset = requestOffset;
+        objects += requestObjects;
+        requests++;
+        lastResponse = response;
+    }
+
+    void onEnd(final long endOffset) {
+        offset = endOffset;
+    }
+
+    void onSkipped() {
+        skipped++;
+    }
+
+    /**
+     * Returns the number of input records fully handled, counted from the
+     * start of the input. Passing it back to {@link BulkPurge} resumes the
+     * run after the last accepted request.
+     *
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the number of objects purged by this run
+     */
+    public long getObjects() {
+        return objects;
+    }
+
+    /**
+     * @return the number of empty or invalid records skipped by this run
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the number of requests accepted in this run
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the response of the last accepted request, null if none
+     */
+    public PurgeResponse getLastResponse() {
+        return lastResponse;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkPurgeProgress [offset=" + offset + ", objects=" + objects
+                + ", skipped=" + skipped + ", requests=" + requests
+                + ", lastResponse=" + lastResponse + "]";
+    }
+}
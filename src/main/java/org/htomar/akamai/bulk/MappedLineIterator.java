@@ -0,0 +1,104 @@
+package org.htomar.akamai.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the UTF-8 lines of a file through a sliding memory-mapped
+ * window, so files of any size are read without loading them on the heap.
+ * Lines end with "\n" or "\r\n".
+ *
+ * @author Himanshu Tomar
+ */
+final class MappedLineIterator implements Iterator<String>, Closeable {
+
+    /**
+     * Size of the mapped window.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private byte[] line = new byte[256];
+    private String next;
+
+    /**
+     * Constructor.
+     *
+     * @param path the file to read.
+     * @throws IOException if the file cannot be opened.
+     */
+    MappedLineIterator(final Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && position < size) {
+            next = readLine();
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String current = next;
+        next = null;
+        return current;
+    }
+
+    private String readLine() {
+        int length = 0;
+        while (position < size) {
+            if (window == null || position >= windowStart + window.limit()) {
+                map(position);
+            }
+            byte b = window.get((int) (position - windowStart));
+            position++;
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                byte[] larger = new byte[length * 2];
+                System.arraycopy(line, 0, larger, 0, length);
+                line = larger;
+            }
+            line[length++] = b;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void map(final long start) {
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(WINDOW_SIZE, size - start));
+            windowStart = start;
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -1,16 +1,25 @@
 package org.htomar.akamai.cache;
 
 import org.htomar.akamai.headers.CustomHeaders;
+import org.htomar.akamai.metrics.PurgeMetrics;
+import org.htomar.akamai.request.PurgeBody;
+import org.htomar.akamai.request.PurgeBodyEncoder;
 import org.htomar.akamai.request.PurgeRequest;
 import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.retry.PurgeRetrier;
+import org.htomar.akamai.transport.HttpTransport;
+import org.htomar.akamai.transport.PooledHttpTransport;
 import org.htomar.openakamai.edge.auth.credentials.BasicCredential;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+
+import java.io.Closeable;
 
 /**
  * Cache Purge utility utilizing Akamai CCU v2. This class uses Basic Auth
@@ -19,7 +28,7 @@ import org.springframework.web.client.RestTemplate;
  * @author Himanshu Tomar
  * @see CachePurgeV3 for Open Akamai based CCU v3.
  */
-public class CachePurgeV2 {
+public class CachePurgeV2 implements Closeable {
     /**
      * The logger used for logging.
      */
@@ -31,6 +40,48 @@ public class CachePurgeV2 {
      */
     private static final String DEFAULT_INVALIDATE_ENDPOINT = "https://api.ccu.akamai.com/ccu/v2/queues/default";
 
+    /**
+     * Transport used for sending purge requests.
+     */
+    private final HttpTransport transport;
+
+    /**
+     * Whether the transport was created by this instance and must be closed with it.
+     */
+    private final boolean ownsTransport;
+
+    /**
+     * Retries of failed requests, null for none.
+     */
+    private volatile PurgeRetrier retrier = new PurgeRetrier();
+
+    /**
+     * Metrics recording round trips and traffic counters.
+     */
+    private volatile PurgeMetrics metrics = PurgeMetrics.global();
+
+    /**
+     * Constructor creating a private {@link PooledHttpTransport} which is
+     * released by {@link #close()}. Prefer {@link #CachePurgeV2(HttpTransport)}
+     * with a shared transport.
+     */
+    public CachePurgeV2() {
+        this.transport = new PooledHttpTransport();
+        this.ownsTransport = true;
+    }
+
+    /**
+     * Constructor using a shared transport. The transport is not closed by
+     * this instance.
+     *
+     * @param transport the transport used for purge requests.
+     */
+    public CachePurgeV2(final HttpTransport transport) {
+        Assert.notNull(transport, "transport cannot be null.");
+        this.transport = transport;
+        this.ownsTransport = false;
+    }
+
     /**
      * This method is used for purging URL(s) using CCU v2 api. Method accepts
      * {@link PurgeRequest} which contains the URL(s) to be purged along with
@@ -43,14 +94,8 @@ public class CachePurgeV2 {
      */
     public PurgeResponse purgeByURL(final PurgeRequest purgeRequest,
                                     final BasicCredential basicAuth) throws RestClientException {
-        RestTemplate restTemplate = new RestTemplate();
-        LOGGER.debug(purgeRequest.toString());
-        ResponseEntity<PurgeResponse> responseEntity = restTemplate.exchange(
-                DEFAULT_INVALIDATE_ENDPOINT, HttpMethod.POST,
-                new HttpEntity<>(purgeRequest, new CustomHeaders(basicAuth)),
-                PurgeResponse.class);
-        LOGGER.info(responseEntity.getBody().toString());
-        return responseEntity.getBody();
+        LOGGER.debug("{}", purgeRequest);
+        return send(purgeRequest, basicAuth);
     }
 
     /**
@@ -65,14 +110,114 @@ public class CachePurgeV2 {
      */
     public PurgeResponse purgeByCPCode(final PurgeRequest purgeRequest,
                                        final BasicCredential basicAuth) throws RestClientException {
-        RestTemplate restTemplate = new RestTemplate();
-        LOGGER.debug(purgeRequest.toString());
+        LOGGER.debug("{}", purgeRequest);
         purgeRequest.setType("cpcode");
-        ResponseEntity<PurgeResponse> responseEntity = restTemplate.exchange(
-                DEFAULT_INVALIDATE_ENDPOINT, HttpMethod.POST,
-                new HttpEntity<>(purgeRequest, new CustomHeaders(basicAuth)),
-                PurgeResponse.class);
-        LOGGER.info(responseEntity.getBody().toString());
+        return send(purgeRequest, basicAuth);
+    }
+
+    private PurgeResponse send(final PurgeRequest purgeRequest,
+                               final BasicCredential basicAuth) throws RestClientException {
+        long start = System.nanoTime();
+        PurgeBody body = PurgeBodyEncoder.encode(purgeRequest);
+        metrics.record(PurgeMetrics.Stage.SERIALIZATION, System.nanoTime() - start);
+        int objects = purgeRequest.getObjects().size();
+        PurgeRetrier currentRetrier = retrier;
+        ResponseEntity<PurgeResponse> responseEntity = currentRetrier == null
+                ? exchange(body, objects, basicAuth)
+                : currentRetrier.execute(() -> exchange(body, objects, basicAuth));
+        LOGGER.info("{}", responseEntity.getBody());
         return responseEntity.getBody();
     }
+
+    /**
+     * Sends one attempt of a serialized purge request.
+     *
+     * @param body      the serialized purge request.
+     * @param objects   the number of objects in the request.
+     * @param basicAuth credentials to be used for basic auth.
+     * @return the response entity.
+     * @throws RestClientException if any exception occurs in making rest api call.
+     */
+    private ResponseEntity<PurgeResponse> exchange(final PurgeBody body,
+                                                   final int objects,
+                                                   final BasicCredential basicAuth)
+            throws RestClientException {
+        PurgeMetrics currentMetrics = metrics;
+        String client = clientOf(basicAuth);
+        currentMetrics.onRequest(client, objects, body.getLength());
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<PurgeResponse> responseEntity = transport.exchange(
+                    DEFAULT_INVALIDATE_ENDPOINT, HttpMethod.POST,
+                    new HttpEntity<>(body.getBytes(), new CustomHeaders(basicAuth)),
+                    PurgeResponse.class);
+            currentMetrics.record(PurgeMetrics.Stage.ROUND_TRIP, System.nanoTime() - start);
+            currentMetrics.onStatus(client, responseEntity.getStatusCodeValue());
+            return responseEntity;
+        } catch (HttpStatusCodeException statusCodeException) {
+            currentMetrics.record(PurgeMetrics.Stage.ROUND_TRIP, System.nanoTime() - start);
+            currentMetrics.onStatus(client, statusCodeException.getRawStatusCode());
+            throw statusCodeException;
+        } catch (RestClientException restClientException) {
+            currentMetrics.onFailure(client);
+            throw restClientException;
+        }
+    }
+
+    /**
+     * Returns the key of the basic credential in the client counters, apart
+     * from the client tokens of CCU v3 credentials.
+     *
+     * @param basicAuth credentials to be used for basic auth.
+     * @return the client key.
+     */
+    private static String clientOf(final BasicCredential basicAuth) {
+        return "basic:" + basicAuth.getUsername();
+    }
+
+    /**
+     * @return the metrics of this purge utility
+     */
+    public PurgeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics recording round trips and traffic counters, reported
+     * under the client "basic:" followed by the username. Defaults to
+     * {@link PurgeMetrics#global()}.
+     *
+     * @param metrics the metrics, cannot be null.
+     */
+    public void setMetrics(final PurgeMetrics metrics) {
+        Assert.notNull(metrics, "metrics cannot be null.");
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the retrier of failed requests, null if retries are disabled
+     */
+    public PurgeRetrier getRetrier() {
+        return retrier;
+    }
+
+    /**
+     * Sets the retrier of failed requests. Defaults to a {@link PurgeRetrier}
+     * with the default policy and the global retry budget.
+     *
+     * @param retrier the retrier, null to disable retries
+     */
+    public void setRetrier(final PurgeRetrier retrier) {
+        this.retrier = retrier;
+    }
+
+    /**
+     * Closes the transport if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        if (ownsTransport) {
+            transport.close();
+        }
+    }
 }
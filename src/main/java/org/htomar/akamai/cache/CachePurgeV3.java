@@ -1,8 +1,26 @@
 package org.htomar.akamai.cache;
 
+import org.htomar.akamai.breaker.PurgeCircuitBreaker;
+import org.htomar.akamai.exception.CircuitOpenException;
+import org.htomar.akamai.metrics.PurgeMetrics;
+import org.htomar.akamai.ratelimit.PurgeRateLimiter;
+import org.htomar.akamai.request.CPCodeRequest;
+import org.htomar.akamai.request.CompositePurgeResponse;
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeType;
+import org.htomar.akamai.retry.PurgeRetrier;
+import org.htomar.akamai.request.PurgeBody;
+import org.htomar.akamai.request.PurgeBodyEncoder;
 import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeRequestSplitter;
 import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.UrlNormalizer;
+import org.htomar.akamai.transport.AsyncHttpTransport;
+import org.htomar.akamai.transport.HttpTransport;
+import org.htomar.akamai.transport.PooledHttpTransport;
 import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.credentials.OpenAkamaiCredential;
 import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
 import org.htomar.openakamai.edge.auth.signer.EdgeGridV1Signer;
 import org.slf4j.Logger;
@@ -12,9 +30,30 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -24,7 +63,7 @@ import java.util.stream.Collectors;
  * @author Himanshu Tomar
  * @see CachePurgeV2 for Open Akamai based CCU v2.
  */
-public class CachePurgeV3 {
+public class CachePurgeV3 implements Closeable {
     /**
      * The logger used for logging.
      */
@@ -32,20 +71,138 @@ public class CachePurgeV3 {
             .getLogger(CachePurgeV3.class);
 
     /**
-     * Invalidation by URL endpoint.
+     * Maximum length of a cache tag.
      */
-    private static final String URL_INVALIDATE_ENDPOINT = "/ccu/v3/invalidate/url/production";
+    private static final int MAX_TAG_LENGTH = 128;
 
     /**
-     * Invalidation by CPCode endpoint.
+     * Punctuation allowed in cache tags besides letters and digits.
      */
-    private static final String CPCODE_INVALIDATE_ENDPOINT = "/ccu/v3/invalidate/cpcode/production";
+    private static final String TAG_PUNCTUATION = "!#$%'*+-.^_`|~";
+
+    /**
+     * URL of the sample purge request encoded and signed by warm-up.
+     */
+    private static final String WARM_UP_URL = "https://www.example.com/warm-up";
+
+    /**
+     * CPCode of the sample CPCode request serialized by warm-up.
+     */
+    private static final int WARM_UP_CPCODE = 1;
+
+    /**
+     * Client and access token of the throwaway warm-up credential.
+     */
+    private static final String WARM_UP_TOKEN = "warm-up";
+
+    /**
+     * Base64 client secret of the throwaway warm-up credential.
+     */
+    private static final String WARM_UP_SECRET = "d2FybS11cA==";
+
+    /**
+     * Base URL of the throwaway warm-up credential, never contacted.
+     */
+    private static final String WARM_UP_HOST = "localhost";
+
+    /**
+     * Sample CCU response read by the transport's message converters on warm-up.
+     */
+    private static final byte[] WARM_UP_RESPONSE = ("{\"httpStatus\":201,"
+            + "\"detail\":\"Request accepted\",\"estimatedSeconds\":5,"
+            + "\"purgeId\":\"warm-up\",\"supportId\":\"warm-up\"}")
+            .getBytes(StandardCharsets.UTF_8);
 
     /**
      * EdgeGrid V1 Signer which is used for encrypting Akamai request using Open API format.
      */
     private EdgeGridV1Signer signer = new EdgeGridV1Signer();
 
+    /**
+     * Transport used for sending purge requests.
+     */
+    private final HttpTransport transport;
+
+    /**
+     * Whether the transport was created by this instance and must be closed with it.
+     */
+    private final boolean ownsTransport;
+
+    /**
+     * Maximum number of parts of a split purge request sent concurrently.
+     */
+    private int maxConcurrentRequests = 4;
+
+    /**
+     * Maximum number of asynchronous purges waiting for a thread of the
+     * blocking executor.
+     */
+    private int maxQueuedPurges = 1000;
+
+    /**
+     * Executor sending the parts of split purge requests, created on first use.
+     */
+    private ExecutorService splitExecutor;
+
+    /**
+     * Executor running asynchronous purges over a blocking transport, created
+     * on first use. Kept apart from the split executor, whose threads the
+     * purges it runs wait for.
+     */
+    private ExecutorService blockingExecutor;
+
+    /**
+     * Scheduler of the retries of asynchronous purges, created on first use.
+     */
+    private ScheduledExecutorService retryScheduler;
+
+    /**
+     * Retries of failed requests, null for none.
+     */
+    private volatile PurgeRetrier retrier = new PurgeRetrier();
+
+    /**
+     * Metrics recording serialization, round trip and traffic counters.
+     */
+    private volatile PurgeMetrics metrics = PurgeMetrics.global();
+
+    /**
+     * Optional suppression of objects purged recently.
+     */
+    private volatile RecentPurgeCache recentPurgeCache;
+
+    /**
+     * Optional client-side admission control, applied to every request sent.
+     */
+    private volatile PurgeRateLimiter rateLimiter;
+
+    /**
+     * Optional circuit breaking per CCU endpoint, applied to every request sent.
+     */
+    private volatile PurgeCircuitBreaker circuitBreaker;
+
+    /**
+     * Constructor creating a private {@link PooledHttpTransport} which is
+     * released by {@link #close()}. Prefer {@link #CachePurgeV3(HttpTransport)}
+     * with a shared transport.
+     */
+    public CachePurgeV3() {
+        this.transport = new PooledHttpTransport();
+        this.ownsTransport = true;
+    }
+
+    /**
+     * Constructor using a shared transport. The transport is not closed by
+     * this instance.
+     *
+     * @param transport the transport used for purge requests.
+     */
+    public CachePurgeV3(final HttpTransport transport) {
+        Assert.notNull(transport, "transport cannot be null.");
+        this.transport = transport;
+        this.ownsTransport = false;
+    }
+
     /**
      * This method is used for purging URL(s) using CCU v3 api. Method accepts
      * {@link PurgeRequest} which contains the URL(s) to be purged along with
@@ -62,17 +219,33 @@ public class CachePurgeV3 {
     public PurgeResponse purgeByURL(final PurgeRequest<String> purgeRequest,
                                     final ClientCredential credential, String hostName)
             throws RestClientException, RequestSigningException {
+        return purgeByURL(purgeRequest, credential, hostName,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    /**
+     * This method is used for invalidating or deleting URL(s) on the given
+     * network using CCU v3 api.
+     *
+     * @param purgeRequest the purge request object.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param action       the purge action.
+     * @param network      the target network.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     * @see ClientCredential
+     */
+    public PurgeResponse purgeByURL(final PurgeRequest<String> purgeRequest,
+                                    final ClientCredential credential, String hostName,
+                                    final PurgeAction action,
+                                    final PurgeNetwork network)
+            throws RestClientException, RequestSigningException {
         preProcessRequest(purgeRequest, hostName);
         hostName = hostName.toLowerCase();
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<PurgeResponse> responseEntity = restTemplate.exchange(
-                hostName + URL_INVALIDATE_ENDPOINT, HttpMethod.POST,
-                new HttpEntity<>(purgeRequest,
-                        signer.sign(credential, hostName,
-                                URL_INVALIDATE_ENDPOINT, purgeRequest)),
-                PurgeResponse.class);
-        LOGGER.debug(responseEntity.getBody().toString());
-        return responseEntity.getBody();
+        return sendRecent(purgeRequest, credential, hostName, PurgeType.URL,
+                PurgeType.URL.getEndpoint(action, network));
     }
 
     /**
@@ -91,19 +264,27 @@ public class CachePurgeV3 {
     }
 
     /**
-     * Method to pre-process URL purge request and remove any invalid URL(s).
+     * Method to pre-process URL purge request: removes blank URL(s),
+     * normalizes the others and removes the duplicates.
      *
      * @param purgeRequest the purge request.
+     * @see UrlNormalizer
      */
-    private void preProcessPurgeRequest(final PurgeRequest<String> purgeRequest) {
+    void preProcessPurgeRequest(final PurgeRequest<String> purgeRequest) {
         Assert.notEmpty(purgeRequest.getObjects(),
                 "purge request object cannot be null.");
-        purgeRequest.setObjects(purgeRequest.getObjects().stream()
-                .filter(StringUtils::hasText)
-                .map(url -> url.startsWith("/") || url.startsWith("http")
-                        ? url.toLowerCase()
-                        : "/" + url.toLowerCase())
-                .collect(Collectors.toList()));
+        purgeRequest.setObjects(UrlNormalizer.normalizeAll(purgeRequest.getObjects()));
+    }
+
+    /**
+     * Normalizes a URL the way URL purge requests are pre-processed.
+     *
+     * @param url the URL, cannot be empty.
+     * @return the normalized URL.
+     * @see UrlNormalizer#normalize(String)
+     */
+    public static String normalizeURL(final String url) {
+        return UrlNormalizer.normalize(url);
     }
 
     /**
@@ -123,37 +304,1333 @@ public class CachePurgeV3 {
                                        final ClientCredential credential,
                                        final String hostName)
             throws RestClientException, RequestSigningException {
-        preProcessCPCodeRequest(purgeRequest, hostName);
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<PurgeResponse> responseEntity = restTemplate.exchange(
-                hostName + CPCODE_INVALIDATE_ENDPOINT,
-                HttpMethod.POST,
-                new HttpEntity<>(purgeRequest,
-                        signer.sign(credential,
-                                hostName,
-                                CPCODE_INVALIDATE_ENDPOINT,
-                                purgeRequest)),
-                PurgeResponse.class);
-        LOGGER.debug(responseEntity.getBody().toString());
-        return responseEntity.getBody();
+        return purgeByCPCode(purgeRequest, credential, hostName,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    /**
+     * This method is used for invalidating or deleting CPCode(s) on the given
+     * network using CCU v3 api. The CPCodes are sent as a
+     * {@link CPCodeRequest}, sorted and deduplicated.
+     *
+     * @param purgeRequest the purge request object.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param action       the purge action.
+     * @param network      the target network.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     * @see ClientCredential
+     */
+    public PurgeResponse purgeByCPCode(final PurgeRequest<Integer> purgeRequest,
+                                       final ClientCredential credential,
+                                       final String hostName,
+                                       final PurgeAction action,
+                                       final PurgeNetwork network)
+            throws RestClientException, RequestSigningException {
+        return sendRecent(preProcessCPCodeRequest(purgeRequest, hostName),
+                credential, hostName, PurgeType.CPCODE.getEndpoint(action, network));
+    }
+
+    /**
+     * This method is used for purging CPCode(s) given as primitive ints using
+     * CCU v3 api.
+     *
+     * @param cpCodeRequest the CPCode request, normalized in place.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     * @see #purgeByCPCode(CPCodeRequest, ClientCredential, String, PurgeAction, PurgeNetwork)
+     */
+    public PurgeResponse purgeByCPCode(final CPCodeRequest cpCodeRequest,
+                                       final ClientCredential credential,
+                                       final String hostName)
+            throws RestClientException, RequestSigningException {
+        return purgeByCPCode(cpCodeRequest, credential, hostName,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    /**
+     * This method is used for invalidating or deleting CPCode(s) given as
+     * primitive ints on the given network using CCU v3 api. The CPCodes are
+     * sorted, deduplicated and written straight into the signed body,
+     * without Jackson. A request too large for one body is split, and its
+     * parts are sent concurrently like those of other requests.
+     *
+     * @param cpCodeRequest the CPCode request, normalized in place.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @param action        the purge action.
+     * @param network       the target network.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    public PurgeResponse purgeByCPCode(final CPCodeRequest cpCodeRequest,
+                                       final ClientCredential credential,
+                                       final String hostName,
+                                       final PurgeAction action,
+                                       final PurgeNetwork network)
+            throws RestClientException, RequestSigningException {
+        Assert.hasText(hostName,
+                "hostname cannot be null.");
+        Assert.notNull(cpCodeRequest, "purge request object cannot be null.");
+        Assert.isTrue(cpCodeRequest.normalize() > 0,
+                "purge request has no valid CPCode.");
+        return sendRecent(cpCodeRequest, credential, hostName,
+                PurgeType.CPCODE.getEndpoint(action, network));
+    }
+
+    /**
+     * This method is used for invalidating cache tag(s) on the production
+     * network using CCU v3 api. Every object cached with one of the tags is
+     * purged, so a single tag can replace a large fan-out of URL purges.
+     *
+     * @param purgeRequest the purge request object.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     * @see ClientCredential
+     */
+    public PurgeResponse purgeByTag(final PurgeRequest<String> purgeRequest,
+                                    final ClientCredential credential,
+                                    final String hostName)
+            throws RestClientException, RequestSigningException {
+        return purgeByTag(purgeRequest, credential, hostName,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    /**
+     * This method is used for invalidating or deleting cache tag(s) on the
+     * given network using CCU v3 api.
+     *
+     * @param purgeRequest the purge request object.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param action       the purge action.
+     * @param network      the target network.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     * @see ClientCredential
+     */
+    public PurgeResponse purgeByTag(final PurgeRequest<String> purgeRequest,
+                                    final ClientCredential credential,
+                                    final String hostName,
+                                    final PurgeAction action,
+                                    final PurgeNetwork network)
+            throws RestClientException, RequestSigningException {
+        preProcessTagRequest(purgeRequest, hostName);
+        return sendRecent(purgeRequest, credential, hostName, PurgeType.TAG,
+                PurgeType.TAG.getEndpoint(action, network));
+    }
+
+    /**
+     * Sends a purge request of the given type, with URL or tag strings, or
+     * CPCode numbers, as objects.
+     *
+     * @param purgeRequest the purge request object.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param type         the type of the purge objects.
+     * @param action       the purge action.
+     * @param network      the target network.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    @SuppressWarnings("unchecked")
+    public PurgeResponse purge(final PurgeRequest<?> purgeRequest,
+                               final ClientCredential credential,
+                               final String hostName,
+                               final PurgeType type,
+                               final PurgeAction action,
+                               final PurgeNetwork network)
+            throws RestClientException, RequestSigningException {
+        Assert.notNull(type, "purge type cannot be null.");
+        switch (type) {
+            case CPCODE:
+                return purgeByCPCode((PurgeRequest<Integer>) purgeRequest,
+                        credential, hostName, action, network);
+            case TAG:
+                return purgeByTag((PurgeRequest<String>) purgeRequest,
+                        credential, hostName, action, network);
+            default:
+                return purgeByURL((PurgeRequest<String>) purgeRequest,
+                        credential, hostName, action, network);
+        }
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #purge(PurgeRequest, ClientCredential, String, PurgeType, PurgeAction, PurgeNetwork)}.
+     * <p>
+     * With an {@link AsyncHttpTransport}, no thread is held while requests
+     * are in flight, and retries and rate limiter delays are scheduled
+     * instead of slept. With a blocking transport, the purge runs on
+     * a dedicated executor of {@link #getMaxConcurrentRequests()} threads,
+     * its parts still being sent by the executor of split requests. At most
+     * {@link #getMaxQueuedPurges()} purges wait for one of its threads, and
+     * the future of a purge submitted beyond that completes at once with a
+     * ResourceAccessException.
+     * </p>
+     *
+     * @param purgeRequest the purge request object, with URL or tag strings,
+     *                     or CPCode numbers, as objects.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param type         the type of the purge objects.
+     * @param action       the purge action.
+     * @param network      the target network.
+     * @return a future completed with the PurgeResponse, or with the
+     * RestClientException or RequestSigningException of the failure.
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<PurgeResponse> purgeAsync(final PurgeRequest<?> purgeRequest,
+                                                       final ClientCredential credential,
+                                                       final String hostName,
+                                                       final PurgeType type,
+                                                       final PurgeAction action,
+                                                       final PurgeNetwork network) {
+        Assert.notNull(type, "purge type cannot be null.");
+        if (!(transport instanceof AsyncHttpTransport)) {
+            CompletableFuture<PurgeResponse> future = new CompletableFuture<>();
+            try {
+                getBlockingExecutor().execute(() -> {
+                    try {
+                        future.complete(purge(purgeRequest, credential, hostName,
+                                type, action, network));
+                    } catch (Exception exception) {
+                        future.completeExceptionally(exception);
+                    }
+                });
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                future.completeExceptionally(new ResourceAccessException(
+                        "Too many asynchronous purges, " + maxQueuedPurges
+                                + " already waiting for a thread"));
+            }
+            return future;
+        }
+        String endPoint = type.getEndpoint(action, network);
+        switch (type) {
+            case CPCODE:
+                return sendRecentAsync(preProcessCPCodeRequest(
+                        (PurgeRequest<Integer>) purgeRequest, hostName),
+                        credential, hostName, endPoint);
+            case TAG:
+                preProcessTagRequest((PurgeRequest<String>) purgeRequest, hostName);
+                return sendRecentAsync(purgeRequest, credential, hostName, type, endPoint);
+            default:
+                preProcessRequest((PurgeRequest<String>) purgeRequest, hostName);
+                return sendRecentAsync(purgeRequest, credential, hostName.toLowerCase(),
+                        type, endPoint);
+        }
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #sendRecent(CPCodeRequest, ClientCredential, String, String)}.
+     *
+     * @param cpCodeRequest the normalized CPCode request.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @param endPoint      the invalidation endpoint.
+     * @return a future completed with the PurgeResponse.
+     */
+    private CompletableFuture<PurgeResponse> sendRecentAsync(final CPCodeRequest cpCodeRequest,
+                                                             final ClientCredential credential,
+                                                             final String hostName,
+                                                             final String endPoint) {
+        if (recentPurgeCache == null) {
+            return sendAllAsync(cpCodeRequest, credential, hostName, endPoint);
+        }
+        return sendRecentAsync(cpCodeRequest.toPurgeRequest(), credential, hostName,
+                PurgeType.CPCODE, endPoint);
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #sendRecent(PurgeRequest, ClientCredential, String, PurgeType, String)}.
+     *
+     * @param purgeRequest the pre-processed purge request.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param type         the type of the purge objects.
+     * @param endPoint     the invalidation endpoint.
+     * @param <T>          the purge object type.
+     * @return a future completed with the PurgeResponse.
+     */
+    private <T> CompletableFuture<PurgeResponse> sendRecentAsync(final PurgeRequest<T> purgeRequest,
+                                                                 final ClientCredential credential,
+                                                                 final String hostName,
+                                                                 final PurgeType type,
+                                                                 final String endPoint) {
+        RecentPurgeCache cache = recentPurgeCache;
+        if (cache == null) {
+            return sendAllAsync(purgeRequest, credential, hostName, type, endPoint);
+        }
+        String prefix = hostName + endPoint + '|' + purgeRequest.getHostname() + '|';
+        CompletableFuture<PurgeResponse> pending = new CompletableFuture<>();
+        List<T> objects = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        Set<CompletableFuture<PurgeResponse>> recent = new LinkedHashSet<>();
+        for (T object : purgeRequest.getObjects()) {
+            String key = prefix + object;
+            CompletableFuture<PurgeResponse> previous = cache.putIfAbsent(key, pending);
+            if (previous == null) {
+                objects.add(object);
+                keys.add(key);
+            } else if (previous != pending) {
+                recent.add(previous);
+            }
+        }
+        List<CompletableFuture<PurgeResponse>> futures = new ArrayList<>();
+        if (!objects.isEmpty()) {
+            futures.add(sendAllAsync(copyOf(purgeRequest, objects), credential, hostName,
+                    type, endPoint)
+                    .whenComplete((response, failure) -> {
+                        if (failure == null) {
+                            pending.complete(response);
+                        } else {
+                            cache.remove(keys, pending);
+                            pending.completeExceptionally(failure);
+                        }
+                    }));
+        } else {
+            LOGGER.debug("All {} object(s) purged recently, not sending request",
+                    purgeRequest.getObjects().size());
+        }
+        futures.addAll(recent);
+        return combine(futures);
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #send(PurgeRequest, ClientCredential, String, PurgeType, String)},
+     * sending every part at once.
+     *
+     * @param purgeRequest the pre-processed purge request.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param type         the type of the purge objects.
+     * @param endPoint     the invalidation endpoint.
+     * @param <T>          the purge object type.
+     * @return a future completed with the PurgeResponse.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<PurgeResponse> sendAllAsync(final PurgeRequest<T> purgeRequest,
+                                                              final ClientCredential credential,
+                                                              final String hostName,
+                                                              final PurgeType type,
+                                                              final String endPoint) {
+        if (type == PurgeType.CPCODE) {
+            return sendAllAsync(CPCodeRequest.of((List<Integer>) purgeRequest.getObjects()),
+                    credential, hostName, endPoint);
+        }
+        List<PurgeRequest<T>> parts;
+        try {
+            parts = PurgeRequestSplitter.split(purgeRequest, signer.getMaxBodySize());
+        } catch (RuntimeException exception) {
+            CompletableFuture<PurgeResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(exception);
+            return failed;
+        }
+        if (parts.size() > 1) {
+            LOGGER.debug("Split purge request of {} object(s) into {} requests",
+                    purgeRequest.getObjects().size(), parts.size());
+        }
+        List<CompletableFuture<PurgeResponse>> futures = new ArrayList<>(parts.size());
+        for (PurgeRequest<T> part : parts) {
+            futures.add(sendAsync(part, credential, hostName, endPoint));
+        }
+        return combine(futures);
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #send(CPCodeRequest, ClientCredential, String, String)},
+     * sending every part at once.
+     *
+     * @param cpCodeRequest the normalized CPCode request.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @param endPoint      the invalidation endpoint.
+     * @return a future completed with the PurgeResponse.
+     */
+    private CompletableFuture<PurgeResponse> sendAllAsync(final CPCodeRequest cpCodeRequest,
+                                                          final ClientCredential credential,
+                                                          final String hostName,
+                                                          final String endPoint) {
+        List<CPCodeRequest> parts = cpCodeRequest.split(signer.getMaxBodySize());
+        if (parts.size() > 1) {
+            LOGGER.debug("Split CPCode request of {} CPCode(s) into {} requests",
+                    cpCodeRequest.size(), parts.size());
+        }
+        List<CompletableFuture<PurgeResponse>> futures = new ArrayList<>(parts.size());
+        for (CPCodeRequest part : parts) {
+            long start = System.nanoTime();
+            PurgeBody body = new PurgeBody(part.toBytes());
+            metrics.record(PurgeMetrics.Stage.SERIALIZATION, System.nanoTime() - start);
+            futures.add(sendAsync(body, part.size(), credential, hostName, endPoint));
+        }
+        return combine(futures);
+    }
+
+    /**
+     * @return a future completed with the single response, or with the
+     * responses combined into a {@link CompositePurgeResponse}.
+     */
+    private static CompletableFuture<PurgeResponse> combine(
+            final List<CompletableFuture<PurgeResponse>> futures) {
+        if (futures.size() == 1) {
+            return futures.get(0);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> new CompositePurgeResponse(futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList())));
+    }
+
+    /**
+     * Method to pre-process cache tag purge request and remove any invalid
+     * tag(s). Tags are case sensitive and only trimmed.
+     *
+     * @param purgeRequest the purge request.
+     * @param hostName     the request base host name.
+     */
+    void preProcessTagRequest(final PurgeRequest<String> purgeRequest,
+                              final String hostName) {
+        Assert.hasText(hostName,
+                "hostname cannot be null.");
+        Assert.notEmpty(purgeRequest.getObjects(),
+                "purge request object cannot be null.");
+        List<String> tags = new ArrayList<>(purgeRequest.getObjects().size());
+        for (String tag : purgeRequest.getObjects()) {
+            if (!StringUtils.hasText(tag)) {
+                continue;
+            }
+            String trimmed = tag.trim();
+            if (isValidTag(trimmed)) {
+                tags.add(trimmed);
+            } else {
+                LOGGER.warn("Ignoring invalid cache tag '{}'", tag);
+            }
+        }
+        Assert.notEmpty(tags, "purge request has no valid cache tag.");
+        purgeRequest.setObjects(tags);
     }
 
     /**
-     * Method to pre-process CPCode purge request and remove any invalid CPCode(s).
+     * Checks a cache tag: at most 128 letters, digits or allowed punctuation.
+     *
+     * @param tag the trimmed tag.
+     * @return whether the tag can be purged.
+     */
+    private static boolean isValidTag(final String tag) {
+        if (tag.length() > MAX_TAG_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            char c = tag.charAt(i);
+            if (!(c < 0x80 && Character.isLetterOrDigit(c))
+                    && TAG_PUNCTUATION.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends the normalized CPCode request, leaving out the CPCodes purged
+     * within the window of the {@link RecentPurgeCache}, if any.
+     *
+     * @param cpCodeRequest the normalized CPCode request.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @param endPoint      the invalidation endpoint.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private PurgeResponse sendRecent(final CPCodeRequest cpCodeRequest,
+                                     final ClientCredential credential,
+                                     final String hostName,
+                                     final String endPoint)
+            throws RestClientException, RequestSigningException {
+        if (recentPurgeCache == null) {
+            return send(cpCodeRequest, credential, hostName, endPoint);
+        }
+        return sendRecent(cpCodeRequest.toPurgeRequest(), credential, hostName,
+                PurgeType.CPCODE, endPoint);
+    }
+
+    /**
+     * Sends the purge request, leaving out the objects purged within the
+     * window of the {@link RecentPurgeCache}. When objects are left out, the
+     * responses of the requests that recently purged them are combined with
+     * the response of this request.
+     *
+     * @param purgeRequest the pre-processed purge request.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param type         the type of the purge objects.
+     * @param endPoint     the invalidation endpoint.
+     * @param <T>          the purge object type.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private <T> PurgeResponse sendRecent(final PurgeRequest<T> purgeRequest,
+                                         final ClientCredential credential,
+                                         final String hostName,
+                                         final PurgeType type,
+                                         final String endPoint)
+            throws RestClientException, RequestSigningException {
+        RecentPurgeCache cache = recentPurgeCache;
+        if (cache == null) {
+            return send(purgeRequest, credential, hostName, type, endPoint);
+        }
+        String prefix = hostName + endPoint + '|' + purgeRequest.getHostname() + '|';
+        CompletableFuture<PurgeResponse> pending = new CompletableFuture<>();
+        List<T> objects = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        Set<CompletableFuture<PurgeResponse>> recent = new LinkedHashSet<>();
+        for (T object : purgeRequest.getObjects()) {
+            String key = prefix + object;
+            CompletableFuture<PurgeResponse> previous = cache.putIfAbsent(key, pending);
+            if (previous == null) {
+                objects.add(object);
+                keys.add(key);
+            } else if (previous != pending) {
+                recent.add(previous);
+            }
+        }
+        List<PurgeResponse> responses = new ArrayList<>();
+        if (!objects.isEmpty()) {
+            try {
+                PurgeResponse response = send(copyOf(purgeRequest, objects), credential,
+                        hostName, type, endPoint);
+                pending.complete(response);
+                responses.add(response);
+            } catch (RuntimeException | RequestSigningException exception) {
+                cache.remove(keys, pending);
+                pending.completeExceptionally(exception);
+                throw exception;
+            }
+        } else {
+            LOGGER.debug("All {} object(s) purged recently, not sending request",
+                    purgeRequest.getObjects().size());
+        }
+        for (CompletableFuture<PurgeResponse> future : recent) {
+            responses.add(await(future));
+        }
+        return responses.size() == 1
+                ? responses.get(0)
+                : new CompositePurgeResponse(responses);
+    }
+
+    /**
+     * Copies the given request with other objects, leaving the caller's
+     * request unchanged.
      *
      * @param purgeRequest the purge request.
+     * @param objects      the objects of the copy.
+     * @param <T>          the purge object type.
+     * @return the copy.
+     */
+    private static <T> PurgeRequest<T> copyOf(final PurgeRequest<T> purgeRequest,
+                                              final List<T> objects) {
+        PurgeRequest<T> copy = new PurgeRequest<>();
+        copy.setType(purgeRequest.getType());
+        copy.setHostname(purgeRequest.getHostname());
+        copy.setObjects(objects);
+        return copy;
+    }
+
+    private static PurgeResponse await(final CompletableFuture<PurgeResponse> future)
+            throws RestClientException, RequestSigningException {
+        try {
+            return future.get();
+        } catch (ExecutionException executionException) {
+            Throwable cause = executionException.getCause();
+            if (cause instanceof RequestSigningException) {
+                throw (RequestSigningException) cause;
+            }
+            if (cause instanceof RestClientException) {
+                throw (RestClientException) cause;
+            }
+            throw new RestClientException("Recent purge failed", cause);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while purging");
+        }
+    }
+
+    /**
+     * Sends the purge request, splitting it into the fewest requests whose
+     * body fits the signer's maximum body size. URLs of different hosts share
+     * requests. Parts are sent concurrently, at most
+     * {@link #getMaxConcurrentRequests()} at a time, and their responses are
+     * combined into a {@link CompositePurgeResponse}.
+     *
+     * @param purgeRequest the pre-processed purge request.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param type         the type of the purge objects.
+     * @param endPoint     the invalidation endpoint.
+     * @param <T>          the purge object type.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> PurgeResponse send(final PurgeRequest<T> purgeRequest,
+                                   final ClientCredential credential,
+                                   final String hostName,
+                                   final PurgeType type,
+                                   final String endPoint)
+            throws RestClientException, RequestSigningException {
+        if (type == PurgeType.CPCODE) {
+            return send(CPCodeRequest.of((List<Integer>) purgeRequest.getObjects()),
+                    credential, hostName, endPoint);
+        }
+        List<PurgeRequest<T>> parts = PurgeRequestSplitter.split(purgeRequest,
+                signer.getMaxBodySize());
+        if (parts.size() == 1) {
+            return sendSigned(parts.get(0), credential, hostName, endPoint);
+        }
+        LOGGER.debug("Splitting purge request of {} object(s) into {} requests",
+                purgeRequest.getObjects().size(), parts.size());
+        List<Callable<PurgeResponse>> sends = new ArrayList<>(parts.size());
+        for (PurgeRequest<T> part : parts) {
+            sends.add(() -> sendSigned(part, credential, hostName, endPoint));
+        }
+        return sendParts(sends);
+    }
+
+    /**
+     * Sends the normalized CPCode request, splitting it like
+     * {@link #send(PurgeRequest, ClientCredential, String, PurgeType, String)}
+     * does, with bodies written by {@link CPCodeRequest#toBytes()}.
+     *
+     * @param cpCodeRequest the normalized CPCode request.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @param endPoint      the invalidation endpoint.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private PurgeResponse send(final CPCodeRequest cpCodeRequest,
+                               final ClientCredential credential,
+                               final String hostName,
+                               final String endPoint)
+            throws RestClientException, RequestSigningException {
+        List<CPCodeRequest> parts = cpCodeRequest.split(signer.getMaxBodySize());
+        if (parts.size() == 1) {
+            return sendSigned(parts.get(0), credential, hostName, endPoint);
+        }
+        LOGGER.debug("Splitting CPCode request of {} CPCode(s) into {} requests",
+                cpCodeRequest.size(), parts.size());
+        List<Callable<PurgeResponse>> sends = new ArrayList<>(parts.size());
+        for (CPCodeRequest part : parts) {
+            sends.add(() -> sendSigned(part, credential, hostName, endPoint));
+        }
+        return sendParts(sends);
+    }
+
+    /**
+     * Sends the parts of a split request on the split executor, at most
+     * {@link #getMaxConcurrentRequests()} at a time, and combines their
+     * responses into a {@link CompositePurgeResponse}.
+     *
+     * @param sends the sends of the parts.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private PurgeResponse sendParts(final List<Callable<PurgeResponse>> sends)
+            throws RestClientException, RequestSigningException {
+        ExecutorService executor = getSplitExecutor();
+        List<Future<PurgeResponse>> futures = new ArrayList<>(sends.size());
+        for (Callable<PurgeResponse> send : sends) {
+            futures.add(executor.submit(send));
+        }
+        List<PurgeResponse> responses = new ArrayList<>(sends.size());
+        Throwable failure = null;
+        for (Future<PurgeResponse> future : futures) {
+            try {
+                responses.add(future.get());
+            } catch (ExecutionException executionException) {
+                if (failure == null) {
+                    failure = executionException.getCause();
+                }
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new ResourceAccessException("Interrupted while purging");
+            }
+        }
+        if (failure != null) {
+            LOGGER.error("{} of {} purge requests failed, accepted: {}",
+                    sends.size() - responses.size(), sends.size(), responses);
+            if (failure instanceof RequestSigningException) {
+                throw (RequestSigningException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new RestClientException("Failed to purge", failure);
+        }
+        return new CompositePurgeResponse(responses);
+    }
+
+    /**
+     * Encodes and hashes the purge request once, signs the resulting body
+     * and sends exactly those bytes as the request body.
+     *
+     * @param purgeRequest the pre-processed purge request.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param endPoint     the invalidation endpoint.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private PurgeResponse sendSigned(final PurgeRequest<?> purgeRequest,
+                                     final ClientCredential credential,
+                                     final String hostName,
+                                     final String endPoint)
+            throws RestClientException, RequestSigningException {
+        long start = System.nanoTime();
+        PurgeBody body = PurgeBodyEncoder.encode(purgeRequest);
+        metrics.record(PurgeMetrics.Stage.SERIALIZATION, System.nanoTime() - start);
+        return sendBytes(body, purgeRequest.getObjects().size(), credential,
+                hostName, endPoint);
+    }
+
+    /**
+     * Writes the CPCode request body, signs it and sends exactly those bytes.
+     *
+     * @param cpCodeRequest the normalized CPCode request.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @param endPoint      the invalidation endpoint.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private PurgeResponse sendSigned(final CPCodeRequest cpCodeRequest,
+                                     final ClientCredential credential,
+                                     final String hostName,
+                                     final String endPoint)
+            throws RestClientException, RequestSigningException {
+        long start = System.nanoTime();
+        PurgeBody body = new PurgeBody(cpCodeRequest.toBytes());
+        metrics.record(PurgeMetrics.Stage.SERIALIZATION, System.nanoTime() - start);
+        return sendBytes(body, cpCodeRequest.size(), credential, hostName, endPoint);
+    }
+
+    /**
+     * Sends a serialized purge request with the retrier, if any.
+     *
+     * @param body       the serialized purge request.
+     * @param objects    the number of objects in the request.
+     * @param credential credentials to be used for open Akamai authentication.
+     * @param hostName   the request base host name.
+     * @param endPoint   the invalidation endpoint.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private PurgeResponse sendBytes(final PurgeBody body,
+                                    final int objects,
+                                    final ClientCredential credential,
+                                    final String hostName,
+                                    final String endPoint)
+            throws RestClientException, RequestSigningException {
+        PurgeRetrier currentRetrier = retrier;
+        if (currentRetrier == null) {
+            return post(body, objects, credential, hostName, endPoint);
+        }
+        return currentRetrier.execute(
+                () -> post(body, objects, credential, hostName, endPoint));
+    }
+
+    /**
+     * Serializes the purge request once and sends it over the asynchronous
+     * transport, retrying without blocking.
+     *
+     * @param purgeRequest the pre-processed purge request.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @param endPoint     the invalidation endpoint.
+     * @return a future completed with the PurgeResponse.
+     */
+    private CompletableFuture<PurgeResponse> sendAsync(final PurgeRequest<?> purgeRequest,
+                                                       final ClientCredential credential,
+                                                       final String hostName,
+                                                       final String endPoint) {
+        long start = System.nanoTime();
+        PurgeBody body;
+        try {
+            body = PurgeBodyEncoder.encode(purgeRequest);
+        } catch (RuntimeException exception) {
+            CompletableFuture<PurgeResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(exception);
+            return failed;
+        }
+        metrics.record(PurgeMetrics.Stage.SERIALIZATION, System.nanoTime() - start);
+        return sendAsync(body, purgeRequest.getObjects().size(), credential, hostName, endPoint);
+    }
+
+    /**
+     * Sends a serialized purge request over the asynchronous transport,
+     * retrying without blocking, and parks it if its circuit is open and the
+     * breaker allows it.
+     *
+     * @param body       the serialized purge request.
+     * @param objects    the number of objects in the request.
+     * @param credential credentials to be used for open Akamai authentication.
+     * @param hostName   the request base host name.
+     * @param endPoint   the invalidation endpoint.
+     * @return a future completed with the PurgeResponse.
+     */
+    private CompletableFuture<PurgeResponse> sendAsync(final PurgeBody body,
+                                                       final int objects,
+                                                       final ClientCredential credential,
+                                                       final String hostName,
+                                                       final String endPoint) {
+        CompletableFuture<PurgeResponse> sent =
+                retryAsync(body, objects, credential, hostName, endPoint);
+        PurgeCircuitBreaker currentBreaker = circuitBreaker;
+        if (currentBreaker == null || !currentBreaker.isParking()) {
+            return sent;
+        }
+        return sent.handle((response, failure) -> {
+            if (failure == null) {
+                return CompletableFuture.completedFuture(response);
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            CompletableFuture<PurgeResponse> result;
+            try {
+                if (!(cause instanceof CircuitOpenException)) {
+                    throw cause;
+                }
+                result = currentBreaker.park(hostName, endPoint,
+                        () -> retryAsync(body, objects, credential, hostName, endPoint));
+            } catch (Throwable rejection) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(rejection);
+            }
+            return result;
+        }).thenCompose(result -> result);
+    }
+
+    /**
+     * Sends a serialized purge request over the asynchronous transport with
+     * the retrier, if any.
+     *
+     * @param body       the serialized purge request.
+     * @param objects    the number of objects in the request.
+     * @param credential credentials to be used for open Akamai authentication.
+     * @param hostName   the request base host name.
+     * @param endPoint   the invalidation endpoint.
+     * @return a future completed with the PurgeResponse.
+     */
+    private CompletableFuture<PurgeResponse> retryAsync(final PurgeBody body,
+                                                        final int objects,
+                                                        final ClientCredential credential,
+                                                        final String hostName,
+                                                        final String endPoint) {
+        PurgeRetrier currentRetrier = retrier;
+        if (currentRetrier == null) {
+            return postAsync(body, objects, credential, hostName, endPoint);
+        }
+        return currentRetrier.executeAsync(
+                () -> postAsync(body, objects, credential, hostName, endPoint),
+                getRetryScheduler());
+    }
+
+    /**
+     * Admits and sends one attempt of a serialized purge request over the
+     * asynchronous transport. A request held back by the rate limiter is
+     * scheduled after its admission delay instead of waiting for it.
+     *
+     * @param body       the serialized purge request.
+     * @param objects    the number of objects in the request.
+     * @param credential credentials to be used for open Akamai authentication.
+     * @param hostName   the request base host name.
+     * @param endPoint   the invalidation endpoint.
+     * @return a future completed with the PurgeResponse.
+     */
+    private CompletableFuture<PurgeResponse> postAsync(final PurgeBody body,
+                                                       final int objects,
+                                                       final ClientCredential credential,
+                                                       final String hostName,
+                                                       final String endPoint) {
+        CompletableFuture<PurgeResponse> result = new CompletableFuture<>();
+        PurgeCircuitBreaker currentBreaker = circuitBreaker;
+        try {
+            if (currentBreaker != null) {
+                currentBreaker.acquire(hostName, endPoint);
+            }
+        } catch (CircuitOpenException openException) {
+            result.completeExceptionally(openException);
+            return result;
+        }
+        PurgeRateLimiter currentRateLimiter = rateLimiter;
+        try {
+            long wait = currentRateLimiter == null ? 0
+                    : currentRateLimiter.reserve(credential, objects);
+            if (wait > 0) {
+                getRetryScheduler().schedule(() -> exchangeAsync(body, objects,
+                        credential, hostName, endPoint, currentBreaker, result),
+                        wait, TimeUnit.NANOSECONDS);
+            } else {
+                exchangeAsync(body, objects, credential, hostName, endPoint,
+                        currentBreaker, result);
+            }
+        } catch (RuntimeException exception) {
+            if (currentBreaker != null) {
+                currentBreaker.release(hostName, endPoint);
+            }
+            result.completeExceptionally(exception);
+        }
+        return result;
+    }
+
+    /**
+     * Signs and sends one admitted attempt of a serialized purge request over
+     * the asynchronous transport.
+     *
+     * @param body           the serialized purge request.
+     * @param objects        the number of objects in the request.
+     * @param credential     credentials to be used for open Akamai authentication.
+     * @param hostName       the request base host name.
+     * @param endPoint       the invalidation endpoint.
+     * @param currentBreaker the circuit breaker the attempt was admitted by, null if none.
+     * @param result         the future completed with the PurgeResponse.
+     */
+    private void exchangeAsync(final PurgeBody body,
+                               final int objects,
+                               final ClientCredential credential,
+                               final String hostName,
+                               final String endPoint,
+                               final PurgeCircuitBreaker currentBreaker,
+                               final CompletableFuture<PurgeResponse> result) {
+        HttpEntity<byte[]> entity;
+        try {
+            entity = new HttpEntity<>(body.getBytes(),
+                    signer.sign(credential, hostName, endPoint, body));
+        } catch (RuntimeException | RequestSigningException exception) {
+            if (currentBreaker != null) {
+                currentBreaker.release(hostName, endPoint);
+            }
+            result.completeExceptionally(exception);
+            return;
+        }
+        PurgeRateLimiter currentRateLimiter = rateLimiter;
+        PurgeMetrics currentMetrics = metrics;
+        String clientToken = credential.getClientToken();
+        currentMetrics.onRequest(clientToken, objects, body.getLength());
+        long start = System.nanoTime();
+        CompletableFuture<ResponseEntity<PurgeResponse>> exchange;
+        try {
+            exchange = ((AsyncHttpTransport) transport).exchangeAsync(hostName + endPoint,
+                    HttpMethod.POST, entity, PurgeResponse.class);
+        } catch (RuntimeException exception) {
+            if (currentBreaker != null) {
+                currentBreaker.release(hostName, endPoint);
+            }
+            currentMetrics.onFailure(clientToken);
+            result.completeExceptionally(exception);
+            return;
+        }
+        exchange.whenComplete((responseEntity, completionFailure) -> {
+            Throwable failure = completionFailure instanceof CompletionException
+                    && completionFailure.getCause() != null
+                    ? completionFailure.getCause() : completionFailure;
+            if (currentBreaker != null) {
+                if (failure == null || failure instanceof RestClientException) {
+                    currentBreaker.onResult(hostName, endPoint,
+                            System.nanoTime() - start, failure);
+                } else {
+                    // not a response nor an I/O error, says nothing of the endpoint
+                    currentBreaker.release(hostName, endPoint);
+                }
+            }
+            if (failure == null) {
+                currentMetrics.record(PurgeMetrics.Stage.ROUND_TRIP,
+                        System.nanoTime() - start);
+                currentMetrics.onStatus(clientToken, responseEntity.getStatusCodeValue());
+                if (currentRateLimiter != null) {
+                    currentRateLimiter.onResponse(credential,
+                            responseEntity.getStatusCode(), responseEntity.getHeaders());
+                }
+                LOGGER.debug("{}", responseEntity.getBody());
+                result.complete(responseEntity.getBody());
+                return;
+            }
+            if (failure instanceof HttpStatusCodeException) {
+                HttpStatusCodeException statusCodeException =
+                        (HttpStatusCodeException) failure;
+                currentMetrics.record(PurgeMetrics.Stage.ROUND_TRIP,
+                        System.nanoTime() - start);
+                currentMetrics.onStatus(clientToken,
+                        statusCodeException.getRawStatusCode());
+                if (currentRateLimiter != null) {
+                    currentRateLimiter.onResponse(credential,
+                            statusCodeException.getStatusCode(),
+                            statusCodeException.getResponseHeaders());
+                }
+            } else {
+                currentMetrics.onFailure(clientToken);
+            }
+            result.completeExceptionally(failure);
+        });
+    }
+
+    /**
+     * Signs and sends one attempt of a serialized purge request. Each attempt
+     * is signed anew so that retries carry a fresh timestamp and nonce.
+     *
+     * @param body       the serialized purge request.
+     * @param objects    the number of objects in the request.
+     * @param credential credentials to be used for open Akamai authentication.
+     * @param hostName   the request base host name.
+     * @param endPoint   the invalidation endpoint.
+     * @return an object of PurgeResponse
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    private PurgeResponse post(final PurgeBody body,
+                               final int objects,
+                               final ClientCredential credential,
+                               final String hostName,
+                               final String endPoint)
+            throws RestClientException, RequestSigningException {
+        PurgeCircuitBreaker currentBreaker = circuitBreaker;
+        if (currentBreaker != null) {
+            currentBreaker.acquire(hostName, endPoint);
+        }
+        HttpEntity<byte[]> entity;
+        try {
+            if (rateLimiter != null) {
+                rateLimiter.acquire(credential, objects);
+            }
+            entity = new HttpEntity<>(body.getBytes(),
+                    signer.sign(credential, hostName, endPoint, body));
+        } catch (RuntimeException | RequestSigningException exception) {
+            if (currentBreaker != null) {
+                currentBreaker.release(hostName, endPoint);
+            }
+            throw exception;
+        }
+        PurgeMetrics currentMetrics = metrics;
+        String clientToken = credential.getClientToken();
+        currentMetrics.onRequest(clientToken, objects, body.getLength());
+        long start = System.nanoTime();
+        ResponseEntity<PurgeResponse> responseEntity;
+        try {
+            responseEntity = transport.exchange(
+                    hostName + endPoint,
+                    HttpMethod.POST,
+                    entity,
+                    PurgeResponse.class);
+        } catch (HttpStatusCodeException statusCodeException) {
+            if (currentBreaker != null) {
+                currentBreaker.onResult(hostName, endPoint, System.nanoTime() - start,
+                        statusCodeException);
+            }
+            currentMetrics.record(PurgeMetrics.Stage.ROUND_TRIP, System.nanoTime() - start);
+            currentMetrics.onStatus(clientToken, statusCodeException.getRawStatusCode());
+            if (rateLimiter != null) {
+                rateLimiter.onResponse(credential, statusCodeException.getStatusCode(),
+                        statusCodeException.getResponseHeaders());
+            }
+            throw statusCodeException;
+        } catch (RestClientException restClientException) {
+            if (currentBreaker != null) {
+                currentBreaker.onResult(hostName, endPoint, System.nanoTime() - start,
+                        restClientException);
+            }
+            currentMetrics.onFailure(clientToken);
+            throw restClientException;
+        } catch (RuntimeException runtimeException) {
+            // not a response nor an I/O error, says nothing of the endpoint
+            if (currentBreaker != null) {
+                currentBreaker.release(hostName, endPoint);
+            }
+            currentMetrics.onFailure(clientToken);
+            throw runtimeException;
+        }
+        if (currentBreaker != null) {
+            currentBreaker.onResult(hostName, endPoint, System.nanoTime() - start, null);
+        }
+        currentMetrics.record(PurgeMetrics.Stage.ROUND_TRIP, System.nanoTime() - start);
+        currentMetrics.onStatus(clientToken, responseEntity.getStatusCodeValue());
+        if (rateLimiter != null) {
+            rateLimiter.onResponse(credential, responseEntity.getStatusCode(),
+                    responseEntity.getHeaders());
+        }
+        LOGGER.debug("{}", responseEntity.getBody());
+        return responseEntity.getBody();
+    }
+
+    /**
+     * Warms the purge path of this instance, so the first real purge does
+     * not pay for serializer discovery and JCA initialization: a sample
+     * request is encoded and signed with this instance's signer for each
+     * credential, and a sample response is read with the transport's
+     * message converters. Nothing is sent.
+     * <p>
+     * Signing keys are cached per thread, so only the calling thread keeps
+     * the keys derived here; the other threads still share the initialized
+     * signer and serializers.
+     * </p>
+     *
+     * @param credentials the credentials to sign with, a throwaway one when empty.
+     * @throws RequestSigningException if the sample request cannot be signed.
+     */
+    public void warmUp(final Collection<? extends ClientCredential> credentials)
+            throws RequestSigningException {
+        Assert.notNull(credentials, "credentials cannot be null.");
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(Collections.singletonList(WARM_UP_URL));
+        PurgeBody body = PurgeBodyEncoder.encode(purgeRequest);
+        new CPCodeRequest(WARM_UP_CPCODE).toBytes();
+        String endPoint = PurgeType.URL.getEndpoint(PurgeAction.INVALIDATE,
+                PurgeNetwork.PRODUCTION);
+        Collection<? extends ClientCredential> signers = credentials.isEmpty()
+                ? Collections.singletonList(new OpenAkamaiCredential(WARM_UP_TOKEN,
+                WARM_UP_TOKEN, WARM_UP_SECRET, WARM_UP_HOST))
+                : credentials;
+        for (ClientCredential credential : signers) {
+            signer.sign(credential, credential.getBaseURL().toLowerCase(), endPoint, body);
+        }
+        transport.warmUp(PurgeResponse.class, WARM_UP_RESPONSE);
+    }
+
+    private synchronized ExecutorService getSplitExecutor() {
+        if (splitExecutor == null) {
+            splitExecutor = Executors.newFixedThreadPool(maxConcurrentRequests,
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "akamai-purge-split");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return splitExecutor;
+    }
+
+    private synchronized ExecutorService getBlockingExecutor() {
+        if (blockingExecutor == null) {
+            blockingExecutor = new ThreadPoolExecutor(maxConcurrentRequests,
+                    maxConcurrentRequests, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(maxQueuedPurges),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "akamai-purge-blocking");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return blockingExecutor;
+    }
+
+    private synchronized ScheduledExecutorService getRetryScheduler() {
+        if (retryScheduler == null) {
+            retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "akamai-purge-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return retryScheduler;
+    }
+
+    /**
+     * @return the maximum number of parts of a split purge request sent concurrently
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Sets the maximum number of parts of a split purge request sent
+     * concurrently, which is also the number of asynchronous purges run at
+     * once over a blocking transport. Must be set before the first split
+     * or asynchronous request.
+     *
+     * @param maxConcurrentRequests the maximum number of concurrent requests
+     */
+    public synchronized void setMaxConcurrentRequests(final int maxConcurrentRequests) {
+        Assert.isTrue(maxConcurrentRequests > 0,
+                "max concurrent requests should be positive.");
+        Assert.state(splitExecutor == null && blockingExecutor == null,
+                "max concurrent requests cannot be changed after first use.");
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @return the maximum number of asynchronous purges waiting for a thread over a blocking transport
+     */
+    public int getMaxQueuedPurges() {
+        return maxQueuedPurges;
+    }
+
+    /**
+     * Sets the maximum number of asynchronous purges waiting for a thread
+     * over a blocking transport. Must be set before the first asynchronous
+     * request.
+     *
+     * @param maxQueuedPurges the maximum number of waiting purges
+     */
+    public synchronized void setMaxQueuedPurges(final int maxQueuedPurges) {
+        Assert.isTrue(maxQueuedPurges > 0, "max queued purges should be positive.");
+        Assert.state(blockingExecutor == null,
+                "max queued purges cannot be changed after first use.");
+        this.maxQueuedPurges = maxQueuedPurges;
+    }
+
+    /**
+     * Method to pre-process CPCode purge request: drops invalid CPCode(s),
+     * sorts and deduplicates the others.
+     *
+     * @param purgeRequest the purge request, left unchanged.
      * @param hostName     the request base host name.
+     * @return the CPCodes as a normalized {@link CPCodeRequest}.
      */
-    private void preProcessCPCodeRequest(final PurgeRequest<Integer> purgeRequest,
-                                         final String hostName) {
+    CPCodeRequest preProcessCPCodeRequest(final PurgeRequest<Integer> purgeRequest,
+                                          final String hostName) {
         Assert.hasText(hostName,
                 "hostname cannot be null.");
         Assert.notEmpty(purgeRequest.getObjects(),
                 "purge request object cannot be null.");
-        purgeRequest.setObjects(
-                purgeRequest.getObjects()
-                        .stream()
-                        .filter(p -> p > 0)
-                        .collect(Collectors.toList()));
+        CPCodeRequest cpCodeRequest = CPCodeRequest.of(purgeRequest.getObjects());
+        Assert.isTrue(cpCodeRequest.normalize() > 0,
+                "purge request has no valid CPCode.");
+        return cpCodeRequest;
+    }
+
+    /**
+     * @return the rate limiter applied to every request sent, null if none
+     */
+    public PurgeRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the rate limiter applied to every request sent. Requests that
+     * cannot be admitted fail with a
+     * {@link org.htomar.akamai.exception.PurgeRejectedException} without
+     * being sent.
+     *
+     * @param rateLimiter the rate limiter, null for none
+     */
+    public void setRateLimiter(final PurgeRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * @return the circuit breaker applied to every request sent, null if none
+     */
+    public PurgeCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Sets the circuit breaker applied to every request sent. While the
+     * circuit of an endpoint is open, its requests fail at once with a
+     * {@link CircuitOpenException}. If the breaker allows it, the requests of
+     * asynchronous purges are parked instead, and their futures complete
+     * once the requests are delivered.
+     *
+     * @param circuitBreaker the circuit breaker, null for none
+     */
+    public void setCircuitBreaker(final PurgeCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * @return the metrics of this purge utility
+     */
+    public PurgeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics recording the purge stages of this utility and of its
+     * signer. Defaults to {@link PurgeMetrics#global()}.
+     *
+     * @param metrics the metrics, cannot be null.
+     */
+    public void setMetrics(final PurgeMetrics metrics) {
+        Assert.notNull(metrics, "metrics cannot be null.");
+        this.metrics = metrics;
+        signer.setMetrics(metrics);
+    }
+
+    /**
+     * @return the cache suppressing repeated purges, null if none
+     */
+    public RecentPurgeCache getRecentPurgeCache() {
+        return recentPurgeCache;
+    }
+
+    /**
+     * Sets the cache suppressing purges of URLs and CPCodes submitted within
+     * its window. Its hit and miss counters show how many requests it saves.
+     *
+     * @param recentPurgeCache the cache, null for none
+     */
+    public void setRecentPurgeCache(final RecentPurgeCache recentPurgeCache) {
+        this.recentPurgeCache = recentPurgeCache;
+    }
+
+    /**
+     * @return the retrier of failed requests, null if retries are disabled
+     */
+    public PurgeRetrier getRetrier() {
+        return retrier;
+    }
+
+    /**
+     * Sets the retrier of failed requests. Defaults to a {@link PurgeRetrier}
+     * with the default policy and the global retry budget.
+     *
+     * @param retrier the retrier, null to disable retries
+     */
+    public void setRetrier(final PurgeRetrier retrier) {
+        this.retrier = retrier;
+    }
+
+    /**
+     * Stops the split request and asynchronous purge executors and closes
+     * the transport if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (splitExecutor != null) {
+                splitExecutor.shutdown();
+            }
+            if (blockingExecutor != null) {
+                blockingExecutor.shutdown();
+            }
+            if (retryScheduler != null) {
+                retryScheduler.shutdown();
+            }
+        }
+        if (ownsTransport) {
+            transport.close();
+        }
     }
 }
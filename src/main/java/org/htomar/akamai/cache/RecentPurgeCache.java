@@ -0,0 +1,151 @@
+package org.htomar.akamai.cache;
+
+import org.htomar.akamai.request.PurgeResponse;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded memory of recently submitted purge objects, used by
+ * {@link CachePurgeV3} to suppress repeated purges of the same objects.
+ * <p>
+ * An object purged within the window maps to the future of the request it
+ * was sent with, so a repeat purge returns the in-flight or recent
+ * {@link PurgeResponse} instead of calling CCU again. Entries expire after
+ * the window, the oldest entries are evicted once the cache is full, and
+ * entries of failed requests are dropped so a failure is never suppressed.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class RecentPurgeCache {
+    private final long windowNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param window     how long a submitted object is remembered.
+     * @param unit       the unit of the window.
+     * @param maxEntries the maximum number of remembered objects.
+     */
+    public RecentPurgeCache(final long window, final TimeUnit unit,
+                            final int maxEntries) {
+        Assert.isTrue(window > 0, "window should be positive.");
+        Assert.isTrue(maxEntries > 0, "max entries should be positive.");
+        this.windowNanos = unit.toNanos(window);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the purge of the given object submitted within the window, or
+     * records the given pending purge as the purge of the object.
+     *
+     * @param key     the normalized purge object.
+     * @param pending the future of the purge about to be sent.
+     * @return the future of the recent purge, or null if the object must be purged.
+     */
+    synchronized CompletableFuture<PurgeResponse> putIfAbsent(
+            final String key, final CompletableFuture<PurgeResponse> pending) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt - now > 0) {
+            hits.increment();
+            return entry.future;
+        }
+        misses.increment();
+        if (entry != null) {
+            entries.remove(key);
+        }
+        entries.put(key, new Entry(pending, now + windowNanos));
+        evict(now);
+        return null;
+    }
+
+    /**
+     * Forgets the given objects if they still map to the given purge.
+     *
+     * @param keys    the purge objects.
+     * @param pending the future of the failed purge.
+     */
+    synchronized void remove(final Collection<String> keys,
+                             final CompletableFuture<PurgeResponse> pending) {
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.future == pending) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private void evict(final long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            if (entries.size() > maxEntries || eldest.expiresAt - now <= 0) {
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the number of objects whose purge was suppressed
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of objects that were purged
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the share of objects whose purge was suppressed
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return the number of remembered objects
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RecentPurgeCache [size=" + size() + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + "]";
+    }
+
+    /**
+     * A remembered purge object.
+     */
+    private static final class Entry {
+        private final CompletableFuture<PurgeResponse> future;
+        private final long expiresAt;
+
+        private Entry(final CompletableFuture<PurgeResponse> future,
+                      final long expiresAt) {
+            this.future = future;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.htomar.akamai.config;
+
+import org.htomar.akamai.breaker.CircuitBreakerConfig;
+import org.htomar.akamai.breaker.PurgeCircuitBreaker;
+import org.htomar.akamai.metrics.PurgeMetrics;
+import org.htomar.akamai.ratelimit.PurgeRateLimiter;
+import org.htomar.akamai.ratelimit.RateLimitConfig;
+import org.htomar.akamai.service.AkamaiService;
+import org.htomar.akamai.service.AsyncConfig;
+import org.htomar.akamai.transport.HttpTransport;
+import org.htomar.akamai.transport.PooledHttpTransport;
+import org.htomar.akamai.transport.TransportConfig;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.credentials.CredentialRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring configuration registering the purge components as singletons, so
+ * the transport, its connection pool, the signer and the serializers are
+ * created once per application instead of per purge.
+ * <p>
+ * Settings are read from the {@link Environment} under the {@code akamai.}
+ * prefix; every setting is optional and defaults to the value of the
+ * matching config class. The rate limiter, the circuit breaker and the
+ * warm-up are only registered when enabled:
+ * </p>
+ * <pre>
+ * akamai.base-url=https://akab-xxx.purge.akamaiapis.net
+ * akamai.transport.max-connections-per-host=20
+ * akamai.async.threads=8
+ * akamai.rate-limit.enabled=true
+ * akamai.circuit-breaker.enabled=true
+ * akamai.warm-up.enabled=true
+ * </pre>
+ *
+ * @author Himanshu Tomar
+ */
+@Configuration
+public class AkamaiPurgeConfiguration {
+    private static final String PREFIX = "akamai.";
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * @return the transport settings, from {@code akamai.transport.*}
+     */
+    @Bean
+    public TransportConfig akamaiTransportConfig() {
+        TransportConfig config = new TransportConfig();
+        config.setConnectTimeout(property("transport.connect-timeout",
+                Integer.class, config.getConnectTimeout()));
+        config.setReadTimeout(property("transport.read-timeout",
+                Integer.class, config.getReadTimeout()));
+        config.setPoolAcquireTimeout(property("transport.pool-acquire-timeout",
+                Integer.class, config.getPoolAcquireTimeout()));
+        config.setMaxConnectionsPerHost(property("transport.max-connections-per-host",
+                Integer.class, config.getMaxConnectionsPerHost()));
+        config.setMaxConnectionsTotal(property("transport.max-connections-total",
+                Integer.class, config.getMaxConnectionsTotal()));
+        config.setKeepAlive(property("transport.keep-alive",
+                Long.class, config.getKeepAlive()));
+        config.setMaxInFlightRequests(property("transport.max-in-flight-requests",
+                Integer.class, config.getMaxInFlightRequests()));
+        config.setIoThreads(property("transport.io-threads",
+                Integer.class, config.getIoThreads()));
+        return config;
+    }
+
+    /**
+     * @return the transport shared by every purge, closed with the context
+     */
+    @Bean(destroyMethod = "close")
+    public HttpTransport akamaiTransport() {
+        return new PooledHttpTransport(akamaiTransportConfig());
+    }
+
+    /**
+     * @return the purge metrics
+     */
+    @Bean
+    public PurgeMetrics akamaiPurgeMetrics() {
+        return PurgeMetrics.global();
+    }
+
+    /**
+     * @return the rate limiter, from {@code akamai.rate-limit.*}
+     */
+    @Bean
+    @Conditional(RateLimitEnabled.class)
+    public PurgeRateLimiter akamaiRateLimiter() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setRequestsPerSecond(property("rate-limit.requests-per-second",
+                Double.class, config.getRequestsPerSecond()));
+        config.setRequestBurst(property("rate-limit.request-burst",
+                Integer.class, config.getRequestBurst()));
+        config.setObjectsPerSecond(property("rate-limit.objects-per-second",
+                Double.class, config.getObjectsPerSecond()));
+        config.setObjectBurst(property("rate-limit.object-burst",
+                Integer.class, config.getObjectBurst()));
+        config.setMaxWaitMillis(property("rate-limit.max-wait",
+                Long.class, config.getMaxWaitMillis()));
+        config.setDefaultRetryAfterMillis(property("rate-limit.default-retry-after",
+                Long.class, config.getDefaultRetryAfterMillis()));
+        return new PurgeRateLimiter(config);
+    }
+
+    /**
+     * @return the circuit breaker, from {@code akamai.circuit-breaker.*}
+     */
+    @Bean(destroyMethod = "close")
+    @Conditional(CircuitBreakerEnabled.class)
+    public PurgeCircuitBreaker akamaiCircuitBreaker() {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setSlidingWindowSize(property("circuit-breaker.sliding-window-size",
+                Integer.class, config.getSlidingWindowSize()));
+        config.setMinimumCalls(property("circuit-breaker.minimum-calls",
+                Integer.class, config.getMinimumCalls()));
+        config.setFailureRateThreshold(property("circuit-breaker.failure-rate-threshold",
+                Integer.class, config.getFailureRateThreshold()));
+        config.setSlowCallDurationMillis(property("circuit-breaker.slow-call-duration",
+                Long.class, config.getSlowCallDurationMillis()));
+        config.setSlowCallRateThreshold(property("circuit-breaker.slow-call-rate-threshold",
+                Integer.class, config.getSlowCallRateThreshold()));
+        config.setOpenDurationMillis(property("circuit-breaker.open-duration",
+                Long.class, config.getOpenDurationMillis()));
+        config.setHalfOpenProbes(property("circuit-breaker.half-open-probes",
+                Integer.class, config.getHalfOpenProbes()));
+        config.setParkingCapacity(property("circuit-breaker.parking-capacity",
+                Integer.class, config.getParkingCapacity()));
+        return new PurgeCircuitBreaker(config);
+    }
+
+    /**
+     * @param rateLimiter    the rate limiter, if enabled.
+     * @param circuitBreaker the circuit breaker, if enabled.
+     * @return the purge service, from {@code akamai.async.*}
+     */
+    @Bean(destroyMethod = "close")
+    public AkamaiService akamaiService(final ObjectProvider<PurgeRateLimiter> rateLimiter,
+                                       final ObjectProvider<PurgeCircuitBreaker> circuitBreaker) {
+        AsyncConfig asyncConfig = new AsyncConfig();
+        asyncConfig.setThreads(property("async.threads",
+                Integer.class, asyncConfig.getThreads()));
+        asyncConfig.setQueueCapacity(property("async.queue-capacity",
+                Integer.class, asyncConfig.getQueueCapacity()));
+        asyncConfig.setRejectionPolicy(property("async.rejection-policy",
+                AsyncConfig.RejectionPolicy.class, asyncConfig.getRejectionPolicy()));
+        asyncConfig.setDefaultTimeoutMillis(property("async.default-timeout",
+                Long.class, asyncConfig.getDefaultTimeoutMillis()));
+
+        AkamaiService akamaiService = new AkamaiService(akamaiTransport(), asyncConfig);
+        akamaiService.setMetrics(akamaiPurgeMetrics());
+        akamaiService.setRateLimiter(rateLimiter.getIfAvailable());
+        akamaiService.setCircuitBreaker(circuitBreaker.getIfAvailable());
+        return akamaiService;
+    }
+
+    /**
+     * @param akamaiService      the purge service to warm.
+     * @param credentialRegistry the credentials to sign the sample request
+     *                           with, if registered.
+     * @return the warm-up run once every singleton is created, from
+     * {@code akamai.warm-up.*} and {@code akamai.base-url}
+     */
+    @Bean
+    @Conditional(WarmUpEnabled.class)
+    public PurgeWarmUp akamaiWarmUp(final AkamaiService akamaiService,
+                                    final ObjectProvider<CredentialRegistry> credentialRegistry) {
+        PurgeWarmUp warmUp = new PurgeWarmUp(akamaiService,
+                property("base-url", String.class, null));
+        warmUp.setConnections(property("warm-up.connections",
+                Integer.class, warmUp.getConnections()));
+        warmUp.setConnectionTimeoutMillis(property("warm-up.connection-timeout",
+                Long.class, warmUp.getConnectionTimeoutMillis()));
+        CredentialRegistry registry = credentialRegistry.getIfAvailable();
+        if (registry != null) {
+            List<ClientCredential> credentials = new ArrayList<>();
+            for (String name : registry.getNames()) {
+                ClientCredential credential = registry.get(name);
+                if (credential != null) {
+                    credentials.add(credential);
+                }
+            }
+            warmUp.setCredentials(credentials);
+        }
+        return warmUp;
+    }
+
+    private <T> T property(final String name, final Class<T> type, final T defaultValue) {
+        return environment.getProperty(PREFIX + name, type, defaultValue);
+    }
+
+    /**
+     * Matches when the {@code enabled} property of a component is true.
+     */
+    private abstract static class EnabledCondition implements Condition {
+        private final String property;
+
+        EnabledCondition(final String component) {
+            this.property = PREFIX + component + ".enabled";
+        }
+
+        @Override
+        public boolean matches(final ConditionContext context,
+                               final AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty(property, Boolean.class, false);
+        }
+    }
+
+    static class RateLimitEnabled extends EnabledCondition {
+        RateLimitEnabled() {
+            super("rate-limit");
+        }
+    }
+
+    static class CircuitBreakerEnabled extends EnabledCondition {
+        CircuitBreakerEnabled() {
+            super("circuit-breaker");
+        }
+    }
+
+    static class WarmUpEnabled extends EnabledCondition {
+        WarmUpEnabled() {
+            super("warm-up");
+        }
+    }
+}
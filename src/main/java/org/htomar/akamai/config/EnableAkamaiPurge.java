@@ -0,0 +1,23 @@
+package org.htomar.akamai.config;
+
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers the Akamai purge components of {@link AkamaiPurgeConfiguration}
+ * in a Spring application context. Put it on any {@code @Configuration}
+ * class.
+ *
+ * @author Himanshu Tomar
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Import(AkamaiPurgeConfiguration.class)
+public @interface EnableAkamaiPurge {
+}
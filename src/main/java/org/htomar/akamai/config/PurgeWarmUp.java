@@ -0,0 +1,164 @@
+package org.htomar.akamai.config;
+
+import org.htomar.akamai.service.AkamaiService;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start-up warm-up of the purge path, so the first real purge does not pay
+ * for JCA provider initialization, Jackson serializer discovery, nonce
+ * seeding and TLS handshakes.
+ * <p>
+ * Nothing is purged: the service signs a sample request with its own
+ * signer for each credential and reads a sample response with its
+ * transport's message converters (see {@link AkamaiService#warmUp}), and the
+ * connections are opened with unsigned GET requests to the base URL,
+ * whatever their response status. Failures are
+ * logged and never stop the application.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeWarmUp implements SmartInitializingSingleton {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PurgeWarmUp.class);
+
+    private final AkamaiService akamaiService;
+    private final String baseURL;
+    private List<ClientCredential> credentials = Collections.emptyList();
+    private int connections = 2;
+    private long connectionTimeoutMillis = 10000;
+
+    /**
+     * Constructor.
+     *
+     * @param akamaiService the service to warm, cannot be null.
+     * @param baseURL       the CCU base URL, null or empty to skip the connections.
+     */
+    public PurgeWarmUp(final AkamaiService akamaiService, final String baseURL) {
+        Assert.notNull(akamaiService, "akamaiService cannot be null.");
+        this.akamaiService = akamaiService;
+        this.baseURL = baseURL;
+    }
+
+    /**
+     * @return the credentials the sample request is signed with
+     */
+    public List<ClientCredential> getCredentials() {
+        return credentials;
+    }
+
+    /**
+     * @param credentials the credentials the sample request is signed with,
+     *                    empty to sign with a throwaway one
+     */
+    public void setCredentials(final Collection<? extends ClientCredential> credentials) {
+        Assert.notNull(credentials, "credentials cannot be null.");
+        this.credentials = new ArrayList<>(credentials);
+    }
+
+    /**
+     * @return the number of connections opened to the base URL
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * @param connections the number of connections opened to the base URL
+     */
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * @return how long to wait for the connections to be opened
+     */
+    public long getConnectionTimeoutMillis() {
+        return connectionTimeoutMillis;
+    }
+
+    /**
+     * @param connectionTimeoutMillis how long to wait for the connections to be opened
+     */
+    public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        run();
+    }
+
+    /**
+     * Runs the warm-up on the calling thread.
+     */
+    public void run() {
+        long start = System.nanoTime();
+        try {
+            akamaiService.warmUp(credentials);
+            warmConnections();
+        } catch (RuntimeException | RequestSigningException exception) {
+            LOGGER.warn("Purge warm-up failed, first purges may be slower", exception);
+            return;
+        }
+        LOGGER.info("Purge warm-up done in {} ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Opens the connections concurrently, so the pool keeps that many warm
+     * connections instead of reusing a single one.
+     */
+    private void warmConnections() {
+        if (!StringUtils.hasText(baseURL) || connections <= 0) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "akamai-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture<?>[] opened = new CompletableFuture<?>[connections];
+            for (int i = 0; i < connections; i++) {
+                opened[i] = CompletableFuture.runAsync(this::openConnection, executor);
+            }
+            CompletableFuture.allOf(opened).get(connectionTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception exception) {
+            LOGGER.warn("Could not open warm connections to {}", baseURL, exception);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void openConnection() {
+        try {
+            akamaiService.getTransport().exchange(baseURL, HttpMethod.GET,
+                    HttpEntity.EMPTY, String.class);
+        } catch (HttpStatusCodeException statusCodeException) {
+            // any response means the connection is open
+            LOGGER.debug("Warm-up connection to {} answered {}", baseURL,
+                    statusCodeException.getRawStatusCode());
+        }
+    }
+}
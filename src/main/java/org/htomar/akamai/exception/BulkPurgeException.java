@@ -0,0 +1,43 @@
+package org.htomar.akamai.exception;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Exception thrown when a bulk purge stops before the end of its input. The
+ * input offset to resume from is carried along, so a new run can continue
+ * after the last accepted request.
+ *
+ * @author Himanshu Tomar
+ */
+public class BulkPurgeException extends RestClientException {
+
+    /**
+     * Serial Version UID for serialization.
+     */
+    private static final long serialVersionUID = -4182937510276455106L;
+
+    /**
+     * Number of input records purged, or skipped as invalid, before the failure.
+     */
+    private final long resumeOffset;
+
+    /**
+     * Constructor for {@link BulkPurgeException}.
+     *
+     * @param message      the exception message.
+     * @param throwable    the original thrown exception.
+     * @param resumeOffset the input offset to resume from.
+     */
+    public BulkPurgeException(String message, Throwable throwable,
+                              long resumeOffset) {
+        super(message, throwable);
+        this.resumeOffset = resumeOffset;
+    }
+
+    /**
+     * @return the number of input records to skip when resuming the bulk purge
+     */
+    public long getResumeOffset() {
+        return resumeOffset;
+    }
+}
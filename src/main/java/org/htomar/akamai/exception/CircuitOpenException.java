@@ -0,0 +1,24 @@
+package org.htomar.akamai.exception;
+
+/**
+ * Exception thrown when a purge request is not sent because the circuit
+ * breaker of its CCU endpoint is open, or its parking queue is full.
+ *
+ * @author Himanshu Tomar
+ */
+public class CircuitOpenException extends PurgeRejectedException {
+
+    /**
+     * Serial Version UID for serialization.
+     */
+    private static final long serialVersionUID = -6529017830371426114L;
+
+    /**
+     * Constructor for {@link CircuitOpenException}.
+     *
+     * @param message the exception message.
+     */
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
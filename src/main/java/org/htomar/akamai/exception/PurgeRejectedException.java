@@ -0,0 +1,36 @@
+package org.htomar.akamai.exception;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Exception thrown when a purge request is rejected on the client side,
+ * without being sent, because it is certain to fail.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeRejectedException extends RestClientException {
+
+    /**
+     * Serial Version UID for serialization.
+     */
+    private static final long serialVersionUID = 2963640862385137473L;
+
+    /**
+     * Constructor for {@link PurgeRejectedException}.
+     *
+     * @param message the exception message.
+     */
+    public PurgeRejectedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor for {@link PurgeRejectedException}.
+     *
+     * @param message   the exception message.
+     * @param throwable the original thrown exception.
+     */
+    public PurgeRejectedException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+}
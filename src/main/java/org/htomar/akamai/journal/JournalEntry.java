@@ -0,0 +1,89 @@
+package org.htomar.akamai.journal;
+
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Purge objects recorded in a {@link PurgeJournal} and not yet acknowledged
+ * by CCU.
+ *
+ * @author Himanshu Tomar
+ */
+public class JournalEntry {
+    private final long id;
+    private final PurgeType type;
+    private final PurgeAction action;
+    private final PurgeNetwork network;
+    private final String hostname;
+    private final List<?> objects;
+
+    /**
+     * Segment holding the entry and size of its record, owned by the journal.
+     */
+    long segment;
+    int recordSize;
+
+    JournalEntry(final long id, final PurgeType type, final PurgeAction action,
+                 final PurgeNetwork network, final String hostname,
+                 final List<?> objects) {
+        this.id = id;
+        this.type = type;
+        this.action = action;
+        this.network = network;
+        this.hostname = hostname;
+        this.objects = Collections.unmodifiableList(objects);
+    }
+
+    /**
+     * @return the journal id of the entry
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the type of the purge objects
+     */
+    public PurgeType getType() {
+        return type;
+    }
+
+    /**
+     * @return the purge action
+     */
+    public PurgeAction getAction() {
+        return action;
+    }
+
+    /**
+     * @return the target network
+     */
+    public PurgeNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * @return the hostname of relative URLs, null if none
+     */
+    public String getHostname() {
+        return hostname;
+    }
+
+    /**
+     * @return the URL or tag strings, or CPCode numbers, to purge
+     */
+    public List<?> getObjects() {
+        return objects;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalEntry [id=" + id + ", type=" + type + ", action=" + action
+                + ", network=" + network + ", hostname=" + hostname
+                + ", objects=" + objects.size() + "]";
+    }
+}
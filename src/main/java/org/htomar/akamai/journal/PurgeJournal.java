@@ -0,0 +1,503 @@
+package org.htomar.akamai.journal;
+
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of purge objects accepted but not yet
+ * acknowledged by CCU.
+ * <p>
+ * Records are appended to a memory-mapped segment file, so recording is a
+ * copy into the page cache and survives a JVM crash right away. Segments are
+ * forced to disk by a background group commit every commit interval, or on
+ * {@link #sync()}, covering all records appended since the last commit with
+ * a single flush.
+ * </p>
+ * <p>
+ * An entry is marked done once CCU has returned a purge id for it. On open,
+ * every segment is replayed and the entries never marked done are available
+ * through {@link #getPending()}. Writing always continues in a new segment.
+ * Old segments are compacted oldest first: a segment without pending
+ * entries is deleted, and one with few pending entries has them copied to
+ * the active segment before being deleted.
+ * </p>
+ * <p>
+ * Record layout: length and CRC32 of the body, then the body made of the
+ * record kind, the entry id and, for accepted entries, the purge type,
+ * action, network, hostname and objects.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeJournal implements Closeable {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PurgeJournal.class);
+
+    /**
+     * Default size of a segment file.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Default interval of the group commit.
+     */
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+
+    private static final String SEGMENT_PREFIX = "purge-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final byte ACCEPTED = 1;
+    private static final byte DONE = 2;
+
+    /**
+     * Length and CRC32 preceding each record body.
+     */
+    private static final int RECORD_HEADER = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ScheduledExecutorService committer;
+
+    /**
+     * Entries not yet marked done, in id order.
+     */
+    private final Map<Long, JournalEntry> pending = new LinkedHashMap<>();
+
+    /**
+     * All segments, keyed by index.
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private Segment active;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private long nextId = 1;
+    private boolean compacting;
+    private volatile boolean dirty;
+    private boolean closed;
+
+    /**
+     * Constructor using the default segment size and commit interval.
+     *
+     * @param directory the journal directory, created if needed.
+     * @throws IOException if the journal cannot be read or created.
+     */
+    public PurgeJournal(final Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructor. Replays the existing segments of the directory.
+     *
+     * @param directory            the journal directory, created if needed.
+     * @param segmentSize          the size of a segment file.
+     * @param commitIntervalMillis the interval of the group commit.
+     * @throws IOException if the journal cannot be read or created.
+     */
+    public PurgeJournal(final Path directory, final int segmentSize,
+                        final long commitIntervalMillis) throws IOException {
+        Assert.notNull(directory, "journal directory cannot be null.");
+        Assert.isTrue(segmentSize >= 4096, "segment size should be at least 4096.");
+        Assert.isTrue(commitIntervalMillis > 0, "commit interval should be positive.");
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        replay();
+        synchronized (this) {
+            openSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+            compact();
+        }
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "akamai-purge-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commit, commitIntervalMillis,
+                commitIntervalMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Opened purge journal {} with {} pending entries",
+                directory, pending.size());
+    }
+
+    /**
+     * Records accepted purge objects.
+     *
+     * @param type     the type of the purge objects.
+     * @param action   the purge action.
+     * @param network  the target network.
+     * @param hostname the hostname of relative URLs, may be null.
+     * @param objects  the URL or tag strings, or CPCode numbers.
+     * @return the recorded entry.
+     * @throws IllegalArgumentException if an object is not an Integer for
+     *                                  CPCodes or a String otherwise.
+     */
+    public JournalEntry append(final PurgeType type, final PurgeAction action,
+                               final PurgeNetwork network, final String hostname,
+                               final List<?> objects) {
+        Assert.notNull(type, "purge type cannot be null.");
+        Assert.notNull(action, "purge action cannot be null.");
+        Assert.notNull(network, "purge network cannot be null.");
+        Assert.notEmpty(objects, "purge objects cannot be empty.");
+        List<Object> copy = new ArrayList<>(objects);
+        Class<?> objectType = type == PurgeType.CPCODE ? Integer.class : String.class;
+        for (Object object : copy) {
+            if (!objectType.isInstance(object)) {
+                throw new IllegalArgumentException(type + " purge object should be a "
+                        + objectType.getSimpleName() + ", not " + object);
+            }
+        }
+        synchronized (this) {
+            JournalEntry entry = new JournalEntry(nextId++, type, action, network,
+                    hostname, copy);
+            write(entry);
+            pending.put(entry.getId(), entry);
+            return entry;
+        }
+    }
+
+    /**
+     * Marks an entry done, once CCU has accepted its objects.
+     *
+     * @param id the entry id.
+     */
+    public synchronized void markDone(final long id) {
+        JournalEntry entry = pending.remove(id);
+        if (entry == null) {
+            return;
+        }
+        ByteBuffer record = record(DONE, id, 0);
+        seal(record);
+        put(record);
+        Segment segment = segments.get(entry.segment);
+        if (segment != null) {
+            segment.live--;
+            segment.liveBytes -= entry.recordSize;
+        }
+    }
+
+    /**
+     * Marks entries done, once CCU has accepted their objects.
+     *
+     * @param ids the entry ids.
+     */
+    public synchronized void markDone(final Collection<Long> ids) {
+        for (Long id : ids) {
+            markDone(id);
+        }
+    }
+
+    /**
+     * @return the entries not yet marked done, oldest first
+     */
+    public synchronized List<JournalEntry> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Forces the records appended so far to disk.
+     */
+    public void sync() {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = activeBuffer;
+        }
+        dirty = false;
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    private void commit() {
+        if (dirty) {
+            try {
+                sync();
+            } catch (RuntimeException runtimeException) {
+                LOGGER.error("Failed to commit purge journal", runtimeException);
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest segments that no longer hold pending entries,
+     * copying the few pending entries of a segment to the active segment
+     * first. Segments are only deleted oldest first, so done records never
+     * outlive the entries they refer to.
+     */
+    public synchronized void compact() {
+        if (compacting) {
+            return;
+        }
+        compacting = true;
+        try {
+            // copying entries may roll the active segment, so walk a snapshot
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                if (segment == active
+                        || (segment.live > 0 && segment.liveBytes * 2 > segmentSize)) {
+                    return;
+                }
+                if (segment.live > 0) {
+                    for (JournalEntry entry : pending.values()) {
+                        if (entry.segment == segment.index) {
+                            write(entry);
+                        }
+                    }
+                    activeBuffer.force();
+                }
+                Files.deleteIfExists(segment.path);
+                segments.remove(segment.index);
+                LOGGER.debug("Compacted purge journal segment {}", segment.path);
+            }
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        } finally {
+            compacting = false;
+        }
+    }
+
+    private void write(final JournalEntry entry) {
+        byte[] hostname = entry.getHostname() == null
+                ? null
+                : entry.getHostname().getBytes(StandardCharsets.UTF_8);
+        int size = 3 + 4 + (hostname == null ? 0 : hostname.length) + 4;
+        List<byte[]> strings = new ArrayList<>(entry.getObjects().size());
+        for (Object object : entry.getObjects()) {
+            if (entry.getType() == PurgeType.CPCODE) {
+                size += 4;
+            } else {
+                byte[] bytes = String.valueOf(object).getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                size += 4 + bytes.length;
+            }
+        }
+        ByteBuffer record = record(ACCEPTED, entry.getId(), size);
+        record.put((byte) entry.getType().ordinal())
+                .put((byte) entry.getAction().ordinal())
+                .put((byte) entry.getNetwork().ordinal());
+        putBytes(record, hostname);
+        record.putInt(entry.getObjects().size());
+        if (entry.getType() == PurgeType.CPCODE) {
+            for (Object object : entry.getObjects()) {
+                record.putInt((Integer) object);
+            }
+        } else {
+            for (byte[] bytes : strings) {
+                putBytes(record, bytes);
+            }
+        }
+        seal(record);
+        put(record);
+        entry.segment = active.index;
+        entry.recordSize = record.limit();
+        active.live++;
+        active.liveBytes += record.limit();
+    }
+
+    private static ByteBuffer record(final byte kind, final long id,
+                                     final int payloadSize) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + 9 + payloadSize);
+        record.position(RECORD_HEADER);
+        record.put(kind).putLong(id);
+        return record;
+    }
+
+    private static void putBytes(final ByteBuffer record, final byte[] bytes) {
+        if (bytes == null) {
+            record.putInt(-1);
+        } else {
+            record.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static void seal(final ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER, record.position() - RECORD_HEADER);
+        record.putInt(0, record.position() - RECORD_HEADER);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+    }
+
+    /**
+     * Copies a sealed record into the active segment, rolling to a new
+     * segment when it does not fit.
+     */
+    private void put(final ByteBuffer record) {
+        Assert.state(!closed, "purge journal is closed.");
+        // keep room for the zero length ending the segment
+        if (record.remaining() + 4 > segmentSize) {
+            throw new IllegalArgumentException("journal record of "
+                    + record.remaining() + " bytes does not fit a segment");
+        }
+        if (activeBuffer.remaining() < record.remaining() + 4) {
+            activeBuffer.force();
+            try {
+                activeChannel.close();
+                openSegment(active.index + 1);
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            compact();
+        }
+        activeBuffer.put(record);
+        dirty = true;
+    }
+
+    private void openSegment(final long index) throws IOException {
+        Path path = directory.resolve(String.format("%s%016d%s",
+                SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        active = new Segment(index, path);
+        segments.put(index, active);
+    }
+
+    private void replay() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long index = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(index, path);
+            segments.put(index, segment);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                replay(segment, channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        channel.size()));
+            }
+        }
+    }
+
+    private void replay(final Segment segment, final ByteBuffer buffer) {
+        while (buffer.remaining() >= RECORD_HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                LOGGER.warn("Ignoring torn record at {} of {}", start, segment.path);
+                break;
+            }
+            ByteBuffer record = ByteBuffer.wrap(body);
+            byte kind = record.get();
+            long id = record.getLong();
+            nextId = Math.max(nextId, id + 1);
+            if (kind == DONE) {
+                JournalEntry entry = pending.remove(id);
+                if (entry != null) {
+                    Segment owner = segments.get(entry.segment);
+                    owner.live--;
+                    owner.liveBytes -= entry.recordSize;
+                }
+            } else if (kind == ACCEPTED) {
+                JournalEntry entry = readEntry(id, record);
+                JournalEntry previous = pending.remove(id);
+                if (previous != null) {
+                    Segment owner = segments.get(previous.segment);
+                    owner.live--;
+                    owner.liveBytes -= previous.recordSize;
+                }
+                entry.segment = segment.index;
+                entry.recordSize = RECORD_HEADER + length;
+                segment.live++;
+                segment.liveBytes += entry.recordSize;
+                pending.put(id, entry);
+            }
+        }
+    }
+
+    private static JournalEntry readEntry(final long id, final ByteBuffer record) {
+        PurgeType type = PurgeType.values()[record.get()];
+        PurgeAction action = PurgeAction.values()[record.get()];
+        PurgeNetwork network = PurgeNetwork.values()[record.get()];
+        String hostname = readString(record);
+        int count = record.getInt();
+        List<Object> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add(type == PurgeType.CPCODE ? record.getInt() : readString(record));
+        }
+        return new JournalEntry(id, type, action, network, hostname, objects);
+    }
+
+    private static String readString(final ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(record.array(), record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    /**
+     * Commits the pending records and closes the active segment.
+     */
+    @Override
+    public void close() {
+        committer.shutdownNow();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            activeBuffer.force();
+            try {
+                activeChannel.close();
+            } catch (IOException ioException) {
+                LOGGER.warn("Failed to close purge journal", ioException);
+            }
+        }
+    }
+
+    /**
+     * A segment file and its pending entries.
+     */
+    private static final class Segment {
+        private final long index;
+        private final Path path;
+        private int live;
+        private long liveBytes;
+
+        private Segment(final long index, final Path path) {
+            this.index = index;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.htomar.akamai.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Traffic counters of one client credential.
+ *
+ * @author Himanshu Tomar
+ */
+public class ClientCounters {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder objects = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    private final LongAdder failures = new LongAdder();
+
+    ClientCounters() {
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    void onRequest(final int objectCount, final int bodySize) {
+        requests.increment();
+        objects.add(objectCount);
+        bytesSent.add(bodySize);
+    }
+
+    void onStatus(final int status) {
+        int statusClass = status / 100;
+        if (statusClass > 0 && statusClass < statusClasses.length) {
+            statusClasses[statusClass].increment();
+        }
+    }
+
+    void onFailure() {
+        failures.increment();
+    }
+
+    /**
+     * @return the number of requests sent
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of objects sent for purging
+     */
+    public long getObjects() {
+        return objects.sum();
+    }
+
+    /**
+     * @return the number of body bytes sent
+     */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * @param statusClass the status class, 1 to 5
+     * @return the number of responses of the given status class
+     */
+    public long getStatusClass(final int statusClass) {
+        return statusClasses[statusClass].sum();
+    }
+
+    /**
+     * @return the number of requests that failed without a response
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + getRequests() + " objects=" + getObjects()
+                + " bytesSent=" + getBytesSent() + " status2xx=" + getStatusClass(2)
+                + " status3xx=" + getStatusClass(3) + " status4xx=" + getStatusClass(4)
+                + " status5xx=" + getStatusClass(5) + " failures=" + getFailures();
+    }
+}
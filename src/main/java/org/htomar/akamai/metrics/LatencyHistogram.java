@@ -0,0 +1,100 @@
+package org.htomar.akamai.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets.
+ * Percentiles are reported as the upper bound of the bucket they fall in,
+ * so they are accurate within a factor of two.
+ *
+ * @author Himanshu Tomar
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return the mean duration
+     */
+    public long getMean(final TimeUnit unit) {
+        long samples = count.sum();
+        return samples == 0 ? 0 : unit.convert(sum.sum() / samples, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return the longest duration
+     */
+    public long getMax(final TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the duration below which the given share of durations fall.
+     *
+     * @param percentile the share, between 0 and 1.
+     * @param unit       the unit of the result
+     * @return the duration
+     */
+    public long getPercentile(final double percentile, final TimeUnit unit) {
+        long samples = count.sum();
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * samples);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                long upperBound = i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                return unit.convert(Math.min(upperBound, max.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+        return getMax(unit);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+                + " meanMicros=" + getMean(TimeUnit.MICROSECONDS)
+                + " p50Micros=" + getPercentile(0.5, TimeUnit.MICROSECONDS)
+                + " p99Micros=" + getPercentile(0.99, TimeUnit.MICROSECONDS)
+                + " maxMicros=" + getMax(TimeUnit.MICROSECONDS);
+    }
+}
@@ -0,0 +1,71 @@
+package org.htomar.akamai.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes {@link PurgeMetrics} as structured key=value log lines,
+ * one per stage and one per credential. Values are cumulative since start.
+ *
+ * @author Himanshu Tomar
+ */
+public class MetricsLogReporter implements Closeable {
+    /**
+     * The logger the metrics are written to.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(MetricsLogReporter.class);
+
+    private final PurgeMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor. Starts reporting right away.
+     *
+     * @param metrics the metrics to report.
+     * @param period  the reporting period.
+     * @param unit    the unit of the period.
+     */
+    public MetricsLogReporter(final PurgeMetrics metrics, final long period,
+                              final TimeUnit unit) {
+        Assert.notNull(metrics, "metrics cannot be null.");
+        Assert.isTrue(period > 0, "period should be positive.");
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "akamai-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+    }
+
+    /**
+     * Writes the current values.
+     */
+    public void report() {
+        if (!LOGGER.isInfoEnabled()) {
+            return;
+        }
+        for (PurgeMetrics.Stage stage : PurgeMetrics.Stage.values()) {
+            LOGGER.info("akamai.purge.stage stage={} {}",
+                    stage.name().toLowerCase(), metrics.getHistogram(stage));
+        }
+        for (Map.Entry<String, ClientCounters> entry
+                : metrics.getClientCounters().entrySet()) {
+            LOGGER.info("akamai.purge.client client={} {}",
+                    entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
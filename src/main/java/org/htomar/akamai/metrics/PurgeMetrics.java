@@ -0,0 +1,134 @@
+package org.htomar.akamai.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process latency and throughput metrics of the purge and signing hot
+ * paths. Recording is lock-free and allocation-free once a credential has
+ * been seen.
+ * <p>
+ * Purge utilities record into {@link #global()} unless given another
+ * instance. {@link MetricsLogReporter} exports the values as periodic log
+ * lines.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeMetrics {
+
+    /**
+     * Timed stages of a purge request.
+     */
+    public enum Stage {
+        /**
+         * Encoding the purge request into the body bytes.
+         */
+        SERIALIZATION,
+        /**
+         * Computing the content hash of the body.
+         */
+        HASHING,
+        /**
+         * Building the signed Authorization header, hashing included.
+         */
+        SIGNING,
+        /**
+         * Leasing a connection from the pool.
+         */
+        CONNECTION_ACQUIRE,
+        /**
+         * Sending the request and reading the response.
+         */
+        ROUND_TRIP
+    }
+
+    private static final PurgeMetrics GLOBAL = new PurgeMetrics();
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final ConcurrentMap<String, ClientCounters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     */
+    public PurgeMetrics() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @return the metrics recorded by purge utilities not given another instance.
+     */
+    public static PurgeMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records the duration of a stage.
+     *
+     * @param stage the stage.
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(final Stage stage, final long nanos) {
+        histograms.get(stage).record(nanos);
+    }
+
+    /**
+     * Records a request about to be sent.
+     *
+     * @param clientToken the client token of the credential.
+     * @param objects     the number of objects in the request.
+     * @param bodySize    the body size in bytes.
+     */
+    public void onRequest(final String clientToken, final int objects,
+                          final int bodySize) {
+        countersOf(clientToken).onRequest(objects, bodySize);
+    }
+
+    /**
+     * Records the status of a response.
+     *
+     * @param clientToken the client token of the credential.
+     * @param status      the HTTP status code.
+     */
+    public void onStatus(final String clientToken, final int status) {
+        countersOf(clientToken).onStatus(status);
+    }
+
+    /**
+     * Records a request that failed without a response.
+     *
+     * @param clientToken the client token of the credential.
+     */
+    public void onFailure(final String clientToken) {
+        countersOf(clientToken).onFailure();
+    }
+
+    /**
+     * @param stage the stage
+     * @return the histogram of the stage
+     */
+    public LatencyHistogram getHistogram(final Stage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * @return the counters of every credential seen, keyed by client token
+     */
+    public Map<String, ClientCounters> getClientCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    private ClientCounters countersOf(final String clientToken) {
+        String key = clientToken == null ? "basic" : clientToken;
+        ClientCounters clientCounters = counters.get(key);
+        if (clientCounters == null) {
+            clientCounters = counters.computeIfAbsent(key, token -> new ClientCounters());
+        }
+        return clientCounters;
+    }
+}
@@ -0,0 +1,64 @@
+package org.htomar.akamai.planner;
+
+/**
+ * Thresholds of {@link PurgePlanner}.
+ *
+ * @author Himanshu Tomar
+ */
+public class PlannerConfig {
+    private int minURLs = 1000;
+    private double minCoverage = 0.5;
+    private int maxBodySize = 50000;
+
+    /**
+     * @return the number of URLs under a mapping from which they are purged
+     * through its CPCode or tag
+     */
+    public int getMinURLs() {
+        return minURLs;
+    }
+
+    /**
+     * @param minURLs the number of URLs under a mapping from which they are
+     *                purged through its CPCode or tag
+     */
+    public void setMinURLs(int minURLs) {
+        this.minURLs = minURLs;
+    }
+
+    /**
+     * @return the share of a mapping's estimated objects from which its URLs
+     * are purged through its CPCode or tag
+     */
+    public double getMinCoverage() {
+        return minCoverage;
+    }
+
+    /**
+     * @param minCoverage the share of a mapping's estimated objects from
+     *                    which its URLs are purged through its CPCode or tag
+     */
+    public void setMinCoverage(double minCoverage) {
+        this.minCoverage = minCoverage;
+    }
+
+    /**
+     * @return the maximum body size used to count requests
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @param maxBodySize the maximum body size used to count requests
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public String toString() {
+        return "PlannerConfig [minURLs=" + minURLs + ", minCoverage="
+                + minCoverage + ", maxBodySize=" + maxBodySize + "]";
+    }
+}
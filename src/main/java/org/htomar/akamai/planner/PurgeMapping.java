@@ -0,0 +1,110 @@
+package org.htomar.akamai.planner;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.request.PurgeType;
+import org.springframework.util.Assert;
+
+/**
+ * Maps the URLs of a hostname, optionally under a path prefix matched on
+ * whole path segments, to the CPCode or cache tag that covers them. Used by
+ * {@link PurgePlanner} to replace many URL purges by one CPCode or tag purge.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeMapping {
+    private final String hostname;
+    private final String pathPrefix;
+    private final PurgeType type;
+    private final Object target;
+    private long estimatedObjects;
+
+    /**
+     * Constructor mapping to a CPCode.
+     *
+     * @param hostname   the hostname of the URLs.
+     * @param pathPrefix the path prefix of the URLs, null for the whole hostname.
+     * @param cpCode     the CPCode covering the URLs.
+     */
+    public PurgeMapping(final String hostname, final String pathPrefix,
+                        final int cpCode) {
+        this(hostname, pathPrefix, PurgeType.CPCODE, cpCode);
+        Assert.isTrue(cpCode > 0, "cpcode should be positive.");
+    }
+
+    /**
+     * Constructor mapping to a cache tag.
+     *
+     * @param hostname   the hostname of the URLs.
+     * @param pathPrefix the path prefix of the URLs, null for the whole hostname.
+     * @param tag        the cache tag covering the URLs.
+     */
+    public PurgeMapping(final String hostname, final String pathPrefix,
+                        final String tag) {
+        this(hostname, pathPrefix, PurgeType.TAG, tag);
+        Assert.hasText(tag, "tag cannot be null.");
+    }
+
+    private PurgeMapping(final String hostname, final String pathPrefix,
+                         final PurgeType type, final Object target) {
+        Assert.hasText(hostname, "hostname cannot be null.");
+        this.hostname = hostname.toLowerCase();
+        this.pathPrefix = pathPrefix == null || pathPrefix.isEmpty()
+                ? "/"
+                : CachePurgeV3.normalizeURL(pathPrefix);
+        this.type = type;
+        this.target = target;
+    }
+
+    /**
+     * @return the lower case hostname of the URLs
+     */
+    public String getHostname() {
+        return hostname;
+    }
+
+    /**
+     * @return the normalized path prefix of the URLs, "/" for the whole hostname
+     */
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    /**
+     * @return {@link PurgeType#CPCODE} or {@link PurgeType#TAG}
+     */
+    public PurgeType getType() {
+        return type;
+    }
+
+    /**
+     * @return the CPCode as an {@link Integer} or the tag as a {@link String}
+     */
+    public Object getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the estimated number of cached objects covered, 0 if unknown
+     */
+    public long getEstimatedObjects() {
+        return estimatedObjects;
+    }
+
+    /**
+     * Sets the estimated number of cached objects covered by the CPCode or
+     * tag. When known, the planner also collapses URL purges that cover a
+     * large enough share of it.
+     *
+     * @param estimatedObjects the estimated number of objects, 0 if unknown
+     */
+    public void setEstimatedObjects(long estimatedObjects) {
+        this.estimatedObjects = estimatedObjects;
+    }
+
+    @Override
+    public String toString() {
+        return "PurgeMapping [hostname=" + hostname + ", pathPrefix=" + pathPrefix
+                + ", type=" + type + ", target=" + target
+                + ", estimatedObjects=" + estimatedObjects + "]";
+    }
+}
@@ -0,0 +1,90 @@
+package org.htomar.akamai.planner;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Purge calls chosen by {@link PurgePlanner} for a URL purge request, with
+ * the reasoning behind each choice.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgePlan {
+    private final String hostname;
+    private final List<String> urls;
+    private final List<Integer> cpCodes;
+    private final List<String> tags;
+    private final int requests;
+    private final int urlOnlyRequests;
+    private final List<String> explanation;
+
+    PurgePlan(final String hostname, final List<String> urls,
+              final List<Integer> cpCodes, final List<String> tags,
+              final int requests, final int urlOnlyRequests,
+              final List<String> explanation) {
+        this.hostname = hostname;
+        this.urls = Collections.unmodifiableList(urls);
+        this.cpCodes = Collections.unmodifiableList(cpCodes);
+        this.tags = Collections.unmodifiableList(tags);
+        this.requests = requests;
+        this.urlOnlyRequests = urlOnlyRequests;
+        this.explanation = Collections.unmodifiableList(explanation);
+    }
+
+    /**
+     * @return the hostname of the relative URLs, null if none
+     */
+    public String getHostname() {
+        return hostname;
+    }
+
+    /**
+     * @return the URLs still purged by URL
+     */
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    /**
+     * @return the CPCodes purged instead of their URLs
+     */
+    public List<Integer> getCpCodes() {
+        return cpCodes;
+    }
+
+    /**
+     * @return the cache tags purged instead of their URLs
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return the estimated number of requests of the plan
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the estimated number of requests when purging every URL
+     */
+    public int getUrlOnlyRequests() {
+        return urlOnlyRequests;
+    }
+
+    /**
+     * @return one line per mapping considered and a summary line
+     */
+    public List<String> getExplanation() {
+        return explanation;
+    }
+
+    @Override
+    public String toString() {
+        return "PurgePlan [urls=" + urls.size() + ", cpCodes=" + cpCodes
+                + ", tags=" + tags + ", requests=" + requests
+                + ", urlOnlyRequests=" + urlOnlyRequests
+                + ", explanation=" + explanation + "]";
+    }
+}
@@ -0,0 +1,316 @@
+package org.htomar.akamai.planner;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.request.CompositePurgeResponse;
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeBodySize;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.PurgeType;
+import org.htomar.akamai.request.UrlNormalizer;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClientException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional planning stage in front of {@link CachePurgeV3} URL purges.
+ * <p>
+ * URLs are grouped by the most specific {@link PurgeMapping} of their
+ * hostname and path. A group is purged through the mapping's CPCode or
+ * cache tag instead of URL by URL when it reaches the
+ * {@link PlannerConfig} thresholds and doing so needs fewer requests, the
+ * largest groups being considered first. The resulting {@link PurgePlan}
+ * explains every choice and can be inspected before being executed.
+ * </p>
+ * <p>
+ * A CPCode or tag purge also purges cached objects that were not requested,
+ * so the thresholds should reflect how much extra origin traffic is
+ * acceptable.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgePlanner {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PurgePlanner.class);
+
+    private final CachePurgeV3 cachePurgeV3;
+    private final PlannerConfig config;
+
+    /**
+     * Mappings keyed by hostname, longest path prefix first.
+     */
+    private final Map<String, List<PurgeMapping>> mappings = new HashMap<>();
+
+    /**
+     * Constructor using the default thresholds.
+     *
+     * @param cachePurgeV3 the purge utility executing plans.
+     * @param mappings     the mappings of URLs to CPCodes and tags.
+     */
+    public PurgePlanner(final CachePurgeV3 cachePurgeV3,
+                        final List<PurgeMapping> mappings) {
+        this(cachePurgeV3, mappings, new PlannerConfig());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cachePurgeV3 the purge utility executing plans.
+     * @param mappings     the mappings of URLs to CPCodes and tags.
+     * @param config       the planner thresholds.
+     */
+    public PurgePlanner(final CachePurgeV3 cachePurgeV3,
+                        final List<PurgeMapping> mappings,
+                        final PlannerConfig config) {
+        Assert.notNull(cachePurgeV3, "cache purge cannot be null.");
+        Assert.notNull(mappings, "mappings cannot be null.");
+        Assert.notNull(config, "planner config cannot be null.");
+        this.cachePurgeV3 = cachePurgeV3;
+        this.config = config;
+        for (PurgeMapping mapping : mappings) {
+            this.mappings.computeIfAbsent(mapping.getHostname(), host -> new ArrayList<>())
+                    .add(mapping);
+        }
+        Comparator<PurgeMapping> longestPrefixFirst = Comparator.comparingInt(
+                (PurgeMapping mapping) -> mapping.getPathPrefix().length()).reversed();
+        this.mappings.values().forEach(list -> list.sort(longestPrefixFirst));
+    }
+
+    /**
+     * Plans the purge of the URLs of the given request.
+     *
+     * @param purgeRequest the URL purge request.
+     * @return the plan.
+     */
+    public PurgePlan plan(final PurgeRequest<String> purgeRequest) {
+        Assert.notEmpty(purgeRequest.getObjects(),
+                "purge request object cannot be null.");
+        String hostname = purgeRequest.getHostname();
+        List<String> urls = UrlNormalizer.normalizeAll(purgeRequest.getObjects());
+
+        Map<PurgeMapping, List<String>> groups = new LinkedHashMap<>();
+        long totalBytes = 0;
+        for (String url : urls) {
+            totalBytes += PurgeBodySize.ofString(url) + 1;
+            PurgeMapping mapping = match(url, hostname);
+            if (mapping != null) {
+                groups.computeIfAbsent(mapping, key -> new ArrayList<>()).add(url);
+            }
+        }
+        int capacity = config.getMaxBodySize() - PurgeBodySize.ofEnvelope(null, hostname);
+        int urlOnlyRequests = requests(totalBytes, capacity);
+
+        List<Map.Entry<PurgeMapping, List<String>>> candidates =
+                new ArrayList<>(groups.entrySet());
+        candidates.sort(Comparator.comparingInt(
+                (Map.Entry<PurgeMapping, List<String>> entry) -> entry.getValue().size())
+                .reversed());
+
+        List<String> explanation = new ArrayList<>();
+        Set<String> collapsed = new HashSet<>();
+        Set<Integer> cpCodes = new LinkedHashSet<>();
+        Set<String> tags = new LinkedHashSet<>();
+        long remainingBytes = totalBytes;
+        for (Map.Entry<PurgeMapping, List<String>> candidate : candidates) {
+            PurgeMapping mapping = candidate.getKey();
+            List<String> groupURLs = candidate.getValue();
+            String target = mapping.getType().getValue() + " " + mapping.getTarget();
+            String scope = mapping.getHostname() + mapping.getPathPrefix() + ": "
+                    + groupURLs.size() + " URL(s)";
+            if (!meetsThresholds(mapping, groupURLs.size())) {
+                explanation.add(scope + " kept as URLs, below the thresholds for " + target);
+                continue;
+            }
+            long groupBytes = 0;
+            for (String url : groupURLs) {
+                groupBytes += PurgeBodySize.ofString(url) + 1;
+            }
+            boolean newRequest = mapping.getType() == PurgeType.CPCODE
+                    ? cpCodes.isEmpty()
+                    : tags.isEmpty();
+            int saved = requests(remainingBytes, capacity)
+                    - requests(remainingBytes - groupBytes, capacity)
+                    - (newRequest ? 1 : 0);
+            if (saved <= 0) {
+                explanation.add(scope + " kept as URLs, purging " + target
+                        + " would not save any request");
+                continue;
+            }
+            remainingBytes -= groupBytes;
+            collapsed.addAll(groupURLs);
+            if (mapping.getType() == PurgeType.CPCODE) {
+                cpCodes.add((Integer) mapping.getTarget());
+            } else {
+                tags.add((String) mapping.getTarget());
+            }
+            explanation.add(scope + " purged by " + target + ", saving "
+                    + saved + " request(s)");
+        }
+
+        List<String> remaining = new ArrayList<>(urls.size() - collapsed.size());
+        for (String url : urls) {
+            if (!collapsed.contains(url)) {
+                remaining.add(url);
+            }
+        }
+        int requests = requests(remainingBytes, capacity)
+                + (cpCodes.isEmpty() ? 0 : 1) + (tags.isEmpty() ? 0 : 1);
+        explanation.add(requests + " request(s) instead of " + urlOnlyRequests + ": "
+                + remaining.size() + " URL(s), " + cpCodes.size() + " CPCode(s), "
+                + tags.size() + " tag(s)");
+        return new PurgePlan(hostname, remaining, new ArrayList<>(cpCodes),
+                new ArrayList<>(tags), requests, urlOnlyRequests, explanation);
+    }
+
+    /**
+     * Plans and invalidates the URLs of the given request on the production
+     * network.
+     *
+     * @param purgeRequest the URL purge request.
+     * @param credential   credentials to be used for open Akamai authentication.
+     * @param hostName     the request base host name.
+     * @return the response, a {@link CompositePurgeResponse} if several
+     * requests were sent.
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    public PurgeResponse purge(final PurgeRequest<String> purgeRequest,
+                               final ClientCredential credential,
+                               final String hostName)
+            throws RestClientException, RequestSigningException {
+        return execute(plan(purgeRequest), credential, hostName,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    /**
+     * Executes a plan.
+     *
+     * @param plan       the plan.
+     * @param credential credentials to be used for open Akamai authentication.
+     * @param hostName   the request base host name.
+     * @param action     the purge action.
+     * @param network    the target network.
+     * @return the response, a {@link CompositePurgeResponse} if several
+     * requests were sent.
+     * @throws RestClientException     if any exception occurs in making rest api call.
+     * @throws RequestSigningException if any exception occurs in signing request.
+     */
+    public PurgeResponse execute(final PurgePlan plan,
+                                 final ClientCredential credential,
+                                 final String hostName,
+                                 final PurgeAction action,
+                                 final PurgeNetwork network)
+            throws RestClientException, RequestSigningException {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Executing purge plan: {}", String.join("; ", plan.getExplanation()));
+        }
+        List<PurgeResponse> responses = new ArrayList<>(3);
+        if (!plan.getCpCodes().isEmpty()) {
+            PurgeRequest<Integer> purgeRequest = new PurgeRequest<>();
+            purgeRequest.setObjects(new ArrayList<>(plan.getCpCodes()));
+            responses.add(cachePurgeV3.purgeByCPCode(purgeRequest, credential,
+                    hostName, action, network));
+        }
+        if (!plan.getTags().isEmpty()) {
+            PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+            purgeRequest.setObjects(new ArrayList<>(plan.getTags()));
+            responses.add(cachePurgeV3.purgeByTag(purgeRequest, credential,
+                    hostName, action, network));
+        }
+        if (!plan.getUrls().isEmpty()) {
+            PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+            purgeRequest.setHostname(plan.getHostname());
+            purgeRequest.setObjects(new ArrayList<>(plan.getUrls()));
+            responses.add(cachePurgeV3.purgeByURL(purgeRequest, credential,
+                    hostName, action, network));
+        }
+        return responses.size() == 1
+                ? responses.get(0)
+                : new CompositePurgeResponse(responses);
+    }
+
+    private boolean meetsThresholds(final PurgeMapping mapping, final int urls) {
+        if (urls >= config.getMinURLs()) {
+            return true;
+        }
+        return mapping.getEstimatedObjects() > 0
+                && urls >= config.getMinCoverage() * mapping.getEstimatedObjects();
+    }
+
+    /**
+     * Finds the mapping with the longest path prefix matching the URL.
+     *
+     * @param url             the normalized URL.
+     * @param defaultHostname the hostname of relative URLs, may be null.
+     * @return the mapping, null if none matches.
+     */
+    private PurgeMapping match(final String url, final String defaultHostname) {
+        String host = defaultHostname;
+        String path = url;
+        int scheme = url.indexOf("://");
+        if (url.startsWith("http") && scheme > 0) {
+            int hostStart = scheme + 3;
+            int slash = url.indexOf('/', hostStart);
+            host = slash < 0 ? url.substring(hostStart) : url.substring(hostStart, slash);
+            path = slash < 0 ? "/" : url.substring(slash);
+            int port = host.indexOf(':');
+            if (port >= 0) {
+                host = host.substring(0, port);
+            }
+        }
+        if (host == null) {
+            return null;
+        }
+        List<PurgeMapping> candidates = mappings.get(host.toLowerCase());
+        if (candidates == null) {
+            return null;
+        }
+        for (PurgeMapping mapping : candidates) {
+            if (isUnder(path, mapping.getPathPrefix())) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks that a path starts with a prefix on a segment boundary, so that
+     * "/shop" covers "/shop/a" and "/shop?q" but not "/shopping".
+     *
+     * @param path   the URL path, with any query string.
+     * @param prefix the path prefix of a mapping.
+     * @return whether the path is under the prefix.
+     */
+    static boolean isUnder(final String path, final String prefix) {
+        if (!path.startsWith(prefix)) {
+            return false;
+        }
+        if (path.length() == prefix.length() || prefix.endsWith("/")) {
+            return true;
+        }
+        char next = path.charAt(prefix.length());
+        return next == '/' || next == '?';
+    }
+
+    private static int requests(final long bytes, final int capacity) {
+        return bytes <= 0 ? 0 : (int) ((bytes + capacity - 1) / capacity);
+    }
+}
@@ -0,0 +1,185 @@
+package org.htomar.akamai.ratelimit;
+
+import org.htomar.akamai.exception.PurgeRejectedException;
+import org.htomar.akamai.transport.RetryAfter;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side admission control for CCU v3.
+ * <p>
+ * Each {@link ClientCredential} gets a token bucket for requests and one for
+ * purged objects. A caller is admitted immediately, queued for at most
+ * {@link RateLimitConfig#getMaxWaitMillis()}, or rejected at once with a
+ * {@link PurgeRejectedException} when the wait would be longer, so no round
+ * trip that is certain to be throttled is made.
+ * </p>
+ * <p>
+ * The limiter adjusts itself from responses: a 429 holds all requests of the
+ * credential for the Retry-After delay and halves the refill rates, a
+ * reported remaining quota caps the request bucket, and successful
+ * responses restore the rates step by step.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeRateLimiter {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PurgeRateLimiter.class);
+
+    /**
+     * Header carrying the number of requests left in the current window.
+     */
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final RateLimitConfig config;
+    private final ConcurrentMap<String, ClientLimits> limits = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor using the default {@link RateLimitConfig}.
+     */
+    public PurgeRateLimiter() {
+        this(new RateLimitConfig());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config the limits applied to each credential.
+     */
+    public PurgeRateLimiter(final RateLimitConfig config) {
+        Assert.notNull(config, "rate limit config cannot be null.");
+        Assert.isTrue(config.getRequestsPerSecond() > 0,
+                "requests per second should be positive.");
+        Assert.isTrue(config.getObjectsPerSecond() > 0,
+                "objects per second should be positive.");
+        this.config = config;
+    }
+
+    /**
+     * Admits one request purging the given number of objects, waiting if
+     * needed.
+     *
+     * @param credential the credential the request is sent with.
+     * @param objects    the number of objects in the request.
+     * @throws PurgeRejectedException if the request cannot be admitted within the max wait.
+     */
+    public void acquire(final ClientCredential credential, final int objects)
+            throws PurgeRejectedException {
+        long wait = reserve(credential, objects);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                throw new PurgeRejectedException(
+                        "Interrupted while waiting for admission", interruptedException);
+            }
+        }
+    }
+
+    /**
+     * Admits one request purging the given number of objects without
+     * waiting: the tokens are taken at once and the caller sends the request
+     * after the returned delay, typically by scheduling it.
+     *
+     * @param credential the credential the request is sent with.
+     * @param objects    the number of objects in the request.
+     * @return the delay in nanoseconds before the request may be sent, 0 if none.
+     * @throws PurgeRejectedException if the request cannot be admitted within the max wait.
+     */
+    public long reserve(final ClientCredential credential, final int objects)
+            throws PurgeRejectedException {
+        ClientLimits clientLimits = limitsOf(credential);
+        synchronized (clientLimits) {
+            long now = System.nanoTime();
+            long wait = Math.max(clientLimits.blockedUntil - now,
+                    Math.max(clientLimits.requests.waitFor(1, now),
+                            clientLimits.objects.waitFor(objects, now)));
+            if (wait > TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMillis())) {
+                throw new PurgeRejectedException(String.format(
+                        "Rate limit exceeded for client '%s', next admission in %d ms",
+                        credential.getClientToken(),
+                        TimeUnit.NANOSECONDS.toMillis(wait)));
+            }
+            clientLimits.requests.take(1);
+            clientLimits.objects.take(objects);
+            return Math.max(wait, 0);
+        }
+    }
+
+    /**
+     * Adjusts the limits of the credential from a CCU response.
+     *
+     * @param credential the credential the request was sent with.
+     * @param status     the response status.
+     * @param headers    the response headers, may be null.
+     */
+    public void onResponse(final ClientCredential credential,
+                           final HttpStatus status,
+                           final HttpHeaders headers) {
+        ClientLimits clientLimits = limitsOf(credential);
+        synchronized (clientLimits) {
+            long now = System.nanoTime();
+            if (status == HttpStatus.TOO_MANY_REQUESTS) {
+                long retryAfter = RetryAfter.millis(headers);
+                if (retryAfter < 0) {
+                    retryAfter = config.getDefaultRetryAfterMillis();
+                }
+                clientLimits.blockedUntil = Math.max(clientLimits.blockedUntil,
+                        now + TimeUnit.MILLISECONDS.toNanos(retryAfter));
+                clientLimits.requests.slowDown();
+                clientLimits.objects.slowDown();
+                LOGGER.warn("Throttled by CCU for client '{}', holding requests for {} ms "
+                                + "and lowering rate to {} requests/s",
+                        credential.getClientToken(), retryAfter,
+                        clientLimits.requests.getRate());
+            } else if (status.is2xxSuccessful()) {
+                clientLimits.requests.speedUp();
+                clientLimits.objects.speedUp();
+            }
+            String remaining = headers == null ? null : headers.getFirst(REMAINING_HEADER);
+            if (remaining != null) {
+                try {
+                    clientLimits.requests.limitTo(Double.parseDouble(remaining.trim()), now);
+                } catch (NumberFormatException numberFormatException) {
+                    LOGGER.debug("Ignoring invalid {} header '{}'", REMAINING_HEADER, remaining);
+                }
+            }
+        }
+    }
+
+    private ClientLimits limitsOf(final ClientCredential credential) {
+        return limits.computeIfAbsent(credential.getClientToken(),
+                token -> new ClientLimits());
+    }
+
+    /**
+     * Buckets of one credential.
+     */
+    private final class ClientLimits {
+        private final TokenBucket requests;
+        private final TokenBucket objects;
+        private long blockedUntil;
+
+        private ClientLimits() {
+            long now = System.nanoTime();
+            this.requests = new TokenBucket(config.getRequestsPerSecond(),
+                    config.getRequestBurst(), now);
+            this.objects = new TokenBucket(config.getObjectsPerSecond(),
+                    config.getObjectBurst(), now);
+            this.blockedUntil = now;
+        }
+    }
+}
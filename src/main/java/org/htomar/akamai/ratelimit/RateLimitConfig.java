@@ -0,0 +1,108 @@
+package org.htomar.akamai.ratelimit;
+
+/**
+ * Limits applied by {@link PurgeRateLimiter} to each client credential.
+ *
+ * @author Himanshu Tomar
+ */
+public class RateLimitConfig {
+    private double requestsPerSecond = 50;
+    private int requestBurst = 100;
+    private double objectsPerSecond = 200;
+    private int objectBurst = 10000;
+    private long maxWaitMillis = 1000;
+    private long defaultRetryAfterMillis = 1000;
+
+    /**
+     * @return the sustained number of requests per second
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @param requestsPerSecond the sustained number of requests per second
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * @return the number of requests that may be sent at once
+     */
+    public int getRequestBurst() {
+        return requestBurst;
+    }
+
+    /**
+     * @param requestBurst the number of requests that may be sent at once
+     */
+    public void setRequestBurst(int requestBurst) {
+        this.requestBurst = requestBurst;
+    }
+
+    /**
+     * @return the sustained number of purged objects per second
+     */
+    public double getObjectsPerSecond() {
+        return objectsPerSecond;
+    }
+
+    /**
+     * @param objectsPerSecond the sustained number of purged objects per second
+     */
+    public void setObjectsPerSecond(double objectsPerSecond) {
+        this.objectsPerSecond = objectsPerSecond;
+    }
+
+    /**
+     * @return the number of objects that may be purged at once
+     */
+    public int getObjectBurst() {
+        return objectBurst;
+    }
+
+    /**
+     * @param objectBurst the number of objects that may be purged at once
+     */
+    public void setObjectBurst(int objectBurst) {
+        this.objectBurst = objectBurst;
+    }
+
+    /**
+     * @return how long a caller may be queued for admission, 0 to fail fast
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @param maxWaitMillis how long a caller may be queued for admission, 0 to fail fast
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * @return how long to hold requests after a 429 without a Retry-After header
+     */
+    public long getDefaultRetryAfterMillis() {
+        return defaultRetryAfterMillis;
+    }
+
+    /**
+     * @param defaultRetryAfterMillis how long to hold requests after a 429 without a Retry-After header
+     */
+    public void setDefaultRetryAfterMillis(long defaultRetryAfterMillis) {
+        this.defaultRetryAfterMillis = defaultRetryAfterMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitConfig [requestsPerSecond=" + requestsPerSecond
+                + ", requestBurst=" + requestBurst + ", objectsPerSecond="
+                + objectsPerSecond + ", objectBurst=" + objectBurst
+                + ", maxWaitMillis=" + maxWaitMillis
+                + ", defaultRetryAfterMillis=" + defaultRetryAfterMillis + "]";
+    }
+}
@@ -0,0 +1,104 @@
+package org.htomar.akamai.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket whose refill rate can be adjusted at runtime. Tokens may be
+ * reserved ahead of time, in which case the balance goes negative and the
+ * caller waits for the deficit to be refilled. Not thread-safe, callers
+ * synchronize.
+ *
+ * @author Himanshu Tomar
+ */
+final class TokenBucket {
+    private final double capacity;
+    private final double maxRate;
+    private final double minRate;
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructor. The bucket starts full.
+     *
+     * @param ratePerSecond the configured refill rate, also the upper bound of adjustments.
+     * @param capacity      the maximum number of tokens.
+     * @param now           the current {@link System#nanoTime()}.
+     */
+    TokenBucket(final double ratePerSecond, final double capacity, final long now) {
+        this.capacity = capacity;
+        this.maxRate = ratePerSecond;
+        this.minRate = ratePerSecond / 16;
+        this.rate = ratePerSecond;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Returns how long a caller must wait until the given tokens are
+     * available, without reserving them.
+     *
+     * @param permits the number of tokens.
+     * @param now     the current {@link System#nanoTime()}.
+     * @return the wait in nanoseconds.
+     */
+    long waitFor(final double permits, final long now) {
+        refill(now);
+        double deficit = Math.min(permits, capacity) - tokens;
+        if (deficit <= 0) {
+            return 0;
+        }
+        return (long) (deficit / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Takes the given tokens, letting the balance go negative.
+     *
+     * @param permits the number of tokens.
+     */
+    void take(final double permits) {
+        tokens -= Math.min(permits, capacity);
+    }
+
+    /**
+     * Caps the available tokens, e.g. with a remaining quota reported by the server.
+     *
+     * @param available the number of tokens known to be available.
+     * @param now       the current {@link System#nanoTime()}.
+     */
+    void limitTo(final double available, final long now) {
+        refill(now);
+        tokens = Math.min(tokens, available);
+    }
+
+    /**
+     * Halves the refill rate, down to a sixteenth of the configured rate.
+     */
+    void slowDown() {
+        rate = Math.max(minRate, rate / 2);
+    }
+
+    /**
+     * Increases the refill rate by a twentieth of the configured rate, up to
+     * the configured rate.
+     */
+    void speedUp() {
+        rate = Math.min(maxRate, rate + maxRate / 20);
+    }
+
+    /**
+     * @return the current refill rate per second.
+     */
+    double getRate() {
+        return rate;
+    }
+
+    private void refill(final long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity,
+                    tokens + elapsed * rate / TimeUnit.SECONDS.toNanos(1));
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.htomar.akamai.request;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free pool of scratch byte buffers in power-of-two size classes, from
+ * 1 KB to 1 MB. Each class keeps a few buffers in fixed slots, so taking and
+ * returning a buffer allocates nothing. Larger buffers are not pooled.
+ *
+ * @author Himanshu Tomar
+ */
+final class BodyBufferPool {
+
+    /**
+     * Log2 of the smallest size class.
+     */
+    private static final int MIN_SHIFT = 10;
+
+    /**
+     * Log2 of the largest size class.
+     */
+    private static final int MAX_SHIFT = 20;
+
+    /**
+     * Buffers kept per size class.
+     */
+    private static final int SLOTS = 16;
+
+    private static final AtomicReferenceArray<byte[]>[] CLASSES = newClasses();
+
+    private BodyBufferPool() {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static AtomicReferenceArray<byte[]>[] newClasses() {
+        AtomicReferenceArray<byte[]>[] classes =
+                new AtomicReferenceArray[MAX_SHIFT - MIN_SHIFT + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new AtomicReferenceArray<>(SLOTS);
+        }
+        return classes;
+    }
+
+    /**
+     * Takes a buffer of at least the given capacity.
+     *
+     * @param capacity the minimum capacity in bytes.
+     * @return a pooled buffer, or a new one if the class is empty.
+     */
+    static byte[] acquire(final int capacity) {
+        int shift = shiftOf(capacity);
+        if (shift > MAX_SHIFT) {
+            return new byte[capacity];
+        }
+        AtomicReferenceArray<byte[]> slots = CLASSES[shift - MIN_SHIFT];
+        for (int i = 0; i < SLOTS; i++) {
+            byte[] buffer = slots.get(i);
+            if (buffer != null && slots.compareAndSet(i, buffer, null)) {
+                return buffer;
+            }
+        }
+        return new byte[1 << shift];
+    }
+
+    /**
+     * Returns a buffer taken with {@link #acquire(int)}. Buffers that are
+     * not of a pooled size, or do not fit in their full class, are dropped.
+     *
+     * @param buffer the buffer, not to be used afterwards.
+     */
+    static void release(final byte[] buffer) {
+        int shift = shiftOf(buffer.length);
+        if (shift > MAX_SHIFT || buffer.length != 1 << shift) {
+            return;
+        }
+        AtomicReferenceArray<byte[]> slots = CLASSES[shift - MIN_SHIFT];
+        for (int i = 0; i < SLOTS; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    private static int shiftOf(final int capacity) {
+        return Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(capacity - 1));
+    }
+}
@@ -0,0 +1,287 @@
+package org.htomar.akamai.request;
+
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CPCode purge request backed by a growable <code>int</code> array, the
+ * primitive counterpart of a <code>PurgeRequest&lt;Integer&gt;</code>.
+ * <p>
+ * {@link #normalize()} sorts the codes, removes duplicates and drops
+ * non-positive codes in place, and {@link #toBytes()} writes the
+ * <code>{"objects":[...]}</code> body directly, byte for byte what
+ * {@link PurgeRequestWriter} writes for the equivalent request. Not
+ * thread-safe.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class CPCodeRequest {
+
+    private static final byte[] PREFIX = "{\"objects\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUFFIX = "]}".getBytes(StandardCharsets.US_ASCII);
+
+    private int[] cpCodes;
+    private int size;
+
+    /**
+     * Constructor of an empty request.
+     */
+    public CPCodeRequest() {
+        this.cpCodes = new int[16];
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cpCodes the CPCodes to purge, copied.
+     */
+    public CPCodeRequest(final int... cpCodes) {
+        Assert.notNull(cpCodes, "CPCodes cannot be null.");
+        this.cpCodes = Arrays.copyOf(cpCodes, Math.max(16, cpCodes.length));
+        this.size = cpCodes.length;
+    }
+
+    /**
+     * Creates a request from boxed CPCodes, such as the objects of a
+     * <code>PurgeRequest&lt;Integer&gt;</code>. Null codes are dropped.
+     *
+     * @param cpCodes the CPCodes to purge, copied.
+     * @return the request, not normalized.
+     */
+    public static CPCodeRequest of(final Collection<Integer> cpCodes) {
+        Assert.notNull(cpCodes, "CPCodes cannot be null.");
+        CPCodeRequest request = new CPCodeRequest();
+        if (cpCodes.size() > request.cpCodes.length) {
+            request.cpCodes = new int[cpCodes.size()];
+        }
+        for (Integer cpCode : cpCodes) {
+            if (cpCode != null) {
+                request.cpCodes[request.size++] = cpCode;
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Adds a CPCode.
+     *
+     * @param cpCode the CPCode.
+     * @return this request.
+     */
+    public CPCodeRequest add(final int cpCode) {
+        if (size == cpCodes.length) {
+            cpCodes = Arrays.copyOf(cpCodes, size * 2);
+        }
+        cpCodes[size++] = cpCode;
+        return this;
+    }
+
+    /**
+     * Adds CPCodes.
+     *
+     * @param codes the CPCodes.
+     * @return this request.
+     */
+    public CPCodeRequest addAll(final int... codes) {
+        if (size + codes.length > cpCodes.length) {
+            cpCodes = Arrays.copyOf(cpCodes, Math.max(size + codes.length, size * 2));
+        }
+        System.arraycopy(codes, 0, cpCodes, size, codes.length);
+        size += codes.length;
+        return this;
+    }
+
+    /**
+     * Sorts the CPCodes, removes duplicates and drops non-positive codes.
+     *
+     * @return the number of CPCodes left.
+     */
+    public int normalize() {
+        int positive = 0;
+        for (int i = 0; i < size; i++) {
+            if (cpCodes[i] > 0) {
+                cpCodes[positive++] = cpCodes[i];
+            }
+        }
+        size = positive;
+        if (!isSorted()) {
+            Arrays.sort(cpCodes, 0, size);
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (kept == 0 || cpCodes[i] != cpCodes[kept - 1]) {
+                cpCodes[kept++] = cpCodes[i];
+            }
+        }
+        size = kept;
+        return size;
+    }
+
+    private boolean isSorted() {
+        for (int i = 1; i < size; i++) {
+            if (cpCodes[i] < cpCodes[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of CPCodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index.
+     * @return the CPCode at the given index
+     */
+    public int get(final int index) {
+        Assert.isTrue(index >= 0 && index < size, "index out of range.");
+        return cpCodes[index];
+    }
+
+    /**
+     * @return a copy of the CPCodes
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cpCodes, size);
+    }
+
+    /**
+     * @return the size in bytes of the body written by {@link #toBytes()}
+     */
+    public int getBodySize() {
+        return bodySize(0, size);
+    }
+
+    /**
+     * Writes the request body.
+     *
+     * @return the UTF-8 encoded JSON body.
+     */
+    public byte[] toBytes() {
+        return toBytes(0, size);
+    }
+
+    /**
+     * Splits the request into consecutive requests whose body is at most
+     * <code>maxBodySize</code> bytes.
+     *
+     * @param maxBodySize the maximum body size in bytes.
+     * @return the requests to send, this request if it already fits.
+     */
+    public List<CPCodeRequest> split(final int maxBodySize) {
+        Assert.isTrue(maxBodySize >= PREFIX.length + SUFFIX.length + 11,
+                "max body size is too small.");
+        List<CPCodeRequest> parts = new ArrayList<>();
+        if (getBodySize() <= maxBodySize) {
+            parts.add(this);
+            return parts;
+        }
+        int start = 0;
+        int bodySize = PREFIX.length + SUFFIX.length;
+        for (int i = 0; i < size; i++) {
+            int added = digits(cpCodes[i]) + (i > start ? 1 : 0);
+            if (bodySize + added > maxBodySize) {
+                parts.add(new CPCodeRequest(Arrays.copyOfRange(cpCodes, start, i)));
+                start = i;
+                bodySize = PREFIX.length + SUFFIX.length;
+                added = digits(cpCodes[i]);
+            }
+            bodySize += added;
+        }
+        parts.add(new CPCodeRequest(Arrays.copyOfRange(cpCodes, start, size)));
+        return parts;
+    }
+
+    /**
+     * @return the equivalent boxed request
+     */
+    public PurgeRequest<Integer> toPurgeRequest() {
+        List<Integer> objects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            objects.add(cpCodes[i]);
+        }
+        PurgeRequest<Integer> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(objects);
+        return purgeRequest;
+    }
+
+    private int bodySize(final int from, final int to) {
+        int bodySize = PREFIX.length + SUFFIX.length + Math.max(0, to - from - 1);
+        for (int i = from; i < to; i++) {
+            bodySize += digits(cpCodes[i]);
+        }
+        return bodySize;
+    }
+
+    private byte[] toBytes(final int from, final int to) {
+        byte[] body = new byte[bodySize(from, to)];
+        System.arraycopy(PREFIX, 0, body, 0, PREFIX.length);
+        int position = PREFIX.length;
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                body[position++] = ',';
+            }
+            position = writeInt(cpCodes[i], body, position);
+        }
+        System.arraycopy(SUFFIX, 0, body, position, SUFFIX.length);
+        return body;
+    }
+
+    /**
+     * Writes the decimal digits of an int.
+     *
+     * @return the position after the digits.
+     */
+    private static int writeInt(final int value, final byte[] body, final int position) {
+        if (value < 0) {
+            byte[] digits = Integer.toString(value).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(digits, 0, body, position, digits.length);
+            return position + digits.length;
+        }
+        int end = position + digits(value);
+        int remaining = value;
+        int index = end;
+        do {
+            int quotient = remaining / 10;
+            body[--index] = (byte) ('0' + remaining - quotient * 10);
+            remaining = quotient;
+        } while (remaining > 0);
+        return end;
+    }
+
+    /**
+     * Same as {@link PurgeBodySize#ofInt(int)}, without divisions.
+     */
+    private static int digits(final int value) {
+        if (value < 0) {
+            return PurgeBodySize.ofInt(value);
+        }
+        int digits = 1;
+        for (int bound = 10; digits < 10 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CPCodeRequest [objects=[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(cpCodes[i]);
+        }
+        return sb.append("]]").toString();
+    }
+}
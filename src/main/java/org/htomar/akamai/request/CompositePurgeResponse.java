@@ -0,0 +1,88 @@
+package org.htomar.akamai.request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Purge response combining the responses of a purge request that was sent
+ * as several CCU requests.
+ * <p>
+ * The purge and support ids of all parts are joined with ',', the estimated
+ * seconds is the largest estimate and the ping after seconds the smallest
+ * hint of all parts. The individual responses remain available through
+ * {@link #getResponses()}.
+ *
+ * @author Himanshu Tomar
+ */
+public class CompositePurgeResponse extends PurgeResponse {
+    private final List<PurgeResponse> responses;
+
+    /**
+     * Constructor.
+     *
+     * @param responses the responses of the individual requests.
+     */
+    public CompositePurgeResponse(final List<PurgeResponse> responses) {
+        this.responses = Collections.unmodifiableList(new ArrayList<>(responses));
+        setHttpStatus(join(responses, PurgeResponse::getHttpStatus, true));
+        setDetail(join(responses, PurgeResponse::getDetail, true));
+        setPurgeId(join(responses, PurgeResponse::getPurgeId, false));
+        setSupportId(join(responses, PurgeResponse::getSupportId, false));
+        setEstimatedSeconds(extreme(responses, PurgeResponse::getEstimatedSeconds, true));
+        setPingAfterSeconds(extreme(responses, PurgeResponse::getPingAfterSeconds, false));
+        if (responses.size() == 1) {
+            setProgressUri(responses.get(0).getProgressUri());
+        }
+    }
+
+    /**
+     * @return the responses of the individual requests
+     */
+    public List<PurgeResponse> getResponses() {
+        return responses;
+    }
+
+    private static String join(final List<PurgeResponse> responses,
+                               final Function<PurgeResponse, String> field,
+                               final boolean distinct) {
+        List<String> values = new ArrayList<>();
+        for (PurgeResponse response : responses) {
+            String value = field.apply(response);
+            if (value != null && !(distinct && values.contains(value))) {
+                values.add(value);
+            }
+        }
+        return values.isEmpty() ? null : String.join(",", values);
+    }
+
+    private static String extreme(final List<PurgeResponse> responses,
+                                  final Function<PurgeResponse, String> field,
+                                  final boolean max) {
+        String result = null;
+        long extreme = 0;
+        for (PurgeResponse response : responses) {
+            String value = field.apply(response);
+            if (value == null) {
+                continue;
+            }
+            try {
+                long parsed = Long.parseLong(value.trim());
+                if (result == null || (max ? parsed > extreme : parsed < extreme)) {
+                    extreme = parsed;
+                    result = value;
+                }
+            } catch (NumberFormatException numberFormatException) {
+                // ignore non numeric hints
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CompositePurgeResponse [parts=" + responses.size() + ", "
+                + super.toString() + "]";
+    }
+}
@@ -0,0 +1,31 @@
+package org.htomar.akamai.request;
+
+/**
+ * CCU v3 purge actions.
+ *
+ * @author Himanshu Tomar
+ */
+public enum PurgeAction {
+    /**
+     * Marks the content stale, so edge servers revalidate it with the origin
+     * before serving it again.
+     */
+    INVALIDATE("invalidate"),
+    /**
+     * Removes the content, so edge servers fetch it again from the origin.
+     */
+    DELETE("delete");
+
+    private final String value;
+
+    PurgeAction(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the action as written in the endpoint path
+     */
+    public String getValue() {
+        return value;
+    }
+}
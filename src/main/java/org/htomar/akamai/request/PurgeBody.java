@@ -0,0 +1,64 @@
+package org.htomar.akamai.request;
+
+import org.springframework.util.Assert;
+
+/**
+ * A serialized purge request body, optionally with the SHA-256 content hash
+ * computed while it was written, so signing and every retry of the request
+ * reuse the hash instead of reading the body again.
+ *
+ * @author Himanshu Tomar
+ */
+public final class PurgeBody {
+    private final byte[] bytes;
+    private final byte[] contentHash;
+
+    /**
+     * Constructor of a body without a precomputed content hash.
+     *
+     * @param bytes the body bytes, cannot be null.
+     */
+    public PurgeBody(final byte[] bytes) {
+        this(bytes, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bytes       the body bytes, cannot be null.
+     * @param contentHash the SHA-256 hash of all the body bytes, null if not
+     *                    computed.
+     */
+    public PurgeBody(final byte[] bytes, final byte[] contentHash) {
+        Assert.notNull(bytes, "body bytes cannot be null.");
+        this.bytes = bytes;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @return the body bytes, sent as they are
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the body length in bytes
+     */
+    public int getLength() {
+        return bytes.length;
+    }
+
+    /**
+     * @return the SHA-256 hash of all the body bytes, null if not computed
+     */
+    public byte[] getContentHash() {
+        return contentHash;
+    }
+
+    @Override
+    public String toString() {
+        return "PurgeBody [length=" + bytes.length + ", hashed="
+                + (contentHash != null) + "]";
+    }
+}
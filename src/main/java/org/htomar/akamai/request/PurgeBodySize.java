@@ -0,0 +1,121 @@
+package org.htomar.akamai.request;
+
+import org.springframework.util.Assert;
+
+/**
+ * Computes the size in bytes of purge request bodies as written by
+ * {@link PurgeRequestWriter}, without serializing them.
+ *
+ * @author Himanshu Tomar
+ */
+public final class PurgeBodySize {
+
+    /**
+     * Size of <code>{"objects":[]}</code>.
+     */
+    private static final int OBJECTS_ENVELOPE = 14;
+
+    private PurgeBodySize() {
+    }
+
+    /**
+     * Returns the size of the body of the given request.
+     *
+     * @param purgeRequest the purge request.
+     * @return the size in bytes.
+     */
+    public static int ofRequest(final PurgeRequest<?> purgeRequest) {
+        int size = ofEnvelope(purgeRequest.getType(), purgeRequest.getHostname());
+        Assert.notNull(purgeRequest.getObjects(),
+                "purge request object cannot be null.");
+        for (Object object : purgeRequest.getObjects()) {
+            size += ofObject(object) + 1;
+        }
+        return purgeRequest.getObjects().isEmpty() ? size : size - 1;
+    }
+
+    /**
+     * Returns the size of a request body without any object.
+     *
+     * @param type     the request type, may be null.
+     * @param hostname the request hostname, may be null.
+     * @return the size in bytes.
+     */
+    public static int ofEnvelope(final String type, final String hostname) {
+        int size = OBJECTS_ENVELOPE;
+        if (type != null) {
+            // "type":"...",
+            size += 8 + ofString(type);
+        }
+        if (hostname != null) {
+            // "hostname":"...",
+            size += 12 + ofString(hostname);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the size of the given string once written as a JSON string,
+     * including the quotes.
+     *
+     * @param value the string.
+     * @return the size in bytes.
+     */
+    public static int ofString(final String value) {
+        int size = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20) {
+                size += c == '\n' || c == '\r' || c == '\t' || c == '\b'
+                        || c == '\f' ? 2 : 6;
+            } else if (c == '"' || c == '\\') {
+                size += 2;
+            } else if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isSurrogate(c)) {
+                // the UTF-8 generator writes each surrogate as a six byte escape
+                size += 6;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the size of the given number once written as a JSON number.
+     *
+     * @param value the number.
+     * @return the size in bytes.
+     */
+    public static int ofInt(final int value) {
+        if (value == Integer.MIN_VALUE) {
+            return 11;
+        }
+        int size = value < 0 ? 2 : 1;
+        int remaining = Math.abs(value);
+        while (remaining >= 10) {
+            remaining /= 10;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the size of the given purge object once written as a JSON value.
+     *
+     * @param value a {@link String} or {@link Integer} purge object.
+     * @return the size in bytes.
+     */
+    public static int ofObject(final Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof Integer) {
+            return ofInt((Integer) value);
+        }
+        return ofString(String.valueOf(value));
+    }
+}
@@ -0,0 +1,30 @@
+package org.htomar.akamai.request;
+
+/**
+ * Akamai networks a CCU v3 purge applies to.
+ *
+ * @author Himanshu Tomar
+ */
+public enum PurgeNetwork {
+    /**
+     * The production network.
+     */
+    PRODUCTION("production"),
+    /**
+     * The staging network.
+     */
+    STAGING("staging");
+
+    private final String value;
+
+    PurgeNetwork(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the network as written in the endpoint path
+     */
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,70 @@
+package org.htomar.akamai.request;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits purge requests whose serialized body exceeds the allowed size into
+ * the fewest consecutive requests that fit, measuring sizes in bytes exactly
+ * as {@link PurgeRequestWriter} writes them.
+ *
+ * @author Himanshu Tomar
+ */
+public final class PurgeRequestSplitter {
+
+    private PurgeRequestSplitter() {
+    }
+
+    /**
+     * Splits the given request into requests whose body is at most
+     * <code>maxBodySize</code> bytes. A request that already fits is returned
+     * as is.
+     *
+     * @param purgeRequest the purge request.
+     * @param maxBodySize  the maximum body size in bytes.
+     * @param <T>          the purge object type.
+     * @return the requests to send, never empty.
+     * @throws IllegalArgumentException if a single object does not fit in a request.
+     */
+    public static <T> List<PurgeRequest<T>> split(final PurgeRequest<T> purgeRequest,
+                                                  final int maxBodySize) {
+        Assert.notEmpty(purgeRequest.getObjects(),
+                "purge request object cannot be null.");
+        if (PurgeBodySize.ofRequest(purgeRequest) <= maxBodySize) {
+            return Collections.singletonList(purgeRequest);
+        }
+        int envelope = PurgeBodySize.ofEnvelope(purgeRequest.getType(),
+                purgeRequest.getHostname());
+        List<PurgeRequest<T>> chunks = new ArrayList<>();
+        List<T> objects = new ArrayList<>();
+        int size = envelope;
+        for (T object : purgeRequest.getObjects()) {
+            int objectSize = PurgeBodySize.ofObject(object);
+            Assert.isTrue(envelope + objectSize <= maxBodySize,
+                    "purge object is larger than the max body size: " + object);
+            int separator = objects.isEmpty() ? 0 : 1;
+            if (size + separator + objectSize > maxBodySize) {
+                chunks.add(copyOf(purgeRequest, objects));
+                objects = new ArrayList<>();
+                size = envelope;
+                separator = 0;
+            }
+            objects.add(object);
+            size += separator + objectSize;
+        }
+        chunks.add(copyOf(purgeRequest, objects));
+        return chunks;
+    }
+
+    private static <T> PurgeRequest<T> copyOf(final PurgeRequest<T> purgeRequest,
+                                              final List<T> objects) {
+        PurgeRequest<T> chunk = new PurgeRequest<>();
+        chunk.setType(purgeRequest.getType());
+        chunk.setHostname(purgeRequest.getHostname());
+        chunk.setObjects(objects);
+        return chunk;
+    }
+}
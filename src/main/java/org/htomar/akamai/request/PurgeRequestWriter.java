@@ -0,0 +1,38 @@
+package org.htomar.akamai.request;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Serializes {@link PurgeRequest} objects into the exact bytes that are
+ * hashed, signed and sent as the HTTP body.
+ * <p>
+ * The underlying {@link ObjectWriter} is configured once and is thread-safe,
+ * so serializer lookup happens only on first use.
+ *
+ * @author Himanshu Tomar
+ */
+public final class PurgeRequestWriter {
+
+    /**
+     * Shared, pre-configured writer for purge requests.
+     */
+    private static final ObjectWriter WRITER = new ObjectMapper()
+            .writerFor(PurgeRequest.class);
+
+    private PurgeRequestWriter() {
+    }
+
+    /**
+     * Serializes the given request to UTF-8 encoded JSON.
+     *
+     * @param purgeRequest the purge request.
+     * @return the JSON body bytes.
+     * @throws JsonProcessingException if the request cannot be serialized.
+     */
+    public static byte[] toBytes(final PurgeRequest<?> purgeRequest)
+            throws JsonProcessingException {
+        return WRITER.writeValueAsBytes(purgeRequest);
+    }
+}
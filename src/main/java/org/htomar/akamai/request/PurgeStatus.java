@@ -0,0 +1,217 @@
+package org.htomar.akamai.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Purge status object returned by the progress URI of a purge request.
+ *
+ * @author Himanshu Tomar
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PurgeStatus {
+
+    /**
+     * Value of {@link #getPurgeStatus()} once the purge has propagated.
+     */
+    public static final String DONE = "Done";
+
+    private String httpStatus;
+    private String detail;
+    private String purgeId;
+    private String supportId;
+    private String purgeStatus;
+    private String submittedBy;
+    private String submissionTime;
+    private String completionTime;
+    private String originalEstimatedSeconds;
+    private String originalQueueLength;
+    private String progressUri;
+    private String pingAfterSeconds;
+
+    /**
+     * @return the http status
+     */
+    public String getHttpStatus() {
+        return httpStatus;
+    }
+
+    /**
+     * @param httpStatus the http status to set
+     */
+    public void setHttpStatus(String httpStatus) {
+        this.httpStatus = httpStatus;
+    }
+
+    /**
+     * @return the detail
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * @param detail the detail to set
+     */
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    /**
+     * @return the purge id
+     */
+    public String getPurgeId() {
+        return purgeId;
+    }
+
+    /**
+     * @param purgeId the purge id to set
+     */
+    public void setPurgeId(String purgeId) {
+        this.purgeId = purgeId;
+    }
+
+    /**
+     * @return the support id
+     */
+    public String getSupportId() {
+        return supportId;
+    }
+
+    /**
+     * @param supportId the support id to set
+     */
+    public void setSupportId(String supportId) {
+        this.supportId = supportId;
+    }
+
+    /**
+     * @return the purge status, "In-Progress" or "Done"
+     */
+    public String getPurgeStatus() {
+        return purgeStatus;
+    }
+
+    /**
+     * @param purgeStatus the purge status, "In-Progress" or "Done" to set
+     */
+    public void setPurgeStatus(String purgeStatus) {
+        this.purgeStatus = purgeStatus;
+    }
+
+    /**
+     * @return the submitter
+     */
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    /**
+     * @param submittedBy the submitter to set
+     */
+    public void setSubmittedBy(String submittedBy) {
+        this.submittedBy = submittedBy;
+    }
+
+    /**
+     * @return the submission time
+     */
+    public String getSubmissionTime() {
+        return submissionTime;
+    }
+
+    /**
+     * @param submissionTime the submission time to set
+     */
+    public void setSubmissionTime(String submissionTime) {
+        this.submissionTime = submissionTime;
+    }
+
+    /**
+     * @return the completion time, null while in progress
+     */
+    public String getCompletionTime() {
+        return completionTime;
+    }
+
+    /**
+     * @param completionTime the completion time, null while in progress to set
+     */
+    public void setCompletionTime(String completionTime) {
+        this.completionTime = completionTime;
+    }
+
+    /**
+     * @return the original estimated seconds
+     */
+    public String getOriginalEstimatedSeconds() {
+        return originalEstimatedSeconds;
+    }
+
+    /**
+     * @param originalEstimatedSeconds the original estimated seconds to set
+     */
+    public void setOriginalEstimatedSeconds(String originalEstimatedSeconds) {
+        this.originalEstimatedSeconds = originalEstimatedSeconds;
+    }
+
+    /**
+     * @return the original queue length
+     */
+    public String getOriginalQueueLength() {
+        return originalQueueLength;
+    }
+
+    /**
+     * @param originalQueueLength the original queue length to set
+     */
+    public void setOriginalQueueLength(String originalQueueLength) {
+        this.originalQueueLength = originalQueueLength;
+    }
+
+    /**
+     * @return the progress uri
+     */
+    public String getProgressUri() {
+        return progressUri;
+    }
+
+    /**
+     * @param progressUri the progress uri to set
+     */
+    public void setProgressUri(String progressUri) {
+        this.progressUri = progressUri;
+    }
+
+    /**
+     * @return the seconds to wait before checking again
+     */
+    public String getPingAfterSeconds() {
+        return pingAfterSeconds;
+    }
+
+    /**
+     * @param pingAfterSeconds the seconds to wait before checking again to set
+     */
+    public void setPingAfterSeconds(String pingAfterSeconds) {
+        this.pingAfterSeconds = pingAfterSeconds;
+    }
+
+    /**
+     * @return whether the purge has propagated
+     */
+    public boolean isDone() {
+        return DONE.equalsIgnoreCase(purgeStatus);
+    }
+
+    @Override
+    public String toString() {
+        return "PurgeStatus [httpStatus=" + httpStatus + ", detail=" + detail
+                + ", purgeId=" + purgeId + ", supportId=" + supportId
+                + ", purgeStatus=" + purgeStatus + ", submittedBy=" + submittedBy
+                + ", submissionTime=" + submissionTime + ", completionTime="
+                + completionTime + ", originalEstimatedSeconds="
+                + originalEstimatedSeconds + ", originalQueueLength="
+                + originalQueueLength + ", progressUri=" + progressUri
+                + ", pingAfterSeconds=" + pingAfterSeconds + "]";
+    }
+}
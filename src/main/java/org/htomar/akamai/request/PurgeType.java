@@ -0,0 +1,58 @@
+package org.htomar.akamai.request;
+
+/**
+ * Kinds of objects a CCU v3 purge targets, each with the endpoints of every
+ * action and network.
+ *
+ * @author Himanshu Tomar
+ */
+public enum PurgeType {
+    /**
+     * Purge by URL, objects are URL strings.
+     */
+    URL("url"),
+    /**
+     * Purge by CPCode, objects are CPCode numbers.
+     */
+    CPCODE("cpcode"),
+    /**
+     * Purge by cache tag, objects are tag strings.
+     */
+    TAG("tag");
+
+    private final String value;
+
+    /**
+     * Endpoints indexed by action and network ordinal.
+     */
+    private final String[][] endpoints;
+
+    PurgeType(final String value) {
+        this.value = value;
+        this.endpoints = new String[PurgeAction.values().length][PurgeNetwork.values().length];
+        for (PurgeAction action : PurgeAction.values()) {
+            for (PurgeNetwork network : PurgeNetwork.values()) {
+                endpoints[action.ordinal()][network.ordinal()] = "/ccu/v3/"
+                        + action.getValue() + "/" + value + "/" + network.getValue();
+            }
+        }
+    }
+
+    /**
+     * @return the type as written in the endpoint path
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the endpoint path of this type for the given action and network.
+     *
+     * @param action  the purge action.
+     * @param network the target network.
+     * @return the endpoint, such as /ccu/v3/invalidate/url/production.
+     */
+    public String getEndpoint(final PurgeAction action, final PurgeNetwork network) {
+        return endpoints[action.ordinal()][network.ordinal()];
+    }
+}
@@ -0,0 +1,271 @@
+package org.htomar.akamai.request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single pass normalizer of purge URLs, so that equivalent spellings of a
+ * URL are purged once.
+ * <p>
+ * Following RFC 3986 section 6, only the parts of a URL that are case
+ * insensitive are lower cased: the scheme and the host. Paths and query
+ * strings are kept as they are, except that percent-encoded unreserved
+ * characters are decoded and other percent-encodings get upper case hex
+ * digits. The default port and the fragment are removed, a missing path
+ * becomes "/" and relative URLs get a leading "/".
+ * </p>
+ * <p>
+ * A URL that is already normal is returned as is, without allocating.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public final class UrlNormalizer {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Normalizes one URL.
+     *
+     * @param url the absolute URL or path, cannot be null.
+     * @return the normalized URL.
+     */
+    public static String normalize(final String url) {
+        String value = url.trim();
+        int length = value.length();
+        StringBuilder sb = null;
+        int i = 0;
+        int schemeEnd = schemeEnd(value);
+        if (schemeEnd > 0) {
+            for (; i < schemeEnd; i++) {
+                char c = value.charAt(i);
+                if (c >= 'A' && c <= 'Z') {
+                    if (sb == null) {
+                        sb = copy(value, i);
+                    }
+                    sb.append((char) (c + ('a' - 'A')));
+                } else if (sb != null) {
+                    sb.append(c);
+                }
+            }
+            if (sb != null) {
+                sb.append("://");
+            }
+            int hostStart = schemeEnd + 3;
+            int hostEnd = hostStart;
+            while (hostEnd < length && !isHostEnd(value.charAt(hostEnd))) {
+                hostEnd++;
+            }
+            int kept = hostEnd - defaultPortLength(value, schemeEnd, hostStart, hostEnd);
+            for (i = hostStart; i < kept; i++) {
+                char c = value.charAt(i);
+                if (c >= 'A' && c <= 'Z') {
+                    if (sb == null) {
+                        sb = copy(value, i);
+                    }
+                    sb.append((char) (c + ('a' - 'A')));
+                } else if (sb != null) {
+                    sb.append(c);
+                }
+            }
+            if (kept < hostEnd && sb == null) {
+                sb = copy(value, kept);
+            }
+            i = hostEnd;
+            if (i == length || value.charAt(i) != '/') {
+                if (sb == null) {
+                    sb = copy(value, i);
+                }
+                sb.append('/');
+            }
+        } else if (length == 0 || value.charAt(0) != '/') {
+            sb = new StringBuilder(length + 1).append('/');
+        }
+
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '#') {
+                if (sb == null) {
+                    sb = copy(value, i);
+                }
+                break;
+            }
+            if (c == '%' && i + 2 < length) {
+                int high = hexValue(value.charAt(i + 1));
+                int low = hexValue(value.charAt(i + 2));
+                if (high >= 0 && low >= 0) {
+                    char decoded = (char) (high << 4 | low);
+                    if (isUnreserved(decoded)) {
+                        if (sb == null) {
+                            sb = copy(value, i);
+                        }
+                        sb.append(decoded);
+                    } else if (value.charAt(i + 1) != HEX_DIGITS[high]
+                            || value.charAt(i + 2) != HEX_DIGITS[low]) {
+                        if (sb == null) {
+                            sb = copy(value, i);
+                        }
+                        sb.append('%').append(HEX_DIGITS[high]).append(HEX_DIGITS[low]);
+                    } else if (sb != null) {
+                        sb.append(value, i, i + 3);
+                    }
+                    i += 2;
+                    continue;
+                }
+            }
+            if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+
+    /**
+     * Normalizes the given URLs, skipping blank ones and removing the
+     * duplicates among the normalized URLs. The first occurrence wins.
+     *
+     * @param urls the URLs.
+     * @return the distinct normalized URLs, in input order.
+     */
+    public static List<String> normalizeAll(final Collection<String> urls) {
+        List<String> normalized = new ArrayList<>(urls.size());
+        Set<String> seen = new HashSet<>(Math.max(16, urls.size() * 4 / 3 + 1));
+        for (String url : urls) {
+            if (url == null || isBlank(url)) {
+                continue;
+            }
+            String normal = normalize(url);
+            if (seen.add(normal)) {
+                normalized.add(normal);
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Groups normalized URLs by host, for callers that purge each host on
+     * its own. CCU v3 accepts URLs of different hosts in one request, so
+     * purges do not group them.
+     *
+     * @param urls the normalized URLs.
+     * @return the URLs keyed by host, relative URLs under the null key, in
+     * order of first occurrence.
+     */
+    public static Map<String, List<String>> groupByHostname(final Collection<String> urls) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String url : urls) {
+            groups.computeIfAbsent(hostOf(url), host -> new ArrayList<>()).add(url);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the host of a normalized URL.
+     *
+     * @param url the normalized URL.
+     * @return the host, with its port if not the default one, or null for a
+     * relative URL
+     */
+    public static String hostOf(final String url) {
+        int schemeEnd = schemeEnd(url);
+        if (schemeEnd < 0) {
+            return null;
+        }
+        int hostStart = schemeEnd + 3;
+        int hostEnd = hostStart;
+        while (hostEnd < url.length() && !isHostEnd(url.charAt(hostEnd))) {
+            hostEnd++;
+        }
+        return url.substring(hostStart, hostEnd);
+    }
+
+    /**
+     * @return the index of the ':' ending the scheme followed by "//", -1 if
+     * the URL does not start with a scheme.
+     */
+    private static int schemeEnd(final String url) {
+        int length = url.length();
+        for (int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                return i > 0 && url.startsWith("//", i + 1) ? i : -1;
+            }
+            boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (!letter && (i == 0 || !((c >= '0' && c <= '9')
+                    || c == '+' || c == '-' || c == '.'))) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the length of the ":port" suffix of the host when it is empty
+     * or the default port of the scheme, 0 otherwise.
+     */
+    private static int defaultPortLength(final String url, final int schemeEnd,
+                                         final int hostStart, final int hostEnd) {
+        int colon = hostEnd - 1;
+        while (colon >= hostStart && url.charAt(colon) >= '0' && url.charAt(colon) <= '9') {
+            colon--;
+        }
+        if (colon < hostStart || url.charAt(colon) != ':') {
+            return 0;
+        }
+        int portLength = hostEnd - colon - 1;
+        if (portLength == 0) {
+            return 1;
+        }
+        boolean https = schemeEnd == 5 && url.regionMatches(true, 0, "https", 0, 5);
+        boolean http = schemeEnd == 4 && url.regionMatches(true, 0, "http", 0, 4);
+        if ((https && portLength == 3 && url.startsWith("443", colon + 1))
+                || (http && portLength == 2 && url.startsWith("80", colon + 1))) {
+            return portLength + 1;
+        }
+        return 0;
+    }
+
+    private static boolean isHostEnd(final char c) {
+        return c == '/' || c == '?' || c == '#';
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static int hexValue(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static StringBuilder copy(final String value, final int end) {
+        return new StringBuilder(value.length() + 1).append(value, 0, end);
+    }
+}
@@ -0,0 +1,185 @@
+package org.htomar.akamai.retry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs purge requests under a {@link RetryPolicy} and a {@link RetryBudget}.
+ * <p>
+ * Each attempt runs the whole request again, so purge utilities sign inside
+ * the attempt and every retry carries a fresh timestamp and nonce.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeRetrier {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PurgeRetrier.class);
+
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+
+    /**
+     * One attempt of a purge request.
+     *
+     * @param <T> the result type.
+     * @param <E> the checked exception thrown by the attempt.
+     */
+    public interface Attempt<T, E extends Exception> {
+        /**
+         * Runs the attempt.
+         *
+         * @return the result.
+         * @throws E                   if the attempt fails for a non HTTP reason.
+         * @throws RestClientException if any exception occurs in making rest api call.
+         */
+        T run() throws E, RestClientException;
+    }
+
+    /**
+     * Constructor using the default {@link RetryPolicy} and the global
+     * {@link RetryBudget}.
+     */
+    public PurgeRetrier() {
+        this(new RetryPolicy(), RetryBudget.global());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param policy the retry policy.
+     * @param budget the retry budget, usually shared by all purge utilities.
+     */
+    public PurgeRetrier(final RetryPolicy policy, final RetryBudget budget) {
+        Assert.notNull(policy, "retry policy cannot be null.");
+        Assert.notNull(budget, "retry budget cannot be null.");
+        Assert.isTrue(policy.getMaxAttempts() > 0, "max attempts should be positive.");
+        this.policy = policy;
+        this.budget = budget;
+    }
+
+    /**
+     * Runs the given attempt until it succeeds, fails with a non retryable
+     * error, runs out of attempts or the budget runs out.
+     *
+     * @param attempt the attempt to run.
+     * @param <T>     the result type.
+     * @param <E>     the checked exception thrown by the attempt.
+     * @return the result of the first successful attempt.
+     * @throws E                   if an attempt fails for a non HTTP reason.
+     * @throws RestClientException the failure of the last attempt.
+     */
+    public <T, E extends Exception> T execute(final Attempt<T, E> attempt)
+            throws E, RestClientException {
+        budget.onRequest();
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return attempt.run();
+            } catch (RestClientException exception) {
+                if (attemptNumber >= policy.getMaxAttempts()
+                        || !policy.isRetryable(exception)) {
+                    throw exception;
+                }
+                long delay = policy.delayMillis(attemptNumber, exception);
+                if (delay < 0) {
+                    LOGGER.debug("Not retrying, requested delay exceeds {} ms",
+                            policy.getMaxDelayMillis());
+                    throw exception;
+                }
+                if (!budget.tryRetry()) {
+                    LOGGER.debug("Not retrying, retry budget exhausted");
+                    throw exception;
+                }
+                LOGGER.info("Purge attempt {} failed with '{}', retrying in {} ms",
+                        attemptNumber, exception.getMessage(), delay);
+                sleep(delay, exception);
+            }
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute(Attempt)}: retries are
+     * scheduled on the given scheduler instead of sleeping.
+     *
+     * @param attempt   starts one attempt and returns its future.
+     * @param scheduler the scheduler running the retries.
+     * @param <T>       the result type.
+     * @return a future completed with the result of the first successful
+     * attempt, or with the failure of the last attempt.
+     */
+    public <T> CompletableFuture<T> executeAsync(
+            final Supplier<CompletableFuture<T>> attempt,
+            final ScheduledExecutorService scheduler) {
+        budget.onRequest();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        runAsync(attempt, scheduler, 1, result);
+        return result;
+    }
+
+    private <T> void runAsync(final Supplier<CompletableFuture<T>> attempt,
+                              final ScheduledExecutorService scheduler,
+                              final int attemptNumber,
+                              final CompletableFuture<T> result) {
+        attempt.get().whenComplete((value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            if (!(cause instanceof RestClientException)
+                    || attemptNumber >= policy.getMaxAttempts()
+                    || !policy.isRetryable((RestClientException) cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            RestClientException exception = (RestClientException) cause;
+            long delay = policy.delayMillis(attemptNumber, exception);
+            if (delay < 0) {
+                LOGGER.debug("Not retrying, requested delay exceeds {} ms",
+                        policy.getMaxDelayMillis());
+                result.completeExceptionally(exception);
+                return;
+            }
+            if (!budget.tryRetry()) {
+                LOGGER.debug("Not retrying, retry budget exhausted");
+                result.completeExceptionally(exception);
+                return;
+            }
+            LOGGER.info("Purge attempt {} failed with '{}', retrying in {} ms",
+                    attemptNumber, exception.getMessage(), delay);
+            try {
+                scheduler.schedule(() -> runAsync(attempt, scheduler, attemptNumber + 1, result),
+                        delay, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException rejected) {
+                exception.addSuppressed(rejected);
+                result.completeExceptionally(exception);
+            }
+        });
+    }
+
+    private static void sleep(final long delay, final RestClientException cause) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            ResourceAccessException interrupted = new ResourceAccessException(
+                    "Interrupted while waiting to retry purge");
+            interrupted.addSuppressed(cause);
+            throw interrupted;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.htomar.akamai.retry;
+
+import org.springframework.util.Assert;
+
+/**
+ * Caps retries to a share of the traffic so that retries cannot amplify an
+ * outage.
+ * <p>
+ * Every first attempt deposits <code>ratio</code> into the budget and every
+ * retry withdraws one, so over time retries never exceed
+ * <code>ratio</code> times the number of requests. The balance starts at,
+ * and cannot grow beyond, <code>maxBalance</code>, which bounds the burst of
+ * retries allowed after a quiet period.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class RetryBudget {
+
+    /**
+     * Budget shared by all purge utilities using the default retrier.
+     */
+    private static final RetryBudget GLOBAL = new RetryBudget(0.1, 20);
+
+    private final double ratio;
+    private final double maxBalance;
+    private double balance;
+
+    /**
+     * Constructor.
+     *
+     * @param ratio      the share of requests that may be retried.
+     * @param maxBalance the largest number of retries allowed in a burst.
+     */
+    public RetryBudget(final double ratio, final double maxBalance) {
+        Assert.isTrue(ratio >= 0, "ratio cannot be negative.");
+        Assert.isTrue(maxBalance >= 1, "max balance should be at least 1.");
+        this.ratio = ratio;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    /**
+     * @return the budget shared by all purge utilities using the default retrier.
+     */
+    public static RetryBudget global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records a first attempt.
+     */
+    public synchronized void onRequest() {
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * Withdraws one retry from the budget.
+     *
+     * @return true if the retry is allowed.
+     */
+    public synchronized boolean tryRetry() {
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    /**
+     * @return the number of retries currently allowed.
+     */
+    public synchronized double getBalance() {
+        return balance;
+    }
+}
@@ -0,0 +1,119 @@
+package org.htomar.akamai.retry;
+
+import org.htomar.akamai.transport.RetryAfter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed purge requests are retried and how long to wait
+ * before the next attempt.
+ * <p>
+ * Connection failures (resets, timeouts), 429 and the transient 5xx statuses
+ * are retried. The delay is drawn with full jitter from
+ * <code>[0, min(maxDelay, baseDelay * 2^attempt)]</code>, unless the response
+ * carries a Retry-After hint, which is honoured as is. A hint longer than
+ * the max delay ends the retries.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class RetryPolicy {
+    private int maxAttempts = 3;
+    private long baseDelayMillis = 100;
+    private long maxDelayMillis = 10000;
+
+    /**
+     * Returns whether the given failure is worth another attempt.
+     *
+     * @param exception the failure.
+     * @return true if the failure is transient.
+     */
+    public boolean isRetryable(final RestClientException exception) {
+        if (exception instanceof ResourceAccessException) {
+            return true;
+        }
+        if (exception instanceof HttpStatusCodeException) {
+            HttpStatus status = ((HttpStatusCodeException) exception).getStatusCode();
+            return status == HttpStatus.TOO_MANY_REQUESTS
+                    || status == HttpStatus.INTERNAL_SERVER_ERROR
+                    || status == HttpStatus.BAD_GATEWAY
+                    || status == HttpStatus.SERVICE_UNAVAILABLE
+                    || status == HttpStatus.GATEWAY_TIMEOUT;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the delay before the next attempt.
+     *
+     * @param attempt   the number of the failed attempt, starting at 1.
+     * @param exception the failure.
+     * @return the delay in milliseconds, or -1 if the server asks for a longer wait than allowed.
+     */
+    public long delayMillis(final int attempt, final RestClientException exception) {
+        if (exception instanceof HttpStatusCodeException) {
+            long hint = RetryAfter.millis(
+                    ((HttpStatusCodeException) exception).getResponseHeaders());
+            if (hint >= 0) {
+                return hint > maxDelayMillis ? -1 : hint;
+            }
+        }
+        long ceiling = baseDelayMillis << Math.min(attempt, 30);
+        if (ceiling <= 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * @return the maximum number of attempts, including the first one
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param maxAttempts the maximum number of attempts, including the first one
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return the delay ceiling of the first retry
+     */
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    /**
+     * @param baseDelayMillis the delay ceiling of the first retry
+     */
+    public void setBaseDelayMillis(long baseDelayMillis) {
+        this.baseDelayMillis = baseDelayMillis;
+    }
+
+    /**
+     * @return the largest delay between two attempts
+     */
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @param maxDelayMillis the largest delay between two attempts
+     */
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy [maxAttempts=" + maxAttempts + ", baseDelayMillis="
+                + baseDelayMillis + ", maxDelayMillis=" + maxDelayMillis + "]";
+    }
+}
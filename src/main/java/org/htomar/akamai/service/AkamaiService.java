@@ -1,15 +1,143 @@
 package org.htomar.akamai.service;
 
+import org.htomar.akamai.breaker.PurgeCircuitBreaker;
 import org.htomar.akamai.cache.CachePurgeV2;
 import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.cache.RecentPurgeCache;
+import org.htomar.akamai.metrics.PurgeMetrics;
+import org.htomar.akamai.ratelimit.PurgeRateLimiter;
+import org.htomar.akamai.request.CPCodeRequest;
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
 import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.retry.PurgeRetrier;
 import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.PurgeType;
+import org.htomar.akamai.transport.AsyncHttpTransport;
+import org.htomar.akamai.transport.HttpTransport;
+import org.htomar.akamai.transport.PooledHttpTransport;
+import org.htomar.akamai.transport.TransportConfig;
 import org.htomar.openakamai.edge.auth.credentials.BasicCredential;
 import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
 import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+import org.springframework.util.Assert;
 import org.springframework.web.client.RestClientException;
 
-public class AkamaiService {
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for Akamai purge requests. A single instance shares one
+ * {@link HttpTransport} between the CCU v2 and v3 purge utilities and should
+ * be created once and closed on shutdown.
+ * <p>
+ * With an {@link AsyncHttpTransport}, the asynchronous CCU v3 methods send
+ * their requests without holding a thread; otherwise, like the CCU v2 ones,
+ * they run the blocking purge on the executor configured by the
+ * {@link AsyncConfig}. The threads, queue capacity and rejection policy of
+ * the {@link AsyncConfig} do not apply to purges sent over an
+ * {@link AsyncHttpTransport}, only its default timeout does: those purges
+ * are limited by the transport itself, such as by the in-flight and pending
+ * request limits of the {@link org.htomar.akamai.transport.TransportConfig}
+ * of a {@link org.htomar.akamai.transport.NioHttpTransport}.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class AkamaiService implements Closeable {
+    /**
+     * Transport shared by all purge utilities.
+     */
+    private final HttpTransport transport;
+
+    /**
+     * Whether the transport was created by this instance and must be closed with it.
+     */
+    private final boolean ownsTransport;
+
+    /**
+     * CCU v2 purge utility.
+     */
+    private final CachePurgeV2 cachePurgeV2;
+
+    /**
+     * CCU v3 purge utility.
+     */
+    private final CachePurgeV3 cachePurgeV3;
+
+    /**
+     * Settings of the executor running asynchronous purges.
+     */
+    private final AsyncConfig asyncConfig;
+
+    /**
+     * Executor running asynchronous purges, created on first use.
+     */
+    private AsyncPurgeExecutor asyncExecutor;
+
+    /**
+     * Constructor using a {@link PooledHttpTransport} with default settings.
+     */
+    public AkamaiService() {
+        this(new TransportConfig());
+    }
+
+    /**
+     * Constructor using a {@link PooledHttpTransport} with the given settings.
+     *
+     * @param transportConfig the pool and timeout settings.
+     */
+    public AkamaiService(final TransportConfig transportConfig) {
+        this(transportConfig, new AsyncConfig());
+    }
+
+    /**
+     * Constructor using a {@link PooledHttpTransport} with the given settings.
+     *
+     * @param transportConfig the pool and timeout settings.
+     * @param asyncConfig     the settings of the executor running asynchronous purges.
+     */
+    public AkamaiService(final TransportConfig transportConfig,
+                         final AsyncConfig asyncConfig) {
+        this(new PooledHttpTransport(transportConfig), true, asyncConfig);
+    }
+
+    /**
+     * Constructor using a shared transport. The transport is not closed by
+     * this instance.
+     *
+     * @param transport the transport used for purge requests.
+     */
+    public AkamaiService(final HttpTransport transport) {
+        this(transport, new AsyncConfig());
+    }
+
+    /**
+     * Constructor using a shared transport. The transport is not closed by
+     * this instance.
+     *
+     * @param transport   the transport used for purge requests.
+     * @param asyncConfig the settings of the executor running asynchronous purges.
+     */
+    public AkamaiService(final HttpTransport transport,
+                         final AsyncConfig asyncConfig) {
+        this(transport, false, asyncConfig);
+    }
+
+    private AkamaiService(final HttpTransport transport,
+                          final boolean ownsTransport,
+                          final AsyncConfig asyncConfig) {
+        Assert.notNull(transport, "transport cannot be null.");
+        Assert.notNull(asyncConfig, "async config cannot be null.");
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
+        this.asyncConfig = asyncConfig;
+        this.cachePurgeV2 = new CachePurgeV2(transport);
+        this.cachePurgeV3 = new CachePurgeV3(transport);
+    }
+
     /**
      * Akamai purge service using Akamai's new Open API mechanism.
      * This uses {@link ClientCredential} to authenticate request.
@@ -21,10 +149,9 @@ public class AkamaiService {
      * @throws RestClientException     if request fails
      * @throws RequestSigningException if request signing fails
      */
-    public PurgeResponse purgeByURL(final PurgeRequest purgeRequest,
+    public PurgeResponse purgeByURL(final PurgeRequest<String> purgeRequest,
                                     final ClientCredential credential)
             throws RestClientException, RequestSigningException {
-        CachePurgeV3 cachePurgeV3 = new CachePurgeV3();
         return cachePurgeV3.purgeByURL(purgeRequest,
                 credential,
                 credential.getBaseURL());
@@ -40,10 +167,9 @@ public class AkamaiService {
      * @throws RestClientException     if request fails
      * @throws RequestSigningException if request signing fails
      */
-    public PurgeResponse purgeByURL(final PurgeRequest purgeRequest,
+    public PurgeResponse purgeByURL(final PurgeRequest<String> purgeRequest,
                                     final BasicCredential basicCredential)
             throws RestClientException, RequestSigningException {
-        CachePurgeV2 cachePurgeV2 = new CachePurgeV2();
         return cachePurgeV2.purgeByURL(purgeRequest, basicCredential);
     }
 
@@ -58,12 +184,316 @@ public class AkamaiService {
      * @throws RestClientException     if request fails
      * @throws RequestSigningException if request signing fails
      */
-    public PurgeResponse purgeByCPCode(final PurgeRequest purgeRequest,
+    public PurgeResponse purgeByCPCode(final PurgeRequest<Integer> purgeRequest,
                                        final ClientCredential credential)
             throws RestClientException, RequestSigningException {
-        CachePurgeV3 cachePurgeV3 = new CachePurgeV3();
         return cachePurgeV3.purgeByCPCode(purgeRequest,
                 credential,
                 credential.getBaseURL());
     }
+
+    /**
+     * Akamai purge service using Akamai's new Open API mechanism.
+     * This uses {@link ClientCredential} to authenticate request.
+     * This method accepts CPCodes as primitive ints for purge request.
+     *
+     * @param cpCodeRequest the CPCode request, normalized in place
+     * @param credential    Open API credentials
+     * @return purge response
+     * @throws RestClientException     if request fails
+     * @throws RequestSigningException if request signing fails
+     */
+    public PurgeResponse purgeByCPCode(final CPCodeRequest cpCodeRequest,
+                                       final ClientCredential credential)
+            throws RestClientException, RequestSigningException {
+        return cachePurgeV3.purgeByCPCode(cpCodeRequest,
+                credential,
+                credential.getBaseURL());
+    }
+
+    /**
+     * Akamai purge service using Akamai's new Open API mechanism.
+     * This uses {@link ClientCredential} to authenticate request.
+     * This method accepts cache tags for purge request and invalidates
+     * every object tagged with them on the production network.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @return purge response
+     * @throws RestClientException     if request fails
+     * @throws RequestSigningException if request signing fails
+     */
+    public PurgeResponse purgeByTag(final PurgeRequest<String> purgeRequest,
+                                    final ClientCredential credential)
+            throws RestClientException, RequestSigningException {
+        return cachePurgeV3.purgeByTag(purgeRequest,
+                credential,
+                credential.getBaseURL());
+    }
+
+    /**
+     * Akamai purge service using Akamai's new Open API mechanism.
+     * This uses {@link ClientCredential} to authenticate request.
+     * This method accepts URLs, CPCodes or cache tags, according to the
+     * purge type, and invalidates or deletes them on the given network.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @param type         the type of the purge objects
+     * @param action       the purge action
+     * @param network      the target network
+     * @return purge response
+     * @throws RestClientException     if request fails
+     * @throws RequestSigningException if request signing fails
+     */
+    public PurgeResponse purge(final PurgeRequest<?> purgeRequest,
+                               final ClientCredential credential,
+                               final PurgeType type,
+                               final PurgeAction action,
+                               final PurgeNetwork network)
+            throws RestClientException, RequestSigningException {
+        return cachePurgeV3.purge(purgeRequest,
+                credential,
+                credential.getBaseURL(),
+                type, action, network);
+    }
+
+    /**
+     * Asynchronous variant of {@link #purgeByURL(PurgeRequest, ClientCredential)}
+     * using the default timeout of the {@link AsyncConfig}.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeByURLAsync(
+            final PurgeRequest<String> purgeRequest, final ClientCredential credential) {
+        return purgeByURLAsync(purgeRequest, credential,
+                asyncConfig.getDefaultTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Asynchronous variant of {@link #purgeByURL(PurgeRequest, ClientCredential)}.
+     * Cancelling the returned future interrupts a blocking purge.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @param timeout      the time after which the purge is cancelled, 0 for none
+     * @param unit         the unit of the timeout
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeByURLAsync(
+            final PurgeRequest<String> purgeRequest, final ClientCredential credential,
+            final long timeout, final TimeUnit unit) {
+        return purgeAsync(purgeRequest, credential, PurgeType.URL,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION, unit.toMillis(timeout));
+    }
+
+    /**
+     * Asynchronous variant of {@link #purgeByURL(PurgeRequest, BasicCredential)}
+     * using the default timeout of the {@link AsyncConfig}.
+     *
+     * @param purgeRequest    the purge request object
+     * @param basicCredential basic auth
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeByURLAsync(
+            final PurgeRequest<String> purgeRequest, final BasicCredential basicCredential) {
+        return purgeByURLAsync(purgeRequest, basicCredential,
+                asyncConfig.getDefaultTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Asynchronous variant of {@link #purgeByURL(PurgeRequest, BasicCredential)}.
+     * Cancelling the returned future interrupts the purge.
+     *
+     * @param purgeRequest    the purge request object
+     * @param basicCredential basic auth
+     * @param timeout         the time after which the purge is cancelled, 0 for none
+     * @param unit            the unit of the timeout
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeByURLAsync(
+            final PurgeRequest<String> purgeRequest, final BasicCredential basicCredential,
+            final long timeout, final TimeUnit unit) {
+        return getAsyncExecutor().submit(
+                () -> purgeByURL(purgeRequest, basicCredential), unit.toMillis(timeout));
+    }
+
+    /**
+     * Asynchronous variant of {@link #purgeByCPCode(PurgeRequest, ClientCredential)}
+     * using the default timeout of the {@link AsyncConfig}.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeByCPCodeAsync(
+            final PurgeRequest<Integer> purgeRequest, final ClientCredential credential) {
+        return purgeByCPCodeAsync(purgeRequest, credential,
+                asyncConfig.getDefaultTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Asynchronous variant of {@link #purgeByCPCode(PurgeRequest, ClientCredential)}.
+     * Cancelling the returned future interrupts a blocking purge.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @param timeout      the time after which the purge is cancelled, 0 for none
+     * @param unit         the unit of the timeout
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeByCPCodeAsync(
+            final PurgeRequest<Integer> purgeRequest, final ClientCredential credential,
+            final long timeout, final TimeUnit unit) {
+        return purgeAsync(purgeRequest, credential, PurgeType.CPCODE,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION, unit.toMillis(timeout));
+    }
+
+    /**
+     * Asynchronous variant of {@link #purgeByTag(PurgeRequest, ClientCredential)}
+     * using the default timeout of the {@link AsyncConfig}.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeByTagAsync(
+            final PurgeRequest<String> purgeRequest, final ClientCredential credential) {
+        return purgeAsync(purgeRequest, credential, PurgeType.TAG,
+                PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #purge(PurgeRequest, ClientCredential, PurgeType, PurgeAction, PurgeNetwork)}
+     * using the default timeout of the {@link AsyncConfig}.
+     *
+     * @param purgeRequest the purge request object
+     * @param credential   Open API credentials
+     * @param type         the type of the purge objects
+     * @param action       the purge action
+     * @param network      the target network
+     * @return a future completed with the purge response
+     */
+    public CompletableFuture<PurgeResponse> purgeAsync(
+            final PurgeRequest<?> purgeRequest, final ClientCredential credential,
+            final PurgeType type, final PurgeAction action, final PurgeNetwork network) {
+        return purgeAsync(purgeRequest, credential, type, action, network,
+                asyncConfig.getDefaultTimeoutMillis());
+    }
+
+    private CompletableFuture<PurgeResponse> purgeAsync(
+            final PurgeRequest<?> purgeRequest, final ClientCredential credential,
+            final PurgeType type, final PurgeAction action, final PurgeNetwork network,
+            final long timeoutMillis) {
+        if (!(transport instanceof AsyncHttpTransport)) {
+            return getAsyncExecutor().submit(
+                    () -> purge(purgeRequest, credential, type, action, network),
+                    timeoutMillis);
+        }
+        // limited by the transport, not by the queue of the async executor
+        CompletableFuture<PurgeResponse> purge;
+        try {
+            purge = cachePurgeV3.purgeAsync(purgeRequest, credential,
+                    credential.getBaseURL(), type, action, network);
+        } catch (RuntimeException exception) {
+            purge = new CompletableFuture<>();
+            purge.completeExceptionally(exception);
+        }
+        return getAsyncExecutor().withTimeout(purge, timeoutMillis);
+    }
+
+    /**
+     * Sets the client-side rate limiter applied to CCU v3 purge requests.
+     *
+     * @param rateLimiter the rate limiter, null for none
+     */
+    public void setRateLimiter(final PurgeRateLimiter rateLimiter) {
+        cachePurgeV3.setRateLimiter(rateLimiter);
+    }
+
+    /**
+     * Sets the circuit breaker applied to CCU v3 purge requests.
+     *
+     * @param circuitBreaker the circuit breaker, null for none
+     */
+    public void setCircuitBreaker(final PurgeCircuitBreaker circuitBreaker) {
+        cachePurgeV3.setCircuitBreaker(circuitBreaker);
+    }
+
+    /**
+     * Sets the cache suppressing repeated CCU v3 purges of the same objects.
+     *
+     * @param recentPurgeCache the cache, null for none
+     */
+    public void setRecentPurgeCache(final RecentPurgeCache recentPurgeCache) {
+        cachePurgeV3.setRecentPurgeCache(recentPurgeCache);
+    }
+
+    /**
+     * Sets the metrics recording the CCU v2 and v3 purge stages.
+     *
+     * @param metrics the metrics, cannot be null.
+     */
+    public void setMetrics(final PurgeMetrics metrics) {
+        cachePurgeV2.setMetrics(metrics);
+        cachePurgeV3.setMetrics(metrics);
+    }
+
+    /**
+     * Sets the retrier of failed CCU v2 and v3 purge requests.
+     *
+     * @param retrier the retrier, null to disable retries
+     */
+    public void setRetrier(final PurgeRetrier retrier) {
+        cachePurgeV2.setRetrier(retrier);
+        cachePurgeV3.setRetrier(retrier);
+    }
+
+    /**
+     * Warms the CCU v3 purge path: signs a sample request with each
+     * credential and reads a sample response, without sending anything.
+     *
+     * @param credentials the credentials used for purges, may be empty.
+     * @throws RequestSigningException if the sample request cannot be signed.
+     * @see CachePurgeV3#warmUp(Collection)
+     */
+    public void warmUp(final Collection<? extends ClientCredential> credentials)
+            throws RequestSigningException {
+        cachePurgeV3.warmUp(credentials);
+    }
+
+    /**
+     * @return the transport shared by all purge utilities
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    private synchronized AsyncPurgeExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = new AsyncPurgeExecutor(asyncConfig);
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Stops the asynchronous purge executor and the purge utilities, and
+     * closes the transport if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (asyncExecutor != null) {
+                asyncExecutor.close();
+            }
+        }
+        cachePurgeV2.close();
+        cachePurgeV3.close();
+        if (ownsTransport) {
+            transport.close();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package org.htomar.akamai.service;
+
+/**
+ * Settings of the bounded executor running asynchronous purge requests of
+ * {@link AkamaiService}. Only the default timeout applies to the CCU v3
+ * purges sent over an {@link org.htomar.akamai.transport.AsyncHttpTransport},
+ * which do not run on the executor.
+ *
+ * @author Himanshu Tomar
+ */
+public class AsyncConfig {
+
+    /**
+     * What happens to a purge submitted while all threads are busy and the
+     * queue is full.
+     */
+    public enum RejectionPolicy {
+        /**
+         * The returned future completes exceptionally with a
+         * {@link java.util.concurrent.RejectedExecutionException}.
+         */
+        FAIL,
+        /**
+         * The purge runs on the submitting thread.
+         */
+        CALLER_RUNS,
+        /**
+         * The oldest queued purge is cancelled to make room.
+         */
+        DISCARD_OLDEST
+    }
+
+    private int threads = 8;
+    private int queueCapacity = 1000;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL;
+    private long defaultTimeoutMillis;
+
+    /**
+     * @return the number of threads running purges
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads running purges
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the maximum number of purges waiting for a thread
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @param queueCapacity the maximum number of purges waiting for a thread
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return the policy applied when the queue is full
+     */
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    /**
+     * @param rejectionPolicy the policy applied when the queue is full
+     */
+    public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    /**
+     * @return the timeout in milliseconds applied when none is given, 0 for none
+     */
+    public long getDefaultTimeoutMillis() {
+        return defaultTimeoutMillis;
+    }
+
+    /**
+     * @param defaultTimeoutMillis the timeout in milliseconds applied when none is given, 0 for none
+     */
+    public void setDefaultTimeoutMillis(long defaultTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncConfig [threads=" + threads + ", queueCapacity="
+                + queueCapacity + ", rejectionPolicy=" + rejectionPolicy
+                + ", defaultTimeoutMillis=" + defaultTimeoutMillis + "]";
+    }
+}
@@ -0,0 +1,205 @@
+package org.htomar.akamai.service;
+
+import org.htomar.akamai.request.PurgeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor running purge requests for the asynchronous methods of
+ * {@link AkamaiService}, and timer of the purges that run without one of
+ * its threads.
+ * <p>
+ * Cancelling a returned future interrupts the running purge, and a purge
+ * that does not complete within its timeout is cancelled and its future
+ * completed with a {@link TimeoutException}.
+ *
+ * @author Himanshu Tomar
+ */
+final class AsyncPurgeExecutor implements Closeable {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(AsyncPurgeExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Constructor.
+     *
+     * @param config the executor settings.
+     */
+    AsyncPurgeExecutor(final AsyncConfig config) {
+        Assert.isTrue(config.getThreads() > 0, "threads should be positive.");
+        Assert.isTrue(config.getQueueCapacity() > 0,
+                "queue capacity should be positive.");
+        Assert.notNull(config.getRejectionPolicy(),
+                "rejection policy cannot be null.");
+        this.executor = new ThreadPoolExecutor(config.getThreads(),
+                config.getThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                threadFactory("akamai-purge-async"),
+                rejectionHandler(config.getRejectionPolicy()));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                threadFactory("akamai-purge-timeout"));
+        LOGGER.debug("Created async purge executor with {}", config);
+    }
+
+    /**
+     * Submits the given purge.
+     *
+     * @param purge         the purge to run.
+     * @param timeoutMillis the timeout in milliseconds, 0 for none.
+     * @return a future completed with the purge response.
+     */
+    CompletableFuture<PurgeResponse> submit(final Callable<PurgeResponse> purge,
+                                            final long timeoutMillis) {
+        PurgeTask task = new PurgeTask(purge);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            task.result.completeExceptionally(rejectedExecutionException);
+            return task.result;
+        }
+        if (timeoutMillis > 0 && !task.result.isDone()) {
+            ScheduledFuture<?> timeout = timer.schedule(() -> {
+                if (task.result.completeExceptionally(new TimeoutException(
+                        "Purge did not complete within " + timeoutMillis + " ms"))) {
+                    task.cancel(true);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            task.result.whenComplete((response, throwable) -> timeout.cancel(false));
+        }
+        return task.result;
+    }
+
+    /**
+     * Applies a timeout to a purge that is already running without a thread
+     * of this executor. Requests already sent are not aborted by the timeout.
+     *
+     * @param purge         the future of the running purge.
+     * @param timeoutMillis the timeout in milliseconds, 0 for none.
+     * @return a future completed with the purge response.
+     */
+    CompletableFuture<PurgeResponse> withTimeout(final CompletableFuture<PurgeResponse> purge,
+                                                 final long timeoutMillis) {
+        CompletableFuture<PurgeResponse> result = new CompletableFuture<PurgeResponse>() {
+            @Override
+            public boolean cancel(final boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                purge.cancel(mayInterruptIfRunning);
+                return cancelled;
+            }
+        };
+        purge.whenComplete((response, failure) -> {
+            if (failure == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(failure instanceof CompletionException
+                        && failure.getCause() != null ? failure.getCause() : failure);
+            }
+        });
+        if (timeoutMillis > 0 && !result.isDone()) {
+            ScheduledFuture<?> timeout = timer.schedule(() -> result.completeExceptionally(
+                    new TimeoutException("Purge did not complete within "
+                            + timeoutMillis + " ms")),
+                    timeoutMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((response, throwable) -> timeout.cancel(false));
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        timer.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(
+            final AsyncConfig.RejectionPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD_OLDEST:
+                return (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("executor is shut down");
+                    }
+                    Runnable oldest = pool.getQueue().poll();
+                    if (oldest instanceof Future) {
+                        ((Future<?>) oldest).cancel(false);
+                    }
+                    pool.execute(runnable);
+                };
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+
+    /**
+     * Task completing its {@link CompletableFuture} when done, and cancelled
+     * together with it.
+     */
+    private static final class PurgeTask extends FutureTask<PurgeResponse> {
+        private final CompletableFuture<PurgeResponse> result =
+                new CompletableFuture<PurgeResponse>() {
+                    @Override
+                    public boolean cancel(final boolean mayInterruptIfRunning) {
+                        boolean cancelled = super.cancel(mayInterruptIfRunning);
+                        PurgeTask.this.cancel(true);
+                        return cancelled;
+                    }
+                };
+
+        private PurgeTask(final Callable<PurgeResponse> purge) {
+            super(purge);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                result.complete(get());
+            } catch (ExecutionException executionException) {
+                result.completeExceptionally(executionException.getCause());
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(interruptedException);
+            }
+        }
+    }
+}
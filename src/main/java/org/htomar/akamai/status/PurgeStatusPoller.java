@@ -0,0 +1,318 @@
+package org.htomar.akamai.status;
+
+import org.htomar.akamai.request.CompositePurgeResponse;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.PurgeStatus;
+import org.htomar.akamai.transport.HttpTransport;
+import org.htomar.akamai.transport.PooledHttpTransport;
+import org.htomar.akamai.transport.RetryAfter;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+import org.htomar.openakamai.edge.auth.signer.EdgeGridV1Signer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks submitted purges until they have propagated.
+ * <p>
+ * Each tracked purge is checked through its progress URI with a signed GET
+ * over the shared transport, no sooner than the {@code pingAfterSeconds}
+ * hint of the last response. Pending checks wait on a {@link TimerWheel}, so
+ * tens of thousands of purges in flight cost one small object each and a
+ * single timer thread; the checks themselves run on a small pool. The future
+ * returned for a purge completes with its final {@link PurgeStatus}, or
+ * exceptionally if the purge is unknown, the check is rejected, or it is
+ * still in progress after the maximum tracking time.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeStatusPoller implements Closeable {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PurgeStatusPoller.class);
+
+    private final EdgeGridV1Signer signer = new EdgeGridV1Signer();
+    private final HttpTransport transport;
+    private final boolean ownsTransport;
+    private final StatusPollerConfig config;
+    private final TimerWheel<TrackedPurge> timerWheel;
+    private final ExecutorService pollExecutor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Constructor creating a private {@link PooledHttpTransport} which is
+     * released by {@link #close()}.
+     */
+    public PurgeStatusPoller() {
+        this(new PooledHttpTransport(), true, new StatusPollerConfig());
+    }
+
+    /**
+     * Constructor using a shared transport. The transport is not closed by
+     * this instance.
+     *
+     * @param transport the transport used for status checks.
+     */
+    public PurgeStatusPoller(final HttpTransport transport) {
+        this(transport, new StatusPollerConfig());
+    }
+
+    /**
+     * Constructor using a shared transport. The transport is not closed by
+     * this instance.
+     *
+     * @param transport the transport used for status checks.
+     * @param config    the poller settings.
+     */
+    public PurgeStatusPoller(final HttpTransport transport,
+                             final StatusPollerConfig config) {
+        this(transport, false, config);
+    }
+
+    private PurgeStatusPoller(final HttpTransport transport,
+                              final boolean ownsTransport,
+                              final StatusPollerConfig config) {
+        Assert.notNull(transport, "transport cannot be null.");
+        Assert.notNull(config, "poller config cannot be null.");
+        Assert.isTrue(config.getPollThreads() > 0, "poll threads should be positive.");
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
+        this.config = config;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pollExecutor = Executors.newFixedThreadPool(config.getPollThreads(),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "akamai-purge-status-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timerWheel = new TimerWheel<>("akamai-purge-status-timer",
+                config.getTickMillis(), config.getWheelSize(), this::dispatch);
+    }
+
+    /**
+     * Tracks a purge accepted by the given credential's host.
+     *
+     * @param purgeResponse the response of the accepted purge request.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @return a future completing with the final status of the purge.
+     */
+    public CompletableFuture<PurgeStatus> track(final PurgeResponse purgeResponse,
+                                                final ClientCredential credential) {
+        Assert.notNull(credential, "credential cannot be null.");
+        return track(purgeResponse, credential, credential.getBaseURL());
+    }
+
+    /**
+     * Tracks a purge.
+     *
+     * @param purgeResponse the response of the accepted purge request, with
+     *                      a progress URI.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @return a future completing with the final status of the purge.
+     */
+    public CompletableFuture<PurgeStatus> track(final PurgeResponse purgeResponse,
+                                                final ClientCredential credential,
+                                                final String hostName) {
+        Assert.notNull(purgeResponse, "purge response cannot be null.");
+        Assert.notNull(credential, "credential cannot be null.");
+        Assert.hasText(hostName, "hostname cannot be null.");
+        Assert.hasText(purgeResponse.getProgressUri(),
+                "purge response has no progress uri.");
+        Assert.state(!closed, "status poller is closed.");
+        TrackedPurge trackedPurge = new TrackedPurge(credential, hostName,
+                purgeResponse.getProgressUri(),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxTrackMillis()));
+        inFlight.incrementAndGet();
+        trackedPurge.future.whenComplete((status, failure) -> inFlight.decrementAndGet());
+        timerWheel.schedule(trackedPurge, pingMillis(purgeResponse.getPingAfterSeconds()));
+        return trackedPurge.future;
+    }
+
+    /**
+     * Tracks every purge of a possibly split request.
+     *
+     * @param purgeResponse the response of the accepted purge request, a
+     *                      {@link CompositePurgeResponse} for split requests.
+     * @param credential    credentials to be used for open Akamai authentication.
+     * @param hostName      the request base host name.
+     * @return a future completing with the final status of every purge.
+     */
+    public CompletableFuture<List<PurgeStatus>> trackAll(final PurgeResponse purgeResponse,
+                                                         final ClientCredential credential,
+                                                         final String hostName) {
+        if (!(purgeResponse instanceof CompositePurgeResponse)) {
+            return track(purgeResponse, credential, hostName)
+                    .thenApply(Collections::singletonList);
+        }
+        List<CompletableFuture<PurgeStatus>> futures = new ArrayList<>();
+        for (PurgeResponse part : ((CompositePurgeResponse) purgeResponse).getResponses()) {
+            futures.add(track(part, credential, hostName));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<PurgeStatus> statuses = new ArrayList<>(futures.size());
+                    futures.forEach(future -> statuses.add(future.join()));
+                    return statuses;
+                });
+    }
+
+    /**
+     * @return the number of purges being tracked
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Hands an expired timer over to the poll threads. Runs on the timer thread.
+     */
+    private void dispatch(final TrackedPurge trackedPurge) {
+        if (trackedPurge.future.isDone()) {
+            return;
+        }
+        pollExecutor.execute(trackedPurge);
+    }
+
+    private void poll(final TrackedPurge trackedPurge) {
+        if (trackedPurge.future.isDone()) {
+            return;
+        }
+        long delayMillis;
+        try {
+            HttpEntity<?> entity = new HttpEntity<>(signer.signGet(
+                    trackedPurge.credential, trackedPurge.hostName,
+                    trackedPurge.progressUri));
+            PurgeStatus status = transport.exchange(
+                    trackedPurge.hostName + trackedPurge.progressUri,
+                    HttpMethod.GET,
+                    entity,
+                    PurgeStatus.class).getBody();
+            if (status != null && status.isDone()) {
+                LOGGER.debug("Purge done: {}", status);
+                trackedPurge.future.complete(status);
+                return;
+            }
+            LOGGER.trace("Purge in progress: {}", status);
+            delayMillis = pingMillis(status == null ? null : status.getPingAfterSeconds());
+        } catch (HttpStatusCodeException statusCodeException) {
+            HttpStatus statusCode = statusCodeException.getStatusCode();
+            if (statusCode.is4xxClientError()
+                    && statusCode != HttpStatus.TOO_MANY_REQUESTS) {
+                trackedPurge.future.completeExceptionally(statusCodeException);
+                return;
+            }
+            long retryAfter = RetryAfter.millis(statusCodeException.getResponseHeaders());
+            delayMillis = retryAfter < 0 ? config.getErrorRetryMillis() : retryAfter;
+            LOGGER.warn("Purge status check of {} failed with {}, retrying in {} ms",
+                    trackedPurge.progressUri, statusCode, delayMillis);
+        } catch (RestClientException restClientException) {
+            delayMillis = config.getErrorRetryMillis();
+            LOGGER.warn("Purge status check of {} failed, retrying in {} ms",
+                    trackedPurge.progressUri, delayMillis, restClientException);
+        } catch (RequestSigningException | RuntimeException exception) {
+            trackedPurge.future.completeExceptionally(exception);
+            return;
+        }
+        reschedule(trackedPurge, delayMillis);
+    }
+
+    private void reschedule(final TrackedPurge trackedPurge, final long delayMillis) {
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)
+                - trackedPurge.deadline > 0) {
+            trackedPurge.future.completeExceptionally(new TimeoutException(
+                    "Purge " + trackedPurge.progressUri + " still in progress after "
+                            + config.getMaxTrackMillis() + " ms"));
+            return;
+        }
+        try {
+            timerWheel.schedule(trackedPurge, delayMillis);
+        } catch (IllegalStateException stoppedException) {
+            trackedPurge.future.cancel(false);
+        }
+    }
+
+    /**
+     * Converts the server's ping hint into a delay within the configured bounds.
+     */
+    private long pingMillis(final String pingAfterSeconds) {
+        long millis = config.getDefaultPingMillis();
+        if (StringUtils.hasText(pingAfterSeconds)) {
+            try {
+                millis = Long.parseLong(pingAfterSeconds.trim()) * 1000;
+            } catch (NumberFormatException numberFormatException) {
+                LOGGER.debug("Ignoring invalid ping hint {}", pingAfterSeconds);
+            }
+        }
+        return Math.min(config.getMaxPingMillis(),
+                Math.max(config.getMinPingMillis(), millis));
+    }
+
+    /**
+     * Stops tracking. Futures of purges still in progress are cancelled, and
+     * the transport is closed if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        List<TrackedPurge> pending = timerWheel.stop();
+        for (Runnable queued : pollExecutor.shutdownNow()) {
+            pending.add((TrackedPurge) queued);
+        }
+        for (TrackedPurge trackedPurge : pending) {
+            trackedPurge.future.cancel(false);
+        }
+        if (ownsTransport) {
+            transport.close();
+        }
+    }
+
+    /**
+     * A purge being tracked, run as its next status check.
+     */
+    private final class TrackedPurge implements Runnable {
+        private final ClientCredential credential;
+        private final String hostName;
+        private final String progressUri;
+        private final long deadline;
+        private final CompletableFuture<PurgeStatus> future = new CompletableFuture<>();
+
+        private TrackedPurge(final ClientCredential credential,
+                             final String hostName,
+                             final String progressUri,
+                             final long deadline) {
+            this.credential = credential;
+            this.hostName = hostName;
+            this.progressUri = progressUri;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            poll(this);
+        }
+    }
+}
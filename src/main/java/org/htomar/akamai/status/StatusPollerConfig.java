@@ -0,0 +1,139 @@
+package org.htomar.akamai.status;
+
+/**
+ * Settings of {@link PurgeStatusPoller}. All durations are in milliseconds.
+ *
+ * @author Himanshu Tomar
+ */
+public class StatusPollerConfig {
+    private int tickMillis = 100;
+    private int wheelSize = 512;
+    private int pollThreads = 4;
+    private long defaultPingMillis = 60000;
+    private long minPingMillis = 1000;
+    private long maxPingMillis = 600000;
+    private long errorRetryMillis = 10000;
+    private long maxTrackMillis = 7200000;
+
+    /**
+     * @return the duration of a timer wheel tick
+     */
+    public int getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * @param tickMillis the duration of a timer wheel tick
+     */
+    public void setTickMillis(int tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * @return the number of timer wheel slots, a power of two
+     */
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    /**
+     * @param wheelSize the number of timer wheel slots, a power of two
+     */
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    /**
+     * @return the number of threads checking purge status
+     */
+    public int getPollThreads() {
+        return pollThreads;
+    }
+
+    /**
+     * @param pollThreads the number of threads checking purge status
+     */
+    public void setPollThreads(int pollThreads) {
+        this.pollThreads = pollThreads;
+    }
+
+    /**
+     * @return the delay before a check when the server gives no hint
+     */
+    public long getDefaultPingMillis() {
+        return defaultPingMillis;
+    }
+
+    /**
+     * @param defaultPingMillis the delay before a check when the server gives no hint
+     */
+    public void setDefaultPingMillis(long defaultPingMillis) {
+        this.defaultPingMillis = defaultPingMillis;
+    }
+
+    /**
+     * @return the shortest delay between two checks of a purge
+     */
+    public long getMinPingMillis() {
+        return minPingMillis;
+    }
+
+    /**
+     * @param minPingMillis the shortest delay between two checks of a purge
+     */
+    public void setMinPingMillis(long minPingMillis) {
+        this.minPingMillis = minPingMillis;
+    }
+
+    /**
+     * @return the longest delay between two checks of a purge
+     */
+    public long getMaxPingMillis() {
+        return maxPingMillis;
+    }
+
+    /**
+     * @param maxPingMillis the longest delay between two checks of a purge
+     */
+    public void setMaxPingMillis(long maxPingMillis) {
+        this.maxPingMillis = maxPingMillis;
+    }
+
+    /**
+     * @return the delay before checking again after a failed check
+     */
+    public long getErrorRetryMillis() {
+        return errorRetryMillis;
+    }
+
+    /**
+     * @param errorRetryMillis the delay before checking again after a failed check
+     */
+    public void setErrorRetryMillis(long errorRetryMillis) {
+        this.errorRetryMillis = errorRetryMillis;
+    }
+
+    /**
+     * @return the time after which a purge still in progress is given up
+     */
+    public long getMaxTrackMillis() {
+        return maxTrackMillis;
+    }
+
+    /**
+     * @param maxTrackMillis the time after which a purge still in progress is given up
+     */
+    public void setMaxTrackMillis(long maxTrackMillis) {
+        this.maxTrackMillis = maxTrackMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusPollerConfig [tickMillis=" + tickMillis + ", wheelSize="
+                + wheelSize + ", pollThreads=" + pollThreads
+                + ", defaultPingMillis=" + defaultPingMillis + ", minPingMillis="
+                + minPingMillis + ", maxPingMillis=" + maxPingMillis
+                + ", errorRetryMillis=" + errorRetryMillis + ", maxTrackMillis="
+                + maxTrackMillis + "]";
+    }
+}
@@ -0,0 +1,182 @@
+package org.htomar.akamai.status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel handing tasks to a consumer once their delay has passed.
+ * <p>
+ * Scheduling only appends to a lock-free queue; a single thread moves new
+ * tasks into the wheel slots and walks one slot per tick. Scheduling and
+ * expiring a task therefore cost the same whatever the number of pending
+ * tasks, and a task fires at most one tick late. The consumer runs on the
+ * wheel thread and should only hand the task over.
+ * </p>
+ *
+ * @param <T> the task type.
+ * @author Himanshu Tomar
+ */
+final class TimerWheel<T> {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(TimerWheel.class);
+
+    private final long tickNanos;
+    private final Slot<T>[] wheel;
+    private final int mask;
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final Consumer<T> onExpiry;
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * Constructor. Starts the wheel thread right away.
+     *
+     * @param threadName the name of the wheel thread.
+     * @param tickMillis the duration of a tick.
+     * @param wheelSize  the number of slots, a power of two.
+     * @param onExpiry   receives the tasks whose delay has passed.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(final String threadName, final long tickMillis,
+               final int wheelSize, final Consumer<T> onExpiry) {
+        Assert.isTrue(tickMillis > 0, "tick should be positive.");
+        Assert.isTrue(wheelSize > 0 && Integer.bitCount(wheelSize) == 1,
+                "wheel size should be a power of two.");
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new Slot[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Slot<>();
+        }
+        this.mask = wheelSize - 1;
+        this.onExpiry = onExpiry;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task        the task.
+     * @param delayMillis the delay after which the task is handed to the consumer.
+     */
+    void schedule(final T task, final long delayMillis) {
+        Assert.state(running, "timer wheel is stopped.");
+        scheduled.add(new Timeout<>(task, System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis))));
+    }
+
+    /**
+     * Stops the wheel thread.
+     *
+     * @return the tasks that had not expired yet.
+     */
+    List<T> stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        List<T> pending = new ArrayList<>();
+        for (Slot<T> slot : wheel) {
+            for (Timeout<T> timeout = slot.head; timeout != null; timeout = timeout.next) {
+                pending.add(timeout.task);
+            }
+            slot.head = null;
+        }
+        for (Timeout<T> timeout; (timeout = scheduled.poll()) != null; ) {
+            pending.add(timeout.task);
+        }
+        return pending;
+    }
+
+    private void run() {
+        while (running) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException interruptedException) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+            transferScheduled();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferScheduled() {
+        for (Timeout<T> timeout; (timeout = scheduled.poll()) != null; ) {
+            long ticks = (timeout.deadline - startNanos + tickNanos - 1) / tickNanos;
+            timeout.rounds = (ticks - tick) / wheel.length;
+            Slot<T> slot = wheel[(int) (Math.max(ticks, tick) & mask)];
+            timeout.next = slot.head;
+            slot.head = timeout;
+        }
+    }
+
+    private void expire(final Slot<T> slot) {
+        Timeout<T> previous = null;
+        Timeout<T> timeout = slot.head;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.rounds <= 0) {
+                if (previous == null) {
+                    slot.head = next;
+                } else {
+                    previous.next = next;
+                }
+                try {
+                    onExpiry.accept(timeout.task);
+                } catch (RuntimeException runtimeException) {
+                    LOGGER.error("Timer task failed", runtimeException);
+                }
+            } else {
+                timeout.rounds--;
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Head of the tasks of one slot, only touched by the wheel thread.
+     */
+    private static final class Slot<T> {
+        private Timeout<T> head;
+    }
+
+    /**
+     * A scheduled task, linked into its slot.
+     */
+    private static final class Timeout<T> {
+        private final T task;
+        private final long deadline;
+        private long rounds;
+        private Timeout<T> next;
+
+        private Timeout(final T task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.htomar.akamai.transport;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link HttpTransport} that can also send requests without blocking the
+ * calling thread until the response arrives.
+ *
+ * @author Himanshu Tomar
+ */
+public interface AsyncHttpTransport extends HttpTransport {
+
+    /**
+     * Sends a request and completes the returned future with its response.
+     * The caller should not be held back: requests beyond the transport's
+     * concurrency limit are queued.
+     *
+     * @param url          the absolute request URL.
+     * @param method       the HTTP method.
+     * @param entity       the headers and body of the request.
+     * @param responseType the type the response body is read as.
+     * @param <T>          the response body type.
+     * @return a future completed with the response, or with a
+     * {@link org.springframework.web.client.RestClientException} on failure.
+     */
+    <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(String url,
+                                                          HttpMethod method,
+                                                          HttpEntity<?> entity,
+                                                          Class<T> responseType);
+}
@@ -0,0 +1,51 @@
+package org.htomar.akamai.transport;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import java.io.Closeable;
+
+/**
+ * Interface describing the HTTP transport shared by the purge utilities.
+ * <p>
+ * A transport is expected to be created once, shared by every purge
+ * utility talking to Akamai, and closed on shutdown so that pooled
+ * connections are released.
+ *
+ * @author Himanshu Tomar
+ */
+public interface HttpTransport extends Closeable {
+
+    /**
+     * Executes the given request and returns the response.
+     *
+     * @param url          the absolute request URL.
+     * @param method       the HTTP method.
+     * @param entity       the request entity (body and headers).
+     * @param responseType the type of the response body.
+     * @param <T>          the response body type.
+     * @return the response entity.
+     * @throws RestClientException if any exception occurs in making rest api call.
+     */
+    <T> ResponseEntity<T> exchange(String url, HttpMethod method,
+                                   HttpEntity<?> entity, Class<T> responseType)
+            throws RestClientException;
+
+    /**
+     * Prepares the transport for its first responses, such as by creating
+     * the deserializers of the given response type. Does nothing by default.
+     *
+     * @param responseType the type of the response bodies.
+     * @param sample       a sample JSON body of that type.
+     */
+    default void warmUp(final Class<?> responseType, final byte[] sample) {
+    }
+
+    /**
+     * Releases all resources held by the transport.
+     */
+    @Override
+    void close();
+}
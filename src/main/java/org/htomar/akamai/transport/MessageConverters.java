@@ -0,0 +1,74 @@
+package org.htomar.akamai.transport;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Warm-up of the message converters of a transport.
+ *
+ * @author Himanshu Tomar
+ */
+final class MessageConverters {
+
+    private MessageConverters() {
+    }
+
+    /**
+     * Reads a sample JSON body with the first converter able to read the
+     * given type, so that its deserializers are created before the first
+     * response arrives.
+     *
+     * @param converters   the converters of the transport.
+     * @param responseType the type of the response bodies.
+     * @param sample       a sample JSON body of that type.
+     * @throws HttpMessageNotReadableException if the sample cannot be read.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void warmUp(final List<HttpMessageConverter<?>> converters,
+                       final Class<?> responseType,
+                       final byte[] sample) {
+        for (HttpMessageConverter converter : converters) {
+            if (converter.canRead(responseType, MediaType.APPLICATION_JSON)) {
+                try {
+                    converter.read(responseType, new SampleMessage(sample));
+                } catch (IOException ioException) {
+                    throw new HttpMessageNotReadableException(
+                            "Could not read sample " + responseType.getSimpleName(), ioException);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * JSON message holding a sample body.
+     */
+    private static final class SampleMessage implements HttpInputMessage {
+        private final byte[] body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private SampleMessage(final byte[] body) {
+            this.body = body;
+            this.headers.setContentType(MediaType.APPLICATION_JSON);
+            this.headers.setContentLength(body.length);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
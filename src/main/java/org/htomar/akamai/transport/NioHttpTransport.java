@@ -0,0 +1,315 @@
+package org.htomar.akamai.transport;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@inheritDoc}
+ * Non-blocking implementation of the {@link AsyncHttpTransport} backed by an
+ * {@link AsyncRestTemplate} over the Apache NIO client. A few I/O threads
+ * multiplex every in-flight request over pooled keep-alive connections, so
+ * hundreds of concurrent purges do not need a thread each.
+ * <p>
+ * At most {@link TransportConfig#getMaxInFlightRequests()} requests are in
+ * flight. Beyond that, up to {@link TransportConfig#getMaxPendingRequests()}
+ * requests are queued without holding the caller and sent in order as slots
+ * free up; further requests fail at once with a
+ * {@link ResourceAccessException}. A request still queued after
+ * {@link TransportConfig#getPoolAcquireTimeout()} fails with a
+ * {@link ResourceAccessException} at that deadline, without being sent.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class NioHttpTransport implements AsyncHttpTransport {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(NioHttpTransport.class);
+
+    /**
+     * Factory owning the NIO client, closed together with the transport.
+     */
+    private final HttpComponentsAsyncClientHttpRequestFactory requestFactory;
+
+    /**
+     * Rest template sending requests over the NIO client.
+     */
+    private final AsyncRestTemplate asyncRestTemplate;
+
+    /**
+     * Slots of in-flight requests.
+     */
+    private final Semaphore inFlight;
+
+    /**
+     * Requests waiting for a slot, in order of arrival.
+     */
+    private final BlockingQueue<PendingRequest> pending;
+
+    /**
+     * Timer failing the requests still waiting for a slot at their deadline.
+     */
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final int maxInFlightRequests;
+    private final int maxPendingRequests;
+    private final long acquireTimeoutNanos;
+
+    /**
+     * Constructor using the default {@link TransportConfig}.
+     */
+    public NioHttpTransport() {
+        this(new TransportConfig());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config the pool, concurrency and timeout settings, cannot be null.
+     */
+    public NioHttpTransport(final TransportConfig config) {
+        Assert.notNull(config, "transport config cannot be null.");
+        Assert.isTrue(config.getMaxInFlightRequests() > 0,
+                "max in-flight requests should be positive.");
+        Assert.isTrue(config.getMaxPendingRequests() > 0,
+                "max pending requests should be positive.");
+        Assert.isTrue(config.getIoThreads() > 0, "I/O threads should be positive.");
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getReadTimeout())
+                .setConnectionRequestTimeout(config.getPoolAcquireTimeout())
+                .build();
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(config.getIoThreads())
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSoKeepAlive(true)
+                .build();
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setMaxConnPerRoute(config.getMaxConnectionsPerHost())
+                .setMaxConnTotal(config.getMaxConnectionsTotal())
+                .setDefaultRequestConfig(requestConfig)
+                .setDefaultIOReactorConfig(ioReactorConfig)
+                .build();
+        this.requestFactory = new HttpComponentsAsyncClientHttpRequestFactory(httpAsyncClient);
+        this.asyncRestTemplate = new AsyncRestTemplate(requestFactory);
+        this.maxInFlightRequests = config.getMaxInFlightRequests();
+        this.inFlight = new Semaphore(maxInFlightRequests);
+        this.maxPendingRequests = config.getMaxPendingRequests();
+        this.pending = new LinkedBlockingQueue<>(maxPendingRequests);
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getPoolAcquireTimeout());
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "akamai-nio-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // requests sent in time cancel their timeout, which must not pile up
+        this.timer.setRemoveOnCancelPolicy(true);
+        LOGGER.debug("Created NIO transport with {}", config);
+    }
+
+    @Override
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(
+            final String url,
+            final HttpMethod method,
+            final HttpEntity<?> entity,
+            final Class<T> responseType) {
+        CompletableFuture<ResponseEntity<T>> future = new CompletableFuture<>();
+        PendingRequest request = new PendingRequest(future,
+                System.nanoTime() + acquireTimeoutNanos,
+                () -> send(url, method, entity, responseType, future));
+        if (!pending.offer(request)) {
+            future.completeExceptionally(new ResourceAccessException(
+                    "Too many requests, " + maxPendingRequests
+                            + " already waiting for an in-flight request slot"));
+            return future;
+        }
+        dispatch();
+        if (!future.isDone()) {
+            request.timeout = timer.schedule(() -> expire(request),
+                    acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Sends queued requests while slots are free. Requests whose future is
+     * already done, such as cancelled ones, are dropped, and requests queued
+     * for longer than the acquire timeout are failed, in case their timeout
+     * has not run yet.
+     */
+    private void dispatch() {
+        while (!pending.isEmpty() && inFlight.tryAcquire()) {
+            PendingRequest request = pending.poll();
+            if (request == null || request.future.isDone()) {
+                // re-check the queue, a request may have been added meanwhile
+                inFlight.release();
+                continue;
+            }
+            request.cancelTimeout();
+            if (System.nanoTime() - request.deadline > 0) {
+                inFlight.release();
+                fail(request);
+                continue;
+            }
+            request.send.run();
+        }
+    }
+
+    /**
+     * Fails a request still waiting for a slot at its deadline.
+     */
+    private void expire(final PendingRequest request) {
+        if (pending.remove(request)) {
+            fail(request);
+        }
+    }
+
+    private void fail(final PendingRequest request) {
+        request.future.completeExceptionally(new ResourceAccessException(
+                "Timed out waiting for an in-flight request slot, all "
+                        + maxInFlightRequests + " in use"));
+    }
+
+    private <T> void send(final String url,
+                          final HttpMethod method,
+                          final HttpEntity<?> entity,
+                          final Class<T> responseType,
+                          final CompletableFuture<ResponseEntity<T>> future) {
+        try {
+            asyncRestTemplate.exchange(url, method, entity, responseType).addCallback(
+                    response -> {
+                        release();
+                        future.complete(response);
+                    },
+                    failure -> {
+                        release();
+                        future.completeExceptionally(failure instanceof RestClientException
+                                ? failure
+                                : new ResourceAccessException(String.valueOf(failure.getMessage())));
+                    });
+        } catch (RuntimeException runtimeException) {
+            release();
+            future.completeExceptionally(runtimeException);
+        }
+    }
+
+    private void release() {
+        inFlight.release();
+        dispatch();
+    }
+
+    @Override
+    public <T> ResponseEntity<T> exchange(final String url,
+                                          final HttpMethod method,
+                                          final HttpEntity<?> entity,
+                                          final Class<T> responseType)
+            throws RestClientException {
+        try {
+            return exchangeAsync(url, method, entity, responseType).get();
+        } catch (ExecutionException executionException) {
+            Throwable cause = executionException.getCause();
+            if (cause instanceof RestClientException) {
+                throw (RestClientException) cause;
+            }
+            throw new RestClientException("Request to " + url + " failed", cause);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for " + url);
+        }
+    }
+
+    /**
+     * @return the number of requests that can still be sent without waiting
+     */
+    public int getAvailableSlots() {
+        return inFlight.availablePermits();
+    }
+
+    /**
+     * @return the number of requests waiting for a slot
+     */
+    public int getPendingRequests() {
+        return pending.size();
+    }
+
+    /**
+     * Reads the sample with the message converters of the rest template.
+     *
+     * @param responseType the type of the response bodies.
+     * @param sample       a sample JSON body of that type.
+     */
+    @Override
+    public void warmUp(final Class<?> responseType, final byte[] sample) {
+        MessageConverters.warmUp(asyncRestTemplate.getMessageConverters(), responseType, sample);
+    }
+
+    /**
+     * @return the rest template sharing this transport's NIO client.
+     */
+    public AsyncRestTemplate getAsyncRestTemplate() {
+        return asyncRestTemplate;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        PendingRequest request;
+        while ((request = pending.poll()) != null) {
+            request.future.completeExceptionally(new ResourceAccessException(
+                    "Transport closed before the request was sent"));
+        }
+        try {
+            requestFactory.destroy();
+        } catch (Exception exception) {
+            LOGGER.warn("Failed to close NIO transport", exception);
+        }
+    }
+
+    /**
+     * Request waiting for an in-flight slot.
+     */
+    private static final class PendingRequest {
+        private final CompletableFuture<?> future;
+        private final long deadline;
+        private final Runnable send;
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingRequest(final CompletableFuture<?> future,
+                               final long deadline,
+                               final Runnable send) {
+            this.future = future;
+            this.deadline = deadline;
+            this.send = send;
+        }
+
+        private void cancelTimeout() {
+            ScheduledFuture<?> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.htomar.akamai.transport;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.htomar.akamai.metrics.PurgeMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@inheritDoc}
+ * Default implementation of the {@link HttpTransport} backed by a single
+ * {@link RestTemplate} and a pool of keep-alive connections per host, so a
+ * burst of purges reuses a few warm TLS connections instead of a handshake
+ * per call.
+ *
+ * @author Himanshu Tomar
+ */
+public class PooledHttpTransport implements HttpTransport {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PooledHttpTransport.class);
+
+    /**
+     * Underlying pooled client, closed together with the transport.
+     */
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Rest template sharing the pooled client.
+     */
+    private final RestTemplate restTemplate;
+
+    /**
+     * Constructor using the default {@link TransportConfig}.
+     */
+    public PooledHttpTransport() {
+        this(new TransportConfig());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config the pool and timeout settings, cannot be null.
+     */
+    public PooledHttpTransport(final TransportConfig config) {
+        this(config, PurgeMetrics.global());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config  the pool and timeout settings, cannot be null.
+     * @param metrics the metrics recording connection acquisition, cannot be null.
+     */
+    public PooledHttpTransport(final TransportConfig config,
+                               final PurgeMetrics metrics) {
+        Assert.notNull(config, "transport config cannot be null.");
+        Assert.notNull(metrics, "metrics cannot be null.");
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(config.getKeepAlive(),
+                        TimeUnit.MILLISECONDS) {
+                    @Override
+                    public ConnectionRequest requestConnection(final HttpRoute route,
+                                                               final Object state) {
+                        return timed(super.requestConnection(route, state), metrics);
+                    }
+                };
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost());
+        connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getReadTimeout())
+                .setConnectionRequestTimeout(config.getPoolAcquireTimeout())
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(config.getKeepAlive(), TimeUnit.MILLISECONDS)
+                .build();
+        this.restTemplate = new RestTemplate(
+                new HttpComponentsClientHttpRequestFactory(httpClient));
+        LOGGER.debug("Created pooled transport with {}", config);
+    }
+
+    @Override
+    public <T> ResponseEntity<T> exchange(final String url,
+                                          final HttpMethod method,
+                                          final HttpEntity<?> entity,
+                                          final Class<T> responseType)
+            throws RestClientException {
+        return restTemplate.exchange(url, method, entity, responseType);
+    }
+
+    /**
+     * Reads the sample with the message converters of the rest template.
+     *
+     * @param responseType the type of the response bodies.
+     * @param sample       a sample JSON body of that type.
+     */
+    @Override
+    public void warmUp(final Class<?> responseType, final byte[] sample) {
+        MessageConverters.warmUp(restTemplate.getMessageConverters(), responseType, sample);
+    }
+
+    /**
+     * @return the rest template sharing this transport's connection pool.
+     */
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    private static ConnectionRequest timed(final ConnectionRequest request,
+                                           final PurgeMetrics metrics) {
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(final long timeout, final TimeUnit unit)
+                    throws InterruptedException, ExecutionException,
+                    ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, unit);
+                } finally {
+                    metrics.record(PurgeMetrics.Stage.CONNECTION_ACQUIRE,
+                            System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException ioException) {
+            LOGGER.warn("Failed to close pooled transport", ioException);
+        }
+    }
+}
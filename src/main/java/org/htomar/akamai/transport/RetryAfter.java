@@ -0,0 +1,46 @@
+package org.htomar.akamai.transport;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Reads the retry hint of an HTTP response.
+ *
+ * @author Himanshu Tomar
+ */
+public final class RetryAfter {
+
+    /**
+     * Name of the retry hint header.
+     */
+    public static final String HEADER = "Retry-After";
+
+    private RetryAfter() {
+    }
+
+    /**
+     * Returns the delay requested by the Retry-After header, given either as
+     * seconds or as an HTTP date.
+     *
+     * @param headers the response headers, may be null.
+     * @return the delay in milliseconds, or -1 if the header is absent or invalid.
+     */
+    public static long millis(final HttpHeaders headers) {
+        if (headers == null) {
+            return -1;
+        }
+        String value = headers.getFirst(HEADER);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException numberFormatException) {
+            try {
+                long date = headers.getFirstDate(HEADER);
+                return date < 0 ? -1 : Math.max(0, date - System.currentTimeMillis());
+            } catch (IllegalArgumentException illegalArgumentException) {
+                return -1;
+            }
+        }
+    }
+}
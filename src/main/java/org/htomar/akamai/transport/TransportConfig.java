@@ -0,0 +1,157 @@
+package org.htomar.akamai.transport;
+
+/**
+ * Connection pool and timeout settings for {@link PooledHttpTransport} and
+ * {@link NioHttpTransport}. All timeouts are in milliseconds.
+ *
+ * @author Himanshu Tomar
+ */
+public class TransportConfig {
+    private int connectTimeout = 5000;
+    private int readTimeout = 30000;
+    private int poolAcquireTimeout = 2000;
+    private int maxConnectionsPerHost = 8;
+    private int maxConnectionsTotal = 32;
+    private long keepAlive = 60000;
+    private int maxInFlightRequests = 256;
+    private int maxPendingRequests = 1024;
+    private int ioThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @return the timeout for establishing a connection
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param connectTimeout the timeout for establishing a connection
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return the timeout for waiting on response data
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param readTimeout the timeout for waiting on response data
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return the timeout for leasing a connection from the pool
+     */
+    public int getPoolAcquireTimeout() {
+        return poolAcquireTimeout;
+    }
+
+    /**
+     * @param poolAcquireTimeout the timeout for leasing a connection from the pool
+     */
+    public void setPoolAcquireTimeout(int poolAcquireTimeout) {
+        this.poolAcquireTimeout = poolAcquireTimeout;
+    }
+
+    /**
+     * @return the maximum number of pooled connections per host
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * @param maxConnectionsPerHost the maximum number of pooled connections per host
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * @return the maximum number of pooled connections across all hosts
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * @param maxConnectionsTotal the maximum number of pooled connections across all hosts
+     */
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     * @return how long an idle connection is kept in the pool
+     */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @param keepAlive how long an idle connection is kept in the pool
+     */
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * @return the maximum number of requests in flight on a {@link NioHttpTransport}
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * @param maxInFlightRequests the maximum number of requests in flight on a {@link NioHttpTransport}
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * @return the maximum number of requests waiting for an in-flight slot on a {@link NioHttpTransport}
+     */
+    public int getMaxPendingRequests() {
+        return maxPendingRequests;
+    }
+
+    /**
+     * @param maxPendingRequests the maximum number of requests waiting for an in-flight slot on a {@link NioHttpTransport}
+     */
+    public void setMaxPendingRequests(int maxPendingRequests) {
+        this.maxPendingRequests = maxPendingRequests;
+    }
+
+    /**
+     * @return the number of I/O dispatcher threads of a {@link NioHttpTransport}
+     */
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * @param ioThreads the number of I/O dispatcher threads of a {@link NioHttpTransport}
+     */
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportConfig [connectTimeout=" + connectTimeout
+                + ", readTimeout=" + readTimeout + ", poolAcquireTimeout="
+                + poolAcquireTimeout + ", maxConnectionsPerHost="
+                + maxConnectionsPerHost + ", maxConnectionsTotal="
+                + maxConnectionsTotal + ", keepAlive=" + keepAlive
+                + ", maxInFlightRequests=" + maxInFlightRequests
+                + ", maxPendingRequests=" + maxPendingRequests
+                + ", ioThreads=" + ioThreads + "]";
+    }
+}
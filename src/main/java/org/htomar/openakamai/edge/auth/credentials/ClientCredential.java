@@ -1,5 +1,7 @@
 package org.htomar.openakamai.edge.auth.credentials;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Interface representing the client credential that is used in service
  * requests.
@@ -33,6 +35,16 @@ public interface ClientCredential extends Credential {
      */
     String getClientSecret();
 
+    /**
+     * Gets the UTF-8 bytes of the secret, the HMAC key of the request
+     * signature. The returned array must not be modified.
+     *
+     * @return the secret bytes.
+     */
+    default byte[] getClientSecretBytes() {
+        return getClientSecret().getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Gets the base URL associated with the client.
      *
@@ -0,0 +1,395 @@
+package org.htomar.openakamai.edge.auth.credentials;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Named {@link ClientCredential}s loaded from {@code .edgerc} files and
+ * environment variables.
+ * <p>
+ * An {@code .edgerc} file holds one section per credential:
+ * </p>
+ * <pre>
+ * [default]
+ * client_secret = xxxx
+ * host = akab-xxxx.purge.akamaiapis.net
+ * access_token = akab-xxxx
+ * client_token = akab-xxxx
+ * </pre>
+ * <p>
+ * The environment variables {@code AKAMAI_HOST}, {@code AKAMAI_CLIENT_TOKEN},
+ * {@code AKAMAI_ACCESS_TOKEN} and {@code AKAMAI_CLIENT_SECRET} define the
+ * {@code default} credential, and {@code AKAMAI_<SECTION>_HOST} and so on
+ * the credential of a lower cased section name. Sources loaded later
+ * override the sections of earlier ones.
+ * </p>
+ * <p>
+ * Credentials are immutable {@link OpenAkamaiCredential}s with their secret
+ * bytes encoded once. The whole set is swapped atomically when a watched file
+ * changes, so {@link #get(String)} never locks and a credential handed out
+ * keeps signing with the keys it was loaded with. A file that fails to
+ * reload leaves the current credentials in place.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class CredentialRegistry implements Closeable {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CredentialRegistry.class);
+
+    /**
+     * The name of the credential of unprefixed environment variables.
+     */
+    public static final String DEFAULT_SECTION = "default";
+
+    private static final String ENV_PREFIX = "AKAMAI_";
+    private static final String CLIENT_SECRET = "client_secret";
+    private static final String HOST = "host";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String CLIENT_TOKEN = "client_token";
+    private static final String HTTPS_SCHEME = "https://";
+
+    /**
+     * How long a changed file must stay untouched before it is reloaded, so
+     * a file being rewritten is not read half written.
+     */
+    private static final long SETTLE_MILLIS = 200;
+
+    private final AtomicReference<Map<String, ClientCredential>> credentials =
+            new AtomicReference<>(Collections.emptyMap());
+
+    /**
+     * Sources in load order, replayed on every reload.
+     */
+    private final List<Source> sources = new CopyOnWriteArrayList<>();
+
+    private WatchService watchService;
+
+    /**
+     * Returns the credential of the given section.
+     *
+     * @param name the section name.
+     * @return the credential, or null if none is loaded under that name.
+     */
+    public ClientCredential get(final String name) {
+        return credentials.get().get(name);
+    }
+
+    /**
+     * @return the loaded section names
+     */
+    public Set<String> getNames() {
+        return credentials.get().keySet();
+    }
+
+    /**
+     * Loads the credentials of an {@code .edgerc} file.
+     *
+     * @param file the file to load.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if a section misses a value.
+     */
+    public synchronized void loadEdgeRc(final Path file) throws IOException {
+        Assert.notNull(file, "file cannot be null.");
+        Source source = new Source(file.toAbsolutePath().normalize(), null);
+        addSource(source, readEdgeRc(source.file));
+        if (watchService != null) {
+            register(source);
+        }
+    }
+
+    /**
+     * Loads the credentials of the process environment variables.
+     *
+     * @throws IllegalArgumentException if a credential misses a value.
+     */
+    public void loadEnvironment() {
+        loadEnvironment(System.getenv());
+    }
+
+    /**
+     * Loads the credentials of the given environment variables.
+     *
+     * @param environment the environment variables.
+     * @throws IllegalArgumentException if a credential misses a value.
+     */
+    public void loadEnvironment(final Map<String, String> environment) {
+        Assert.notNull(environment, "environment cannot be null.");
+        Source source = new Source(null, new HashMap<>(environment));
+        addSource(source, readEnvironment(source.environment));
+    }
+
+    /**
+     * Starts watching the loaded {@code .edgerc} files, reloading every
+     * source when one of them changes. Files loaded after this call are
+     * watched too.
+     *
+     * @throws IOException if the files cannot be watched.
+     */
+    public synchronized void watch() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Source source : sources) {
+            register(source);
+        }
+        Thread thread = new Thread(this::watchLoop, "akamai-credential-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reloads every source and swaps the credentials if all of them load.
+     *
+     * @return whether the credentials were reloaded.
+     */
+    public synchronized boolean reload() {
+        try {
+            credentials.set(loadAll(sources));
+            return true;
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Could not reload Akamai credentials, keeping the current ones",
+                    exception);
+            return false;
+        }
+    }
+
+    /**
+     * Stops watching the files.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ioException) {
+                LOGGER.warn("Could not close credential watch service", ioException);
+            }
+            watchService = null;
+        }
+    }
+
+    /**
+     * Reads the credentials of an {@code .edgerc} file.
+     *
+     * @param file the file to read.
+     * @return the credentials by section name, in file order.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if a section misses a value.
+     */
+    public static Map<String, ClientCredential> readEdgeRc(final Path file)
+            throws IOException {
+        Map<String, Map<String, String>> sections = new LinkedHashMap<>();
+        Map<String, String> section = null;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == ';') {
+                    continue;
+                }
+                if (line.charAt(0) == '[' && line.charAt(line.length() - 1) == ']') {
+                    section = sections.computeIfAbsent(
+                            line.substring(1, line.length() - 1).trim(),
+                            name -> new HashMap<>());
+                    continue;
+                }
+                int separator = line.indexOf('=');
+                if (section == null || separator < 0) {
+                    continue;
+                }
+                section.put(line.substring(0, separator).trim().toLowerCase(Locale.ROOT),
+                        unquote(line.substring(separator + 1).trim()));
+            }
+        }
+        Map<String, ClientCredential> loaded = new LinkedHashMap<>();
+        sections.forEach((name, values) ->
+                loaded.put(name, toCredential(file + " [" + name + "]", values)));
+        return loaded;
+    }
+
+    /**
+     * Reads the credentials of environment variables.
+     *
+     * @param environment the environment variables.
+     * @return the credentials by section name.
+     * @throws IllegalArgumentException if a credential misses a value.
+     */
+    public static Map<String, ClientCredential> readEnvironment(
+            final Map<String, String> environment) {
+        Map<String, Map<String, String>> sections = new HashMap<>();
+        environment.forEach((key, value) -> {
+            if (!key.startsWith(ENV_PREFIX)) {
+                return;
+            }
+            String name = key.substring(ENV_PREFIX.length()).toLowerCase(Locale.ROOT);
+            for (String field : new String[]{CLIENT_SECRET, HOST, ACCESS_TOKEN, CLIENT_TOKEN}) {
+                if (name.equals(field)) {
+                    sections.computeIfAbsent(DEFAULT_SECTION, section -> new HashMap<>())
+                            .put(field, value);
+                } else if (name.endsWith('_' + field)) {
+                    sections.computeIfAbsent(
+                            name.substring(0, name.length() - field.length() - 1),
+                            section -> new HashMap<>()).put(field, value);
+                }
+            }
+        });
+        Map<String, ClientCredential> loaded = new HashMap<>();
+        sections.forEach((name, values) -> {
+            // only complete sets of variables define a credential
+            if (values.containsKey(CLIENT_TOKEN)) {
+                loaded.put(name, toCredential("environment [" + name + "]", values));
+            }
+        });
+        return loaded;
+    }
+
+    private static ClientCredential toCredential(final String origin,
+                                                 final Map<String, String> values) {
+        String host = values.get(HOST);
+        if (host != null && !host.isEmpty() && !host.contains("://")) {
+            host = HTTPS_SCHEME + host;
+        }
+        try {
+            return new OpenAkamaiCredential(values.get(CLIENT_TOKEN),
+                    values.get(ACCESS_TOKEN), values.get(CLIENT_SECRET), host);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            throw new IllegalArgumentException("Invalid Akamai credential "
+                    + origin + ": " + illegalArgumentException.getMessage(),
+                    illegalArgumentException);
+        }
+    }
+
+    private static String unquote(final String value) {
+        if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+                && value.charAt(value.length() - 1) == value.charAt(0)) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private synchronized void addSource(final Source source,
+                                        final Map<String, ClientCredential> loaded) {
+        Map<String, ClientCredential> merged = new LinkedHashMap<>(credentials.get());
+        merged.putAll(loaded);
+        sources.add(source);
+        credentials.set(Collections.unmodifiableMap(merged));
+    }
+
+    private static Map<String, ClientCredential> loadAll(final List<Source> sources)
+            throws IOException {
+        // rebuilt from every source, so a section removed from a file goes away
+        Map<String, ClientCredential> loaded = new LinkedHashMap<>();
+        for (Source source : sources) {
+            if (source.file == null) {
+                loaded.putAll(readEnvironment(source.environment));
+                continue;
+            }
+            Map<String, ClientCredential> fileCredentials = readEdgeRc(source.file);
+            if (fileCredentials.isEmpty()) {
+                // most likely truncated by an editor about to write it
+                throw new IOException(source.file + " holds no credentials");
+            }
+            loaded.putAll(fileCredentials);
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
+
+    private void register(final Source source) throws IOException {
+        if (source.file != null) {
+            source.file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+    }
+
+    private void watchLoop() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (true) {
+                boolean changed = isChanged(service.take());
+                if (!changed) {
+                    continue;
+                }
+                WatchKey key;
+                while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isChanged(key);
+                }
+                if (reload()) {
+                    LOGGER.info("Reloaded Akamai credentials {}", getNames());
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException exception) {
+            LOGGER.debug("Stopped watching Akamai credentials");
+        }
+    }
+
+    private boolean isChanged(final WatchKey key) {
+        Path directory = (Path) key.watchable();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path) {
+                changed |= isWatched(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private boolean isWatched(final Path file) {
+        for (Source source : sources) {
+            if (file.equals(source.file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A loaded {@code .edgerc} file or set of environment variables.
+     */
+    private static final class Source {
+        private final Path file;
+        private final Map<String, String> environment;
+
+        private Source(final Path file, final Map<String, String> environment) {
+            this.file = file;
+            this.environment = environment;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CredentialRegistry [names=" + getNames() + "]";
+    }
+}
@@ -2,6 +2,8 @@ package org.htomar.openakamai.edge.auth.credentials;
 
 import org.springframework.util.Assert;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * {@inheritDoc}
  * Default implementation of the {@link ClientCredential}.
@@ -25,6 +27,11 @@ public class OpenAkamaiCredential implements ClientCredential {
      */
     private final String clientSecret;
 
+    /**
+     * The UTF-8 bytes of the secret, encoded once.
+     */
+    private final byte[] clientSecretBytes;
+
     /**
      * The base URL associated with the client token.
      */
@@ -53,6 +60,7 @@ public class OpenAkamaiCredential implements ClientCredential {
         this.clientToken = clientToken;
         this.accessToken = accessToken;
         this.clientSecret = clientSecret;
+        this.clientSecretBytes = clientSecret.getBytes(StandardCharsets.UTF_8);
         this.baseURL = baseURL;
     }
 
@@ -86,6 +94,17 @@ public class OpenAkamaiCredential implements ClientCredential {
         return clientSecret;
     }
 
+    /**
+     * Returns the UTF-8 bytes of the secret, encoded when the credential was
+     * created. The returned array must not be modified.
+     *
+     * @return the secret bytes.
+     */
+    @Override
+    public byte[] getClientSecretBytes() {
+        return clientSecretBytes;
+    }
+
     /**
      * Returns the base URL for the purge request.
      *
@@ -95,4 +114,10 @@ public class OpenAkamaiCredential implements ClientCredential {
     public String getBaseURL() {
         return baseURL;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String toString() {
+        return "OpenAkamaiCredential [clientToken=" + clientToken
+                + ", baseURL=" + baseURL + "]";
+    }
+}
@@ -11,6 +11,15 @@ public class RequestSigningException extends Exception {
      */
     private static final long serialVersionUID = -4716437270940718895L;
 
+    /**
+     * Constructor for {@link RequestSigningException}.
+     *
+     * @param message the exception message.
+     */
+    public RequestSigningException(String message) {
+        super(message);
+    }
+
     /**
      * Constructor for {@link RequestSigningException}.
      *
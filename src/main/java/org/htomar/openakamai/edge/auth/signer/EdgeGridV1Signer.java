@@ -1,26 +1,20 @@
 package org.htomar.openakamai.edge.auth.signer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.codec.binary.Base64;
 import org.htomar.akamai.headers.CustomHeaders;
+import org.htomar.akamai.metrics.PurgeMetrics;
+import org.htomar.akamai.request.PurgeBody;
+import org.htomar.akamai.request.PurgeBodyEncoder;
 import org.htomar.akamai.request.PurgeRequest;
 import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
 import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.io.IOException;
-import java.io.StringWriter;
 import java.nio.charset.Charset;
-import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
-import java.util.UUID;
 
 /**
  * Class representing the EdgeGrid version 1 signer that implements the
@@ -94,6 +88,36 @@ public class EdgeGridV1Signer implements RequestSigner {
      */
     private static final String AUTH_SIGNATURE_NAME = "signature";
 
+    /**
+     * The scheme stripped from host names in the data to sign.
+     */
+    private static final String HTTPS_SCHEME = "https://";
+
+    /**
+     * Room taken in the signing buffer by everything but the host name, the
+     * endpoint and the header prefix: separators, content hash, timestamp,
+     * nonce and signature.
+     */
+    private static final int SIGN_DATA_OVERHEAD = 192;
+
+    /**
+     * The Base64 alphabet of the content hash and the signature.
+     */
+    private static final char[] BASE64_DIGITS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+                    .toCharArray();
+
+    /**
+     * Per-thread message digest of the content hash.
+     */
+    private static final ThreadLocal<MessageDigest> DIGESTS = new ThreadLocal<>();
+
+    /**
+     * Per-thread scratch bytes of the data to sign.
+     */
+    private static final ThreadLocal<byte[]> SIGN_DATA_BYTES =
+            ThreadLocal.withInitial(() -> new byte[512]);
+
     /**
      * The maximum allowed body size in bytes for POST and PUT requests.
      */
@@ -104,6 +128,17 @@ public class EdgeGridV1Signer implements RequestSigner {
      */
     private final Charset UTF8_CHARSET = Charset.forName("UTF-8");
 
+    /**
+     * Per-thread cache of initialized Mac instances and derived signing keys.
+     */
+    private final SigningKeyCache signingKeyCache = new SigningKeyCache(HMAC_ALG,
+            EdgeGridV1Signer::getAuthHeaderPrefix);
+
+    /**
+     * Metrics recording hashing and signing durations.
+     */
+    private volatile PurgeMetrics metrics = PurgeMetrics.global();
+
     /**
      * Constructor
      * <p>
@@ -123,6 +158,23 @@ public class EdgeGridV1Signer implements RequestSigner {
     public EdgeGridV1Signer() {
     }
 
+    /**
+     * @return the maximum allowed body size in bytes for POST and PUT requests.
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Sets the metrics recording hashing and signing durations.
+     *
+     * @param metrics the metrics, cannot be null.
+     */
+    public void setMetrics(final PurgeMetrics metrics) {
+        Assert.notNull(metrics, "metrics cannot be null.");
+        this.metrics = metrics;
+    }
+
     /**
      * Signs the given request with the given client credential.
      *
@@ -137,46 +189,156 @@ public class EdgeGridV1Signer implements RequestSigner {
                               final String hostName,
                               final String invalidationEndPoint,
                               final PurgeRequest purgeRequest) throws RequestSigningException {
-        CustomHeaders signedHeaders = null;
-        long currentTime = System.currentTimeMillis();
-        String timeStamp = getTimeStamp(currentTime);
+        return sign(credential, hostName, invalidationEndPoint,
+                PurgeBodyEncoder.encode(purgeRequest));
+    }
 
-        StringBuilder sb = getAuthHeaders(credential, timeStamp);
-        String authData = sb.toString();
+    /**
+     * Signs the given serialized request body with the given client credential.
+     * The same bytes must be sent as the HTTP body.
+     *
+     * @param credential           the credential used in the signing.
+     * @param hostName             the request base host name.
+     * @param invalidationEndPoint the endpoint for request
+     * @param body                 the serialized request body.
+     * @return the signed request.
+     * @throws RequestSigningException if request signing fails
+     */
+    @Override
+    public CustomHeaders sign(final ClientCredential credential,
+                              final String hostName,
+                              final String invalidationEndPoint,
+                              final byte[] body) throws RequestSigningException {
+        return sign(credential, hostName, "POST", invalidationEndPoint, body, null);
+    }
 
-        String clientSecret = credential.getClientSecret();
-        byte[] signingKeyBytes = sign(timeStamp,
-                clientSecret.getBytes(UTF8_CHARSET), HMAC_ALG);
-        String signingKey = Base64.encodeBase64String(signingKeyBytes);
+    /**
+     * Signs the given encoded request body with the given client credential,
+     * reusing its content hash unless the body is longer than the maximum
+     * body size, in which case only the leading bytes are hashed.
+     *
+     * @param credential           the credential used in the signing.
+     * @param hostName             the request base host name.
+     * @param invalidationEndPoint the endpoint for request
+     * @param body                 the encoded request body.
+     * @return the signed request.
+     * @throws RequestSigningException if request signing fails
+     */
+    @Override
+    public CustomHeaders sign(final ClientCredential credential,
+                              final String hostName,
+                              final String invalidationEndPoint,
+                              final PurgeBody body) throws RequestSigningException {
+        byte[] contentHash = body.getLength() > maxBodySize
+                ? null : body.getContentHash();
+        return sign(credential, hostName, "POST", invalidationEndPoint,
+                body.getBytes(), contentHash);
+    }
 
-        StringBuilder signData = new StringBuilder(
-                contentToBeSigned(hostName,
-                        invalidationEndPoint,
-                        purgeRequest,
-                        authData));
-        signData.append(authData);
-        String stringToSign = signData.toString();
+    /**
+     * Signs a GET request, such as a purge status check, with the given
+     * client credential.
+     *
+     * @param credential the credential used in the signing.
+     * @param hostName   the request base host name.
+     * @param path       the request path, including any query string.
+     * @return the signed request.
+     * @throws RequestSigningException if request signing fails
+     */
+    @Override
+    public CustomHeaders signGet(final ClientCredential credential,
+                                 final String hostName,
+                                 final String path) throws RequestSigningException {
+        return sign(credential, hostName, "GET", path, null, null);
+    }
 
-        LOGGER.trace(String.format("String to sign : '%s'", stringToSign));
+    /**
+     * Signs a request with the given client credential. Only POST bodies
+     * are part of the signature.
+     *
+     * @param credential  the credential used in the signing.
+     * @param hostName    the request base host name.
+     * @param method      the HTTP method.
+     * @param path        the request path.
+     * @param body        the serialized request body, null if none.
+     * @param contentHash the content hash of the body, null to compute it.
+     * @return the signed request.
+     * @throws RequestSigningException if request signing fails
+     */
+    private CustomHeaders sign(final ClientCredential credential,
+                               final String hostName,
+                               final String method,
+                               final String path,
+                               final byte[] body,
+                               final byte[] contentHash) throws RequestSigningException {
+        long start = System.nanoTime();
+        String timeStamp = TimeStampCache.format(System.currentTimeMillis());
+        SigningKeyCache.CachedKey cachedKey = signingKeyCache.get(credential);
+        String headerPrefix = cachedKey.getHeaderPrefix();
+
+        // the string to sign ends with the unsigned auth data, so a single
+        // buffer holds both: once signed, the leading fields are dropped
+        // and the signature appended to what is left
+        StringBuilder sb = new StringBuilder(SIGN_DATA_OVERHEAD
+                + hostName.length() + path.length()
+                + headerPrefix.length());
+        sb.append(method).append("\thttps\t");
+        appendHost(sb, hostName);
+        sb.append('\t')
+                .append(path)
+                .append('\t').append(getHeaders())
+                .append('\t');
+        if (contentHash != null) {
+            appendBase64(sb, contentHash);
+        } else if (body != null) {
+            appendBase64(sb, getContentHash(body));
+        }
+        sb.append('\t');
+        int authDataStart = sb.length();
+        sb.append(headerPrefix)
+                .append(timeStamp)
+                .append(';')
+                .append(AUTH_NONCE_NAME)
+                .append('=');
+        NonceGenerator.appendNonce(sb);
+        sb.append(';');
 
-        byte[] signatureBytes = sign(stringToSign,
-                signingKey.getBytes(UTF8_CHARSET), HMAC_ALG);
-        String signature = Base64.encodeBase64String(signatureBytes);
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(String.format("String to sign : '%s'", sb));
+        }
 
-        LOGGER.trace(String.format("Signature : '%s'", signature));
+        byte[] signData = asciiBytes(sb);
+        int signDataLength = sb.length();
+        if (signData == null) {
+            signData = sb.toString().getBytes(UTF8_CHARSET);
+            signDataLength = signData.length;
+        }
+        byte[] signatureBytes = cachedKey.sign(timeStamp, signData, 0,
+                signDataLength);
 
-        // add the signature
+        // keep the auth data and add the signature
+        sb.delete(0, authDataStart);
         sb.append(AUTH_SIGNATURE_NAME);
         sb.append('=');
-        sb.append(signature);
+        appendBase64(sb, signatureBytes);
 
-        signedHeaders = new CustomHeaders(sb.toString());
-        LOGGER.trace("Final Headers: " + sb.toString());
+        String authHeaders = sb.toString();
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Final Headers: " + authHeaders);
+        }
+        CustomHeaders signedHeaders = new CustomHeaders(authHeaders);
+        metrics.record(PurgeMetrics.Stage.SIGNING, System.nanoTime() - start);
         return signedHeaders;
     }
 
-    private StringBuilder getAuthHeaders(ClientCredential credential,
-                                         String timeStamp) {
+    /**
+     * Builds the part of the Authorization header that only depends on the
+     * credential, up to the timestamp value.
+     *
+     * @param credential the credential used in the signing.
+     * @return the header prefix.
+     */
+    private static String getAuthHeaderPrefix(final ClientCredential credential) {
         StringBuilder sb = new StringBuilder();
         sb.append(ALGORHTM);
         sb.append(' ');
@@ -192,14 +354,7 @@ public class EdgeGridV1Signer implements RequestSigner {
 
         sb.append(AUTH_TIMESTAMP_NAME);
         sb.append('=');
-        sb.append(timeStamp);
-        sb.append(';');
-
-        sb.append(AUTH_NONCE_NAME);
-        sb.append('=');
-        sb.append(UUID.randomUUID().toString());
-        sb.append(';');
-        return sb;
+        return sb.toString();
     }
 
     private String getHeaders() {
@@ -207,81 +362,39 @@ public class EdgeGridV1Signer implements RequestSigner {
         return "";
     }
 
-    private String contentToBeSigned(final String hostName,
-                                     final String invalidationEndPoint, final PurgeRequest purgeRequest,
-                                     final String authData) throws RequestSigningException {
-        StringBuilder contentToBeSigned = new StringBuilder();
-        contentToBeSigned
-                .append("POST\thttps\t")
-                .append(hostName.replaceAll("https://", ""))
-                .append("\t")
-                .append(invalidationEndPoint)
-                .append("\t").append(getHeaders())
-                .append("\t")
-                .append(getContentHash(purgeRequest))
-                .append("\t");
-        return contentToBeSigned.toString();
-    }
-
     /**
-     * Helper method to calculate the HMAC signature of a given string.
+     * Appends the host name without its "https://" scheme.
      *
-     * @param s         the string to sign.
-     * @param key       the key for the signature.
-     * @param algorithm the signing algorithm.
-     * @return the HMac signature.
-     * @throws RequestSigningException
+     * @param sb       the buffer to append to.
+     * @param hostName the request base host name, with or without scheme.
      */
-    private byte[] sign(String s, byte[] key, String algorithm)
-            throws RequestSigningException {
-        try {
-            SecretKeySpec signingKey = new SecretKeySpec(key, algorithm);
-            Mac mac = Mac.getInstance(algorithm);
-            mac.init(signingKey);
-
-            byte[] valueBytes = s.getBytes(UTF8_CHARSET);
-            return mac.doFinal(valueBytes);
-        } catch (NoSuchAlgorithmException nsae) {
-            throw new RequestSigningException(
-                    "Failed to sign: algorithm not found", nsae);
-        } catch (InvalidKeyException ike) {
-            throw new RequestSigningException("Failed to sign: invalid key",
-                    ike);
+    private static void appendHost(final StringBuilder sb, final String hostName) {
+        int from = 0;
+        int scheme;
+        while ((scheme = hostName.indexOf(HTTPS_SCHEME, from)) >= 0) {
+            sb.append(hostName, from, scheme);
+            from = scheme + HTTPS_SCHEME.length();
         }
+        sb.append(hostName, from, hostName.length());
     }
 
-    private String getContentHash(final PurgeRequest purgeRequest)
+    private byte[] getContentHash(final byte[] contentBytes)
             throws RequestSigningException {
-        String contentHash = null;
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            StringWriter stringWriter = new StringWriter();
-            mapper.writeValue(stringWriter, purgeRequest);
-            String content = stringWriter.toString();
-            LOGGER.trace("Content String: " + content);
-            if (content != null) {
-                byte[] contentBytes = content.getBytes(UTF8_CHARSET);
-
-                int lengthToHash = content.length();
-                if (lengthToHash > maxBodySize) {
-                    LOGGER.warn(String.format(
-                            "Message body length '%d' is larger than the max '%d'. "
-                                    + "Using '%d' bytes for computing the hash.",
-                            lengthToHash, maxBodySize, maxBodySize));
-                    lengthToHash = maxBodySize;
-                } else {
-                    LOGGER.trace(String.format("Content: %s",
-                            Base64.encodeBase64String(contentBytes)));
-                }
-                byte[] digestBytes = getHash(contentBytes, 0, lengthToHash);
-                contentHash = Base64.encodeBase64String(digestBytes);
-            }
-
-        } catch (IOException ioException) {
-            throw new RequestSigningException(
-                    "Failed to get json from the request object", ioException);
+        long start = System.nanoTime();
+        int lengthToHash = contentBytes.length;
+        if (lengthToHash > maxBodySize) {
+            LOGGER.warn(String.format(
+                    "Message body length '%d' is larger than the max '%d'. "
+                            + "Using '%d' bytes for computing the hash.",
+                    lengthToHash, maxBodySize, maxBodySize));
+            lengthToHash = maxBodySize;
+        } else if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(String.format("Content: %s",
+                    Base64.encodeBase64String(contentBytes)));
         }
-        return contentHash;
+        byte[] digestBytes = getHash(contentBytes, 0, lengthToHash);
+        metrics.record(PurgeMetrics.Stage.HASHING, System.nanoTime() - start);
+        return digestBytes;
     }
 
     /**
@@ -293,27 +406,69 @@ public class EdgeGridV1Signer implements RequestSigner {
      */
     private byte[] getHash(byte[] contentBytes, int offset, int len)
             throws RequestSigningException {
-        try {
-            MessageDigest md = MessageDigest.getInstance(MD_ALG);
-            md.update(contentBytes, offset, len);
-            return md.digest();
-        } catch (NoSuchAlgorithmException nsae) {
-            throw new RequestSigningException(
-                    "Failed to get request hash: algorithm not found", nsae);
+        MessageDigest md = DIGESTS.get();
+        if (md == null) {
+            try {
+                md = MessageDigest.getInstance(MD_ALG);
+            } catch (NoSuchAlgorithmException nsae) {
+                throw new RequestSigningException(
+                        "Failed to get request hash: algorithm not found", nsae);
+            }
+            DIGESTS.set(md);
         }
+        md.update(contentBytes, offset, len);
+        return md.digest();
     }
 
     /**
-     * Helper to get the formatted time stamp.
+     * Encodes the buffer into the current thread's scratch bytes if it only
+     * holds ASCII characters.
      *
-     * @param time the time stamp as millisecond since the UNIX epoch.
-     * @return the formatted time stamp.
+     * @param sb the buffer to encode.
+     * @return the scratch bytes, of which the first {@code sb.length()} are
+     * the encoded buffer, or null if the buffer is not all ASCII.
      */
-    private static String getTimeStamp(long time) {
-        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ssZ");
-        Date date = new Date(time);
+    private static byte[] asciiBytes(final StringBuilder sb) {
+        int length = sb.length();
+        byte[] bytes = SIGN_DATA_BYTES.get();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+            SIGN_DATA_BYTES.set(bytes);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = sb.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
 
-        format.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return format.format(date);
+    /**
+     * Appends the standard Base64 encoding, with padding, of the given bytes.
+     *
+     * @param sb    the buffer to append to.
+     * @param bytes the bytes to encode.
+     */
+    private static void appendBase64(final StringBuilder sb, final byte[] bytes) {
+        int i = 0;
+        for (; i + 2 < bytes.length; i += 3) {
+            int bits = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8
+                    | (bytes[i + 2] & 0xff);
+            sb.append(BASE64_DIGITS[bits >>> 18])
+                    .append(BASE64_DIGITS[(bits >>> 12) & 0x3f])
+                    .append(BASE64_DIGITS[(bits >>> 6) & 0x3f])
+                    .append(BASE64_DIGITS[bits & 0x3f]);
+        }
+        int remaining = bytes.length - i;
+        if (remaining > 0) {
+            int bits = (bytes[i] & 0xff) << 16
+                    | (remaining == 2 ? (bytes[i + 1] & 0xff) << 8 : 0);
+            sb.append(BASE64_DIGITS[bits >>> 18])
+                    .append(BASE64_DIGITS[(bits >>> 12) & 0x3f])
+                    .append(remaining == 2 ? BASE64_DIGITS[(bits >>> 6) & 0x3f] : '=')
+                    .append('=');
+        }
     }
 }
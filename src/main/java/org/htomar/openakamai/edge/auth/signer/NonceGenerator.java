@@ -0,0 +1,59 @@
+package org.htomar.openakamai.edge.auth.signer;
+
+import java.security.SecureRandom;
+
+/**
+ * Generates request nonces in the text form of a random (version 4) UUID.
+ * <p>
+ * {@link java.util.UUID#randomUUID()} draws from a single shared
+ * {@link SecureRandom}, which threads signing concurrently contend on. Here
+ * every thread owns a {@link SecureRandom}, and the nonce is written straight
+ * into the caller's buffer instead of going through a UUID and a String.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+final class NonceGenerator {
+
+    /**
+     * Length of the nonce text.
+     */
+    static final int LENGTH = 36;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Random source and scratch bytes of the current thread.
+     */
+    private static final ThreadLocal<NonceGenerator> GENERATORS =
+            ThreadLocal.withInitial(NonceGenerator::new);
+
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] bytes = new byte[16];
+
+    private NonceGenerator() {
+    }
+
+    /**
+     * Appends a new nonce to the given buffer.
+     *
+     * @param buffer the buffer to append to.
+     */
+    static void appendNonce(final StringBuilder buffer) {
+        GENERATORS.get().append(buffer);
+    }
+
+    private void append(final StringBuilder buffer) {
+        random.nextBytes(bytes);
+        // version 4 and IETF variant bits, as in UUID.randomUUID()
+        bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x40);
+        bytes[8] = (byte) ((bytes[8] & 0x3f) | 0x80);
+        for (int i = 0; i < bytes.length; i++) {
+            if (i == 4 || i == 6 || i == 8 || i == 10) {
+                buffer.append('-');
+            }
+            buffer.append(HEX_DIGITS[(bytes[i] >> 4) & 0x0f]);
+            buffer.append(HEX_DIGITS[bytes[i] & 0x0f]);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.htomar.openakamai.edge.auth.signer;
 
+import org.htomar.akamai.request.PurgeBody;
 import org.htomar.akamai.request.PurgeRequest;
 import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
 import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
@@ -22,4 +23,54 @@ public interface RequestSigner {
     HttpHeaders sign(ClientCredential credential, String hostName,
                      String invalidationEndPoint, PurgeRequest purgeRequest)
             throws RequestSigningException;
-}
\ No newline at end of file
+
+    /**
+     * Provides authentication headers for an already serialized request body.
+     * Signers that only sign {@link PurgeRequest}s keep the default, which
+     * fails.
+     *
+     * @param credential the credential used in the signing.
+     * @param body       the request body exactly as it is sent.
+     * @return the signed request.
+     * @throws RequestSigningException if an exception occurs while signing
+     *                                 request, or if the signer cannot sign serialized bodies.
+     */
+    default HttpHeaders sign(ClientCredential credential, String hostName,
+                             String invalidationEndPoint, byte[] body)
+            throws RequestSigningException {
+        throw new RequestSigningException(getClass().getName()
+                + " does not support signing serialized bodies");
+    }
+
+    /**
+     * Provides authentication headers for an encoded request body, reusing
+     * its content hash where the signer can.
+     *
+     * @param credential the credential used in the signing.
+     * @param body       the request body exactly as it is sent.
+     * @return the signed request.
+     * @throws RequestSigningException if an exception occurs while signing request.
+     */
+    default HttpHeaders sign(ClientCredential credential, String hostName,
+                             String invalidationEndPoint, PurgeBody body)
+            throws RequestSigningException {
+        return sign(credential, hostName, invalidationEndPoint, body.getBytes());
+    }
+
+    /**
+     * Provides authentication headers for a GET request without body.
+     * Signers that only sign purge bodies keep the default, which fails.
+     *
+     * @param credential the credential used in the signing.
+     * @param hostName   the request base host name.
+     * @param path       the request path, including any query string.
+     * @return the signed request.
+     * @throws RequestSigningException if an exception occurs while signing
+     *                                 request, or if the signer cannot sign GET requests.
+     */
+    default HttpHeaders signGet(ClientCredential credential, String hostName, String path)
+            throws RequestSigningException {
+        throw new RequestSigningException(getClass().getName()
+                + " does not support signing GET requests");
+    }
+}
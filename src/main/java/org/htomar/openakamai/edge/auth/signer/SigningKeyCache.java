@@ -0,0 +1,193 @@
+package org.htomar.openakamai.edge.auth.signer;
+
+import org.apache.commons.codec.binary.Base64;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.exception.RequestSigningException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.Charset;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per-thread cache of initialized {@link Mac} instances used by
+ * {@link EdgeGridV1Signer}.
+ * <p>
+ * For each credential a thread keeps one {@link Mac} keyed with the client
+ * secret and one keyed with the signing key derived for the current
+ * timestamp. Signing many requests within the same second therefore costs a
+ * single HMAC over the data to sign. The constant start of the credential's
+ * Authorization header is built once and kept alongside.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+final class SigningKeyCache {
+
+    /**
+     * Maximum number of credentials remembered per thread.
+     */
+    private static final int MAX_CREDENTIALS_PER_THREAD = 64;
+
+    /**
+     * The charset used for String to bytes conversions.
+     */
+    private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * The HMAC algorithm used.
+     */
+    private final String algorithm;
+
+    /**
+     * Builds the constant start of the Authorization header of a credential.
+     */
+    private final Function<ClientCredential, String> headerPrefix;
+
+    /**
+     * Cached keys of the current thread, keyed by client token.
+     */
+    private final ThreadLocal<Map<String, CachedKey>> keys =
+            ThreadLocal.withInitial(() -> new LinkedHashMap<String, CachedKey>(
+                    MAX_CREDENTIALS_PER_THREAD, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<String, CachedKey> eldest) {
+                    return size() > MAX_CREDENTIALS_PER_THREAD;
+                }
+            });
+
+    /**
+     * Constructor.
+     *
+     * @param algorithm    the HMAC algorithm used for key derivation and signing.
+     * @param headerPrefix builds the constant start of the Authorization
+     *                     header of a credential.
+     */
+    SigningKeyCache(final String algorithm,
+                    final Function<ClientCredential, String> headerPrefix) {
+        this.algorithm = algorithm;
+        this.headerPrefix = headerPrefix;
+    }
+
+    /**
+     * Returns the keys of the given credential cached by the current thread,
+     * creating them if the credential is new or has changed. The same
+     * credential instance is recognized without comparing its secret.
+     *
+     * @param credential the credential used in the signing.
+     * @return the cached keys, only usable by the current thread.
+     */
+    CachedKey get(final ClientCredential credential) {
+        Map<String, CachedKey> threadKeys = keys.get();
+        CachedKey cachedKey = threadKeys.get(credential.getClientToken());
+        if (cachedKey != null && cachedKey.credential == credential) {
+            return cachedKey;
+        }
+        if (cachedKey == null
+                || !cachedKey.clientSecret.equals(credential.getClientSecret())
+                || !cachedKey.accessToken.equals(credential.getAccessToken())) {
+            cachedKey = new CachedKey(credential, headerPrefix.apply(credential));
+            threadKeys.put(credential.getClientToken(), cachedKey);
+        } else {
+            // an equal credential, such as a reloaded one: keep the keys
+            cachedKey.credential = credential;
+        }
+        return cachedKey;
+    }
+
+    private Mac newMac(final byte[] key) throws RequestSigningException {
+        try {
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(new SecretKeySpec(key, algorithm));
+            return mac;
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new RequestSigningException(
+                    "Failed to sign: algorithm not found", nsae);
+        } catch (InvalidKeyException ike) {
+            throw new RequestSigningException("Failed to sign: invalid key",
+                    ike);
+        }
+    }
+
+    /**
+     * Initialized {@link Mac} instances and header prefix of one credential.
+     */
+    final class CachedKey {
+        private final String clientSecret;
+        private final byte[] clientSecretBytes;
+        private final String accessToken;
+        private final String headerPrefix;
+        private ClientCredential credential;
+        private Mac secretMac;
+        private String timeStamp;
+        private Mac signingMac;
+
+        private CachedKey(final ClientCredential credential,
+                          final String headerPrefix) {
+            this.credential = credential;
+            this.clientSecret = credential.getClientSecret();
+            this.clientSecretBytes = credential.getClientSecretBytes();
+            this.accessToken = credential.getAccessToken();
+            this.headerPrefix = headerPrefix;
+        }
+
+        /**
+         * @return the constant start of the credential's Authorization header.
+         */
+        String getHeaderPrefix() {
+            return headerPrefix;
+        }
+
+        /**
+         * Signs the given data with the signing key derived from the
+         * credential secret and the timestamp.
+         *
+         * @param timeStamp the request timestamp.
+         * @param data      the buffer holding the data to sign.
+         * @param offset    the offset of the data in the buffer.
+         * @param length    the length of the data.
+         * @return the HMac signature.
+         * @throws RequestSigningException if the algorithm is unavailable or the key is invalid.
+         */
+        byte[] sign(final String timeStamp, final byte[] data, final int offset,
+                    final int length) throws RequestSigningException {
+            Mac mac = signingMac(timeStamp);
+            mac.update(data, offset, length);
+            return mac.doFinal();
+        }
+
+        private Mac signingMac(final String currentTimeStamp)
+                throws RequestSigningException {
+            if (signingMac != null && currentTimeStamp.equals(timeStamp)) {
+                return signingMac;
+            }
+            if (secretMac == null) {
+                secretMac = newMac(clientSecretBytes);
+            }
+            byte[] signingKeyBytes = secretMac.doFinal(
+                    currentTimeStamp.getBytes(UTF8_CHARSET));
+            // the protocol keys the request signature with the Base64 text
+            // of the derived key, not with its raw bytes
+            byte[] signingKey = Base64.encodeBase64(signingKeyBytes);
+            if (signingMac == null) {
+                signingMac = newMac(signingKey);
+            } else {
+                try {
+                    signingMac.init(new SecretKeySpec(signingKey, algorithm));
+                } catch (InvalidKeyException ike) {
+                    throw new RequestSigningException(
+                            "Failed to sign: invalid key", ike);
+                }
+            }
+            timeStamp = currentTimeStamp;
+            return signingMac;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.htomar.openakamai.edge.auth.signer;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats EdgeGrid request timestamps, {@code yyyyMMdd'T'HH:mm:ss+0000} in
+ * UTC. The protocol has a one second resolution, so the text of the current
+ * second is formatted once and shared by every thread signing within it.
+ *
+ * @author Himanshu Tomar
+ */
+final class TimeStampCache {
+
+    /**
+     * Thread-safe formatter of the EdgeGrid timestamp.
+     */
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter
+            .ofPattern("yyyyMMdd'T'HH:mm:ssZ").withZone(ZoneOffset.UTC);
+
+    /**
+     * The most recently formatted second.
+     */
+    private static volatile Second current = new Second(Long.MIN_VALUE, null);
+
+    private TimeStampCache() {
+    }
+
+    /**
+     * Returns the formatted time stamp.
+     *
+     * @param time the time stamp as millisecond since the UNIX epoch.
+     * @return the formatted time stamp.
+     */
+    static String format(final long time) {
+        long epochSecond = Math.floorDiv(time, 1000L);
+        Second second = current;
+        if (second.epochSecond != epochSecond) {
+            second = new Second(epochSecond,
+                    FORMATTER.format(Instant.ofEpochSecond(epochSecond)));
+            current = second;
+        }
+        return second.text;
+    }
+
+    /**
+     * A second and its formatted text, published together.
+     */
+    private static final class Second {
+        private final long epochSecond;
+        private final String text;
+
+        private Second(final long epochSecond, final String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+    }
+}
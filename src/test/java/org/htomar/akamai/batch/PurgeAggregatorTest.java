@@ -0,0 +1,85 @@
+package org.htomar.akamai.batch;
+
+import org.htomar.akamai.journal.PurgeJournal;
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.PurgeType;
+import org.htomar.akamai.testkit.FakeCcuFixture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the resubmission of journal entries against a fake CCU server.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeAggregatorTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private FakeCcuFixture fixture;
+    private PurgeJournal journal;
+    private PurgeAggregator aggregator;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new FakeCcuFixture();
+        journal = new PurgeJournal(folder.getRoot().toPath());
+        // left pending by a previous run
+        journal.append(PurgeType.URL, PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION,
+                null, Collections.singletonList("https://www.example.com/a"));
+        aggregator = new PurgeAggregator(fixture.getCachePurgeV3(), fixture.getCredential(),
+                PurgeAggregator.DEFAULT_MAX_BODY_SIZE, 50, 1);
+        aggregator.setJournal(journal);
+    }
+
+    @After
+    public void tearDown() {
+        aggregator.close();
+        journal.close();
+        fixture.close();
+    }
+
+    @Test
+    public void resubmitsEachPendingEntryOnce() throws Exception {
+        List<CompletableFuture<PurgeResponse>> first = aggregator.resubmitPending();
+        List<CompletableFuture<PurgeResponse>> second = aggregator.resubmitPending();
+
+        assertEquals(1, first.size());
+        assertTrue(second.isEmpty());
+        first.get(0).get(5, TimeUnit.SECONDS);
+        assertTrue(aggregator.resubmitPending().isEmpty());
+        assertEquals(1, fixture.getServer().getPurges().size());
+        assertTrue(journal.getPending().isEmpty());
+    }
+
+    @Test
+    public void resubmitsEntriesOfFailedBatchesAgain() throws Exception {
+        fixture.getConfig().setServerErrorRate(1);
+        CompletableFuture<PurgeResponse> failed = aggregator.resubmitPending().get(0);
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+        } catch (Exception expected) {
+            // the server error
+        }
+        fixture.getConfig().setServerErrorRate(0);
+
+        List<CompletableFuture<PurgeResponse>> retried = aggregator.resubmitPending();
+
+        assertEquals(1, retried.size());
+        retried.get(0).get(5, TimeUnit.SECONDS);
+        assertEquals(1, fixture.getServer().getPurges().size());
+    }
+}
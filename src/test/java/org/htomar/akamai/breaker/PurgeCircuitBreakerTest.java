@@ -0,0 +1,250 @@
+package org.htomar.akamai.breaker;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.exception.CircuitOpenException;
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.PurgeType;
+import org.htomar.akamai.testkit.FakeCcuConfig;
+import org.htomar.akamai.testkit.FakeCcuFixture;
+import org.htomar.akamai.transport.AsyncHttpTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.htomar.akamai.testkit.FakeCcuFixture.BASE_URL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the circuit breaking of CCU v3 purges against a fake CCU server
+ * failing on demand.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeCircuitBreakerTest {
+    private static final String END_POINT = PurgeType.TAG.getEndpoint(
+            PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+
+    private FakeCcuConfig serverConfig;
+    private FakeCcuFixture fixture;
+    private BreakableTransport transport;
+    private PurgeCircuitBreaker breaker;
+    private CachePurgeV3 cachePurgeV3;
+
+    @Before
+    public void setUp() throws Exception {
+        serverConfig = new FakeCcuConfig();
+        // asynchronous, so that rejected asynchronous purges can be parked
+        fixture = new FakeCcuFixture(serverConfig, true);
+        transport = new BreakableTransport((AsyncHttpTransport) fixture.getTransport());
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setSlidingWindowSize(10);
+        config.setMinimumCalls(5);
+        config.setOpenDurationMillis(300);
+        config.setHalfOpenProbes(2);
+        config.setParkingCapacity(10);
+        breaker = new PurgeCircuitBreaker(config);
+        cachePurgeV3 = new CachePurgeV3(transport);
+        cachePurgeV3.setRetrier(null);
+        cachePurgeV3.setCircuitBreaker(breaker);
+    }
+
+    @After
+    public void tearDown() {
+        cachePurgeV3.close();
+        breaker.close();
+        fixture.close();
+    }
+
+    @Test
+    public void opensOnServerErrorsAndFailsFast() throws Exception {
+        serverConfig.setServerErrorRate(1);
+        for (int i = 0; i < 5; i++) {
+            try {
+                purgeTag("tag" + i);
+                fail("server error not thrown");
+            } catch (HttpServerErrorException expected) {
+                // counted against the circuit
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, state());
+
+        long sent = fixture.getServer().getRequestCount();
+        try {
+            purgeTag("rejected");
+            fail("open circuit let a request through");
+        } catch (CircuitOpenException expected) {
+            // rejected without a fake accepted response
+        }
+        assertEquals(sent, fixture.getServer().getRequestCount());
+    }
+
+    @Test
+    public void closesAfterSuccessfulProbes() throws Exception {
+        serverConfig.setServerErrorRate(1);
+        openCircuit();
+        serverConfig.setServerErrorRate(0);
+        Thread.sleep(400);
+
+        assertEquals("201", purgeTag("probe1").getHttpStatus());
+        assertEquals("201", purgeTag("probe2").getHttpStatus());
+
+        assertEquals(CircuitBreaker.State.CLOSED, state());
+    }
+
+    /**
+     * A probe failing with neither a response nor an I/O error used to keep
+     * its permit, so that the half-open circuit rejected every later call.
+     */
+    @Test
+    public void releasesProbesOfUnexpectedFailures() throws Exception {
+        serverConfig.setServerErrorRate(1);
+        openCircuit();
+        serverConfig.setServerErrorRate(0);
+        Thread.sleep(400);
+        transport.failure = new IllegalStateException("broken transport");
+        for (int i = 0; i < 2; i++) {
+            try {
+                purgeTag("broken" + i);
+                fail("transport failure not thrown");
+            } catch (IllegalStateException expected) {
+                // the probe permit is given back
+            }
+        }
+        transport.failure = null;
+
+        assertEquals("201", purgeTag("probe1").getHttpStatus());
+        assertEquals("201", purgeTag("probe2").getHttpStatus());
+        assertEquals(CircuitBreaker.State.CLOSED, state());
+    }
+
+    @Test
+    public void countsWrappedAsyncFailures() throws Exception {
+        transport.failure = new ResourceAccessException("connection refused");
+        for (int i = 0; i < 5; i++) {
+            try {
+                purgeTagAsync("tag" + i).get(5, TimeUnit.SECONDS);
+                fail("transport failure not thrown");
+            } catch (ExecutionException executionException) {
+                assertTrue(executionException.getCause() instanceof ResourceAccessException);
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, state());
+    }
+
+    @Test
+    public void deliversParkedAsyncPurgesOnceClosed() throws Exception {
+        serverConfig.setServerErrorRate(1);
+        openCircuit();
+
+        CompletableFuture<PurgeResponse> parked = purgeTagAsync("parked");
+        serverConfig.setServerErrorRate(0);
+
+        assertEquals("201", parked.get(5, TimeUnit.SECONDS).getHttpStatus());
+        assertEquals(0, breaker.getParkedCount(BASE_URL, END_POINT));
+    }
+
+    @Test
+    public void ignoresClientErrors() {
+        assertTrue(PurgeCircuitBreaker.isFailure(new ResourceAccessException("timeout")));
+        assertTrue(PurgeCircuitBreaker.isFailure(
+                new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+        assertFalse(PurgeCircuitBreaker.isFailure(
+                new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+        assertFalse(PurgeCircuitBreaker.isFailure(
+                new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+        assertFalse(PurgeCircuitBreaker.isFailure(null));
+    }
+
+    private void openCircuit() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            try {
+                purgeTag("tag" + i);
+            } catch (HttpServerErrorException expected) {
+                // counted against the circuit
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, state());
+    }
+
+    private CircuitBreaker.State state() {
+        return breaker.getCircuitBreaker(BASE_URL, END_POINT).getState();
+    }
+
+    private PurgeResponse purgeTag(final String tag) throws Exception {
+        return cachePurgeV3.purgeByTag(tags(tag), fixture.getCredential(), BASE_URL);
+    }
+
+    private CompletableFuture<PurgeResponse> purgeTagAsync(final String tag) {
+        return cachePurgeV3.purgeAsync(tags(tag), fixture.getCredential(), BASE_URL,
+                PurgeType.TAG, PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    private static PurgeRequest<String> tags(final String tag) {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(Collections.singletonList(tag));
+        return purgeRequest;
+    }
+
+    /**
+     * Transport failing on demand without sending, throwing the failure or,
+     * asynchronously, completing with it wrapped in a
+     * {@link CompletionException} as dependent futures do.
+     */
+    private static final class BreakableTransport implements AsyncHttpTransport {
+        private final AsyncHttpTransport delegate;
+        private volatile RuntimeException failure;
+
+        private BreakableTransport(final AsyncHttpTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(
+                final String url, final HttpMethod method,
+                final HttpEntity<?> entity, final Class<T> responseType) {
+            RuntimeException current = failure;
+            if (current == null) {
+                return delegate.exchangeAsync(url, method, entity, responseType);
+            }
+            CompletableFuture<ResponseEntity<T>> future = new CompletableFuture<>();
+            future.completeExceptionally(new CompletionException(current));
+            return future;
+        }
+
+        @Override
+        public <T> ResponseEntity<T> exchange(final String url, final HttpMethod method,
+                                              final HttpEntity<?> entity,
+                                              final Class<T> responseType) {
+            RuntimeException current = failure;
+            if (current != null) {
+                throw current;
+            }
+            return delegate.exchange(url, method, entity, responseType);
+        }
+
+        @Override
+        public void close() {
+            // the fixture closes the delegate
+        }
+    }
+}
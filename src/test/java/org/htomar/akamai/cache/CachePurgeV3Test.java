@@ -0,0 +1,182 @@
+package org.htomar.akamai.cache;
+
+import org.htomar.akamai.request.CompositePurgeResponse;
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.request.PurgeType;
+import org.htomar.akamai.testkit.FakeCcuConfig;
+import org.htomar.akamai.testkit.FakeCcuFixture;
+import org.htomar.akamai.testkit.FakePurge;
+import org.htomar.akamai.testkit.LatencyDistribution;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.htomar.akamai.testkit.FakeCcuFixture.BASE_URL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks CCU v3 purges end to end against a fake CCU server.
+ *
+ * @author Himanshu Tomar
+ */
+public class CachePurgeV3Test {
+    private FakeCcuFixture fixture;
+    private CachePurgeV3 cachePurgeV3;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new FakeCcuFixture();
+        cachePurgeV3 = fixture.getCachePurgeV3();
+    }
+
+    @After
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void sendsSplitRequestWithEveryURL() throws Exception {
+        PurgeRequest<String> purgeRequest = urls(0, 3000);
+
+        PurgeResponse response = cachePurgeV3.purgeByURL(purgeRequest,
+                fixture.getCredential(), BASE_URL);
+
+        assertTrue(response instanceof CompositePurgeResponse);
+        assertEquals(3000, purgedObjects().size());
+    }
+
+    @Test
+    public void sendsURLsOfEveryHostInOneRequest() throws Exception {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(Arrays.asList("https://a.example.com/1",
+                "https://b.example.com/1", "https://a.example.com/2"));
+
+        cachePurgeV3.purgeByURL(purgeRequest, fixture.getCredential(), BASE_URL);
+
+        assertEquals(1, fixture.getServer().getPurges().size());
+        assertEquals(3, purgedObjects().size());
+    }
+
+    /**
+     * Split asynchronous purges over a blocking transport used to wait on
+     * the split executor for parts queued behind them, so that more
+     * concurrent purges than split threads never completed.
+     */
+    @Test
+    public void completesConcurrentSplitAsyncPurges() throws Exception {
+        cachePurgeV3.setMaxConcurrentRequests(2);
+        List<CompletableFuture<PurgeResponse>> purges = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            purges.add(purgeAsync(urls(i * 3000, 3000)));
+        }
+
+        for (CompletableFuture<PurgeResponse> purge : purges) {
+            assertTrue(purge.get(30, TimeUnit.SECONDS) instanceof CompositePurgeResponse);
+        }
+        assertEquals(8 * 3000, purgedObjects().size());
+    }
+
+    @Test
+    public void rejectsAsyncPurgesBeyondQueue() throws Exception {
+        fixture.getConfig().setLatency(LatencyDistribution.fixed(300));
+        cachePurgeV3.setMaxConcurrentRequests(1);
+        cachePurgeV3.setMaxQueuedPurges(1);
+        CompletableFuture<PurgeResponse> running = purgeAsync(urls(0, 1));
+        CompletableFuture<PurgeResponse> queued = purgeAsync(urls(1, 1));
+
+        CompletableFuture<PurgeResponse> rejected = purgeAsync(urls(2, 1));
+
+        assertTrue(rejected.isDone());
+        try {
+            rejected.get();
+            fail("purge beyond the queue accepted");
+        } catch (ExecutionException executionException) {
+            assertTrue(executionException.getCause() instanceof ResourceAccessException);
+        }
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(2, fixture.getServer().getPurges().size());
+    }
+
+    @Test
+    public void purgesNormalizedCPCodes() throws Exception {
+        PurgeRequest<Integer> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(Arrays.asList(300, 100, -1, 200, 100));
+
+        assertEquals("201", cachePurgeV3.purgeByCPCode(purgeRequest,
+                fixture.getCredential(), BASE_URL).getHttpStatus());
+
+        List<FakePurge> purges = fixture.getServer().getPurges();
+        assertEquals(1, purges.size());
+        assertEquals(Arrays.<Object>asList(100, 200, 300), purges.get(0).getObjects());
+    }
+
+    @Test
+    public void skipsRecentURLsWithoutChangingRequest() throws Exception {
+        cachePurgeV3.setRecentPurgeCache(new RecentPurgeCache(1, TimeUnit.MINUTES, 100));
+        cachePurgeV3.purgeByURL(urls(0, 2), fixture.getCredential(), BASE_URL);
+        PurgeRequest<String> purgeRequest = urls(1, 2);
+
+        cachePurgeV3.purgeByURL(purgeRequest, fixture.getCredential(), BASE_URL);
+
+        assertEquals(urls(1, 2).getObjects(), purgeRequest.getObjects());
+        assertEquals(Arrays.<Object>asList("https://www.example.com/some/long/path/2"),
+                fixture.getServer().getPurges().get(1).getObjects());
+    }
+
+    @Test
+    public void skipsRecentURLsAsynchronouslyWithoutChangingRequest() throws Exception {
+        try (FakeCcuFixture async = new FakeCcuFixture(new FakeCcuConfig(), true)) {
+            CachePurgeV3 asyncPurge = async.getCachePurgeV3();
+            asyncPurge.setRecentPurgeCache(new RecentPurgeCache(1, TimeUnit.MINUTES, 100));
+            asyncPurge.purgeAsync(urls(0, 2), async.getCredential(), BASE_URL, PurgeType.URL,
+                    PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION).get(5, TimeUnit.SECONDS);
+            PurgeRequest<String> purgeRequest = urls(1, 2);
+
+            asyncPurge.purgeAsync(purgeRequest, async.getCredential(), BASE_URL, PurgeType.URL,
+                    PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION).get(5, TimeUnit.SECONDS);
+
+            assertEquals(urls(1, 2).getObjects(), purgeRequest.getObjects());
+            assertEquals(Arrays.<Object>asList("https://www.example.com/some/long/path/2"),
+                    async.getServer().getPurges().get(1).getObjects());
+        }
+    }
+
+    private CompletableFuture<PurgeResponse> purgeAsync(final PurgeRequest<String> purgeRequest) {
+        return cachePurgeV3.purgeAsync(purgeRequest, fixture.getCredential(), BASE_URL,
+                PurgeType.URL, PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION);
+    }
+
+    private Set<Object> purgedObjects() {
+        Set<Object> objects = new HashSet<>();
+        for (FakePurge purge : fixture.getServer().getPurges()) {
+            objects.addAll(purge.getObjects());
+        }
+        return objects;
+    }
+
+    private static PurgeRequest<String> urls(final int from, final int count) {
+        List<String> urls = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            urls.add("https://www.example.com/some/long/path/" + i);
+        }
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(urls);
+        return purgeRequest;
+    }
+}
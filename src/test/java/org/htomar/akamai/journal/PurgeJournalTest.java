@@ -0,0 +1,73 @@
+package org.htomar.akamai.journal;
+
+import org.htomar.akamai.request.PurgeAction;
+import org.htomar.akamai.request.PurgeNetwork;
+import org.htomar.akamai.request.PurgeType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Himanshu Tomar
+ */
+public class PurgeJournalTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private PurgeJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        journal = new PurgeJournal(folder.getRoot().toPath());
+    }
+
+    @After
+    public void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    public void replaysPendingEntries() throws Exception {
+        JournalEntry done = journal.append(PurgeType.URL, PurgeAction.INVALIDATE,
+                PurgeNetwork.PRODUCTION, null,
+                Collections.singletonList("https://www.example.com/a"));
+        journal.append(PurgeType.CPCODE, PurgeAction.DELETE, PurgeNetwork.STAGING,
+                "www.example.com", Arrays.asList(100, 200));
+        journal.markDone(done.getId());
+        journal.close();
+
+        journal = new PurgeJournal(folder.getRoot().toPath());
+
+        assertEquals(1, journal.getPending().size());
+        JournalEntry entry = journal.getPending().get(0);
+        assertEquals(PurgeType.CPCODE, entry.getType());
+        assertEquals(PurgeNetwork.STAGING, entry.getNetwork());
+        assertEquals("www.example.com", entry.getHostname());
+        assertEquals(Arrays.<Object>asList(100, 200), entry.getObjects());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCPCodeThatIsNotAnInteger() {
+        journal.append(PurgeType.CPCODE, PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION,
+                null, Arrays.asList(100, "200"));
+    }
+
+    @Test
+    public void keepsNothingOfRejectedEntry() {
+        try {
+            journal.append(PurgeType.URL, PurgeAction.INVALIDATE, PurgeNetwork.PRODUCTION,
+                    null, Arrays.asList("https://www.example.com/a", 1));
+        } catch (IllegalArgumentException expected) {
+            // URLs should be strings
+        }
+        assertTrue(journal.getPending().isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package org.htomar.akamai.planner;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.request.PurgeRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks which URLs the planner collapses into CPCode purges.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgePlannerTest {
+    private CachePurgeV3 cachePurgeV3;
+
+    @Before
+    public void setUp() {
+        cachePurgeV3 = new CachePurgeV3();
+    }
+
+    @After
+    public void tearDown() {
+        cachePurgeV3.close();
+    }
+
+    @Test
+    public void matchesPrefixOnSegmentBoundary() {
+        assertTrue(PurgePlanner.isUnder("/shop", "/shop"));
+        assertTrue(PurgePlanner.isUnder("/shop/a", "/shop"));
+        assertTrue(PurgePlanner.isUnder("/shop?q=1", "/shop"));
+        assertTrue(PurgePlanner.isUnder("/shop/a", "/shop/"));
+        assertTrue(PurgePlanner.isUnder("/anything", "/"));
+        assertFalse(PurgePlanner.isUnder("/shopping", "/shop"));
+        assertFalse(PurgePlanner.isUnder("/shop-old/a", "/shop"));
+        assertFalse(PurgePlanner.isUnder("/sho", "/shop"));
+    }
+
+    @Test
+    public void collapsesOnlyURLsUnderPrefix() {
+        PlannerConfig config = new PlannerConfig();
+        config.setMinURLs(1);
+        config.setMaxBodySize(300);
+        PurgePlanner planner = new PurgePlanner(cachePurgeV3, Collections.singletonList(
+                new PurgeMapping("www.example.com", "/shop", 1234)), config);
+        List<String> urls = new ArrayList<>();
+        List<String> shopping = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            urls.add("https://www.example.com/shop/item/" + i);
+            shopping.add("https://www.example.com/shopping/item/" + i);
+        }
+        urls.addAll(shopping);
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(urls);
+
+        PurgePlan plan = planner.plan(purgeRequest);
+
+        assertEquals(Collections.singletonList(1234), plan.getCpCodes());
+        assertEquals(shopping, plan.getUrls());
+    }
+}
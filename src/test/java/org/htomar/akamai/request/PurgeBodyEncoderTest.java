@@ -0,0 +1,95 @@
+package org.htomar.akamai.request;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the encoded bodies against Jackson and their hashes.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeBodyEncoderTest {
+
+    @Test
+    public void writesSameBytesAsJackson() throws Exception {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setHostname("www.example.com");
+        purgeRequest.setObjects(Arrays.asList("/a", "/quote\"back\\slash",
+                "/tab\tnewline\n", "/\u00e9t\u00e9", "/\u2028"));
+
+        assertEncoded(purgeRequest);
+    }
+
+    @Test
+    public void writesNumbersAsNumbers() throws Exception {
+        PurgeRequest<Number> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setType("cpcode");
+        purgeRequest.setObjects(Arrays.<Number>asList(12345, Integer.MIN_VALUE,
+                9876543210L, new BigDecimal("1.50"), 2.5d));
+
+        assertEncoded(purgeRequest);
+    }
+
+    @Test
+    public void hashesLongBodies() throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            urls.add("https://www.example.com/path/" + i);
+        }
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(urls);
+
+        assertEncoded(purgeRequest);
+    }
+
+    /**
+     * An encoding failing after part of its body was hashed must not leave
+     * bytes in the digest reused by the next encoding on the same thread.
+     */
+    @Test
+    public void resetsDigestAfterFailedEncoding() throws Exception {
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            objects.add("https://www.example.com/path/" + i);
+        }
+        objects.add(new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("not serializable");
+            }
+        });
+        PurgeRequest<Object> failing = new PurgeRequest<>();
+        failing.setObjects(objects);
+        try {
+            PurgeBodyEncoder.encode(failing);
+            fail("encoding did not fail");
+        } catch (IllegalStateException expected) {
+            // the digest was fed the first URLs
+        }
+
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(Arrays.asList("https://www.example.com/a"));
+        PurgeBody body = PurgeBodyEncoder.encode(purgeRequest);
+
+        assertArrayEquals(sha256(body.getBytes()), body.getContentHash());
+    }
+
+    private static void assertEncoded(final PurgeRequest<?> purgeRequest) throws Exception {
+        PurgeBody body = PurgeBodyEncoder.encode(purgeRequest);
+
+        assertArrayEquals(PurgeRequestWriter.toBytes(purgeRequest), body.getBytes());
+        assertArrayEquals(sha256(body.getBytes()), body.getContentHash());
+    }
+
+    private static byte[] sha256(final byte[] bytes) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(bytes);
+    }
+}
@@ -0,0 +1,83 @@
+package org.htomar.akamai.request;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Himanshu Tomar
+ */
+public class PurgeRequestSplitterTest {
+    private static final int MAX_BODY_SIZE = 1000;
+
+    @Test
+    public void keepsRequestThatFits() {
+        PurgeRequest<String> purgeRequest = urls(Arrays.asList(
+                "https://www.example.com/a", "https://www.example.com/b"));
+
+        List<PurgeRequest<String>> parts = PurgeRequestSplitter.split(purgeRequest, MAX_BODY_SIZE);
+
+        assertEquals(1, parts.size());
+        assertSame(purgeRequest, parts.get(0));
+    }
+
+    @Test
+    public void splitsIntoBodiesThatFit() {
+        List<String> objects = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            objects.add("https://www.example.com/path/" + i);
+        }
+        PurgeRequest<String> purgeRequest = urls(objects);
+        purgeRequest.setHostname("www.example.com");
+
+        List<PurgeRequest<String>> parts = PurgeRequestSplitter.split(purgeRequest, MAX_BODY_SIZE);
+
+        assertTrue(parts.size() > 1);
+        List<String> joined = new ArrayList<>();
+        for (PurgeRequest<String> part : parts) {
+            assertTrue(PurgeBodyEncoder.encode(part).getLength() <= MAX_BODY_SIZE);
+            assertEquals("www.example.com", part.getHostname());
+            joined.addAll(part.getObjects());
+        }
+        assertEquals(objects, joined);
+    }
+
+    @Test
+    public void fillsEveryBodyUpToTheLimit() {
+        List<Integer> objects = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            objects.add(100000 + i);
+        }
+        PurgeRequest<Integer> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(objects);
+
+        List<PurgeRequest<Integer>> parts = PurgeRequestSplitter.split(purgeRequest, MAX_BODY_SIZE);
+
+        for (PurgeRequest<Integer> part : parts.subList(0, parts.size() - 1)) {
+            int length = PurgeBodyEncoder.encode(part).getLength();
+            // one more 6 digit CPCode and its comma would not fit
+            assertTrue(length <= MAX_BODY_SIZE && length + 7 > MAX_BODY_SIZE);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsObjectLargerThanBody() {
+        char[] path = new char[MAX_BODY_SIZE];
+        Arrays.fill(path, 'a');
+        PurgeRequestSplitter.split(urls(Collections.singletonList(
+                "https://www.example.com/" + new String(path))), MAX_BODY_SIZE);
+    }
+
+    private static PurgeRequest<String> urls(final List<String> urls) {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(urls);
+        return purgeRequest;
+    }
+}
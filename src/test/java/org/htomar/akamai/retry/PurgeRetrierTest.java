@@ -0,0 +1,145 @@
+package org.htomar.akamai.retry;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.testkit.FakeCcuConfig;
+import org.htomar.akamai.testkit.FakeCcuFixture;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.credentials.OpenAkamaiCredential;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.htomar.akamai.testkit.FakeCcuFixture.BASE_URL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the retries of CCU v3 purges against a fake CCU server failing on
+ * demand.
+ *
+ * @author Himanshu Tomar
+ */
+public class PurgeRetrierTest {
+    private FakeCcuConfig serverConfig;
+    private FakeCcuFixture fixture;
+    private RetryPolicy policy;
+    private CachePurgeV3 cachePurgeV3;
+
+    @Before
+    public void setUp() throws Exception {
+        serverConfig = new FakeCcuConfig();
+        // no Retry-After hint, so that retries back off from the base delay
+        serverConfig.setRetryAfterSeconds(0);
+        fixture = new FakeCcuFixture(serverConfig, false);
+        policy = new RetryPolicy();
+        policy.setMaxAttempts(3);
+        policy.setBaseDelayMillis(1);
+        policy.setMaxDelayMillis(100);
+        cachePurgeV3 = fixture.getCachePurgeV3();
+        cachePurgeV3.setRetrier(new PurgeRetrier(policy, new RetryBudget(1, 10)));
+    }
+
+    @After
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void retriesServerErrorsUpToMaxAttempts() throws Exception {
+        serverConfig.setServerErrorRate(1);
+        try {
+            purge();
+            fail("server error not thrown");
+        } catch (HttpServerErrorException serverErrorException) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, serverErrorException.getStatusCode());
+        }
+        assertEquals(3, fixture.getServer().getRequestCount());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() throws Exception {
+        ClientCredential unknown = new OpenAkamaiCredential(
+                "unknown-token", "access-token", "c2VjcmV0", BASE_URL);
+        try {
+            cachePurgeV3.purgeByURL(urls(), unknown, BASE_URL);
+            fail("client error not thrown");
+        } catch (HttpClientErrorException clientErrorException) {
+            assertEquals(HttpStatus.UNAUTHORIZED, clientErrorException.getStatusCode());
+        }
+        assertEquals(1, fixture.getServer().getRequestCount());
+    }
+
+    @Test
+    public void stopsWhenRetryAfterExceedsMaxDelay() throws Exception {
+        serverConfig.setTooManyRequestsRate(1);
+        serverConfig.setRetryAfterSeconds(1);
+        try {
+            purge();
+            fail("429 not thrown");
+        } catch (HttpClientErrorException clientErrorException) {
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, clientErrorException.getStatusCode());
+        }
+        assertEquals(1, fixture.getServer().getRequestCount());
+    }
+
+    @Test
+    public void stopsWhenBudgetRunsOut() throws Exception {
+        cachePurgeV3.setRetrier(new PurgeRetrier(policy, new RetryBudget(0, 1)));
+        serverConfig.setServerErrorRate(1);
+        for (int i = 0; i < 2; i++) {
+            try {
+                purge();
+                fail("server error not thrown");
+            } catch (HttpServerErrorException expected) {
+                // retried while the budget lasts
+            }
+        }
+        // 2 attempts for the first purge, the budget is then empty
+        assertEquals(3, fixture.getServer().getRequestCount());
+    }
+
+    @Test
+    public void retriesAsynchronousAttempts() throws Exception {
+        PurgeRetrier retrier = new PurgeRetrier(policy, new RetryBudget(1, 10));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            CompletableFuture<String> result = retrier.executeAsync(() -> {
+                CompletableFuture<String> attempt = new CompletableFuture<>();
+                if (attempts.incrementAndGet() < 3) {
+                    attempt.completeExceptionally(
+                            new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+                } else {
+                    attempt.complete("done");
+                }
+                return attempt;
+            }, scheduler);
+
+            assertEquals("done", result.get(5, TimeUnit.SECONDS));
+            assertEquals(3, attempts.get());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void purge() throws Exception {
+        cachePurgeV3.purgeByURL(urls(), fixture.getCredential(), BASE_URL);
+    }
+
+    private static PurgeRequest<String> urls() {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(Collections.singletonList("https://www.example.com/a"));
+        return purgeRequest;
+    }
+}
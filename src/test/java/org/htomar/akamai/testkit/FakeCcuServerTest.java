@@ -0,0 +1,98 @@
+package org.htomar.akamai.testkit;
+
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Himanshu Tomar
+ */
+public class FakeCcuServerTest {
+    private FakeCcuFixture fixture;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new FakeCcuFixture();
+    }
+
+    @After
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void recordsAcceptedPurges() throws Exception {
+        PurgeResponse response = purge("https://www.example.com/a", "https://www.example.com/b");
+
+        assertEquals("201", response.getHttpStatus());
+        FakePurge purge = fixture.getServer().getPurge(response.getPurgeId());
+        assertNotNull(purge);
+        assertEquals("client-token", purge.getClient());
+        assertEquals(Arrays.<Object>asList("https://www.example.com/a",
+                "https://www.example.com/b"), purge.getObjects());
+        assertEquals(1, fixture.getServer().getStatusCount(201));
+    }
+
+    @Test
+    public void injectsServerErrorsWithRetryAfter() throws Exception {
+        fixture.getConfig().setServerErrorRate(1);
+        fixture.getConfig().setRetryAfterSeconds(7);
+        try {
+            purge("https://www.example.com/a");
+            fail("server error not injected");
+        } catch (HttpServerErrorException serverErrorException) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, serverErrorException.getStatusCode());
+            assertEquals("7", serverErrorException.getResponseHeaders().getFirst("Retry-After"));
+        }
+        assertEquals(0, fixture.getServer().getPurges().size());
+    }
+
+    @Test
+    public void enforcesRateLimit() throws Exception {
+        fixture.getConfig().setRequestsPerSecond(0.01);
+        fixture.getConfig().setBurst(2);
+        purge("https://www.example.com/a");
+        purge("https://www.example.com/b");
+        try {
+            purge("https://www.example.com/c");
+            fail("rate limit not enforced");
+        } catch (HttpClientErrorException clientErrorException) {
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, clientErrorException.getStatusCode());
+        }
+    }
+
+    @Test
+    public void rejectsBodiesOverMaxSize() throws Exception {
+        fixture.getConfig().setMaxBodySize(1000);
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            urls.add("https://www.example.com/" + i);
+        }
+        try {
+            purge(urls.toArray(new String[0]));
+            fail("oversized body accepted");
+        } catch (HttpClientErrorException clientErrorException) {
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, clientErrorException.getStatusCode());
+        }
+    }
+
+    private PurgeResponse purge(final String... urls) throws Exception {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(new ArrayList<>(Arrays.asList(urls)));
+        return fixture.getCachePurgeV3().purgeByURL(purgeRequest,
+                fixture.getCredential(), FakeCcuFixture.BASE_URL);
+    }
+}
@@ -0,0 +1,125 @@
+package org.htomar.openakamai.edge.auth.signer;
+
+import org.htomar.akamai.request.PurgeBody;
+import org.htomar.akamai.request.PurgeBodyEncoder;
+import org.htomar.akamai.request.PurgeRequest;
+import org.htomar.akamai.request.PurgeRequestWriter;
+import org.htomar.akamai.request.PurgeResponse;
+import org.htomar.akamai.testkit.FakeCcuFixture;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.credentials.OpenAkamaiCredential;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Arrays;
+
+import static org.htomar.akamai.testkit.FakeCcuFixture.BASE_URL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the EdgeGrid signatures against the verifier of the fake CCU server.
+ *
+ * @author Himanshu Tomar
+ */
+public class EdgeGridV1SignerTest {
+    private static final String END_POINT = "/ccu/v3/invalidate/url/production";
+
+    private final EdgeGridV1Signer signer = new EdgeGridV1Signer();
+
+    private FakeCcuFixture fixture;
+
+    @Before
+    public void setUp() throws Exception {
+        fixture = new FakeCcuFixture();
+    }
+
+    @After
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void signsEncodedBody() throws Exception {
+        PurgeBody body = PurgeBodyEncoder.encode(urls("https://www.example.com/a"));
+
+        ResponseEntity<PurgeResponse> response = post(body.getBytes(),
+                signer.sign(fixture.getCredential(), BASE_URL, END_POINT, body));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(1, fixture.getServer().getPurges().size());
+    }
+
+    @Test
+    public void signsSerializedBytes() throws Exception {
+        byte[] body = PurgeRequestWriter.toBytes(urls("https://www.example.com/a",
+                "https://www.example.com/\u00e9t\u00e9?q=\"x\""));
+
+        ResponseEntity<PurgeResponse> response = post(body,
+                signer.sign(fixture.getCredential(), BASE_URL, END_POINT, body));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    }
+
+    @Test
+    public void signatureCoversBody() throws Exception {
+        PurgeBody body = PurgeBodyEncoder.encode(urls("https://www.example.com/a"));
+        HttpHeaders headers = signer.sign(fixture.getCredential(), BASE_URL, END_POINT, body);
+        byte[] tampered = PurgeBodyEncoder.encode(urls("https://www.example.com/b")).getBytes();
+
+        try {
+            post(tampered, headers);
+            fail("tampered body accepted");
+        } catch (HttpClientErrorException clientErrorException) {
+            assertEquals(HttpStatus.UNAUTHORIZED, clientErrorException.getStatusCode());
+        }
+        assertEquals(0, fixture.getServer().getPurges().size());
+    }
+
+    @Test
+    public void signatureUsesClientSecret() throws Exception {
+        ClientCredential wrongSecret = new OpenAkamaiCredential(
+                "client-token", "access-token", "b3RoZXI=", BASE_URL);
+        PurgeBody body = PurgeBodyEncoder.encode(urls("https://www.example.com/a"));
+
+        try {
+            post(body.getBytes(), signer.sign(wrongSecret, BASE_URL, END_POINT, body));
+            fail("wrong secret accepted");
+        } catch (HttpClientErrorException clientErrorException) {
+            assertEquals(HttpStatus.UNAUTHORIZED, clientErrorException.getStatusCode());
+        }
+    }
+
+    @Test
+    public void signsStatusRequest() throws Exception {
+        PurgeBody body = PurgeBodyEncoder.encode(urls("https://www.example.com/a"));
+        String progressUri = post(body.getBytes(), signer.sign(fixture.getCredential(),
+                BASE_URL, END_POINT, body)).getBody().getProgressUri();
+        assertNotNull(progressUri);
+
+        ResponseEntity<String> status = fixture.getTransport().exchange(BASE_URL + progressUri,
+                HttpMethod.GET, new HttpEntity<>(signer.signGet(fixture.getCredential(),
+                        BASE_URL, progressUri)), String.class);
+
+        assertEquals(HttpStatus.OK, status.getStatusCode());
+    }
+
+    private ResponseEntity<PurgeResponse> post(final byte[] body, final HttpHeaders headers) {
+        return fixture.getTransport().exchange(BASE_URL + END_POINT, HttpMethod.POST,
+                new HttpEntity<>(body, headers), PurgeResponse.class);
+    }
+
+    private static PurgeRequest<String> urls(final String... urls) {
+        PurgeRequest<String> purgeRequest = new PurgeRequest<>();
+        purgeRequest.setObjects(Arrays.asList(urls));
+        return purgeRequest;
+    }
+}
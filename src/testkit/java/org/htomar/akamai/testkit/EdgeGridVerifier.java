@@ -0,0 +1,150 @@
+package org.htomar.akamai.testkit;
+
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Server side check of EG1-HMAC-SHA256 Authorization headers, the
+ * counterpart of the EdgeGridV1Signer. The signed host is taken from the
+ * base URL of the credential, so requests may reach the server through any
+ * address.
+ *
+ * @author Himanshu Tomar
+ */
+final class EdgeGridVerifier {
+    private static final String ALGORITHM = "EG1-HMAC-SHA256 ";
+    private static final String SIGNATURE_FIELD = "signature=";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HH:mm:ssZ");
+
+    private final Map<String, ClientCredential> credentials;
+    private final long maxClockSkewMillis;
+
+    EdgeGridVerifier(final Map<String, ClientCredential> credentials,
+                     final long maxClockSkewMillis) {
+        this.credentials = credentials;
+        this.maxClockSkewMillis = maxClockSkewMillis;
+    }
+
+    /**
+     * Verifies a request signature.
+     *
+     * @param method        the HTTP method.
+     * @param path          the raw request path, including any query string.
+     * @param body          the request body, only hashed for POST.
+     * @param maxBodySize   the number of body bytes covered by the content hash.
+     * @param authorization the Authorization header, may be null.
+     * @return the client token of the verified credential.
+     * @throws IllegalArgumentException describing why the signature is rejected.
+     */
+    String verify(final String method, final String path, final byte[] body,
+                  final int maxBodySize, final String authorization) {
+        if (authorization == null || !authorization.startsWith(ALGORITHM)) {
+            throw new IllegalArgumentException("Missing EG1-HMAC-SHA256 Authorization header");
+        }
+        int signatureStart = authorization.lastIndexOf(SIGNATURE_FIELD);
+        if (signatureStart < 0) {
+            throw new IllegalArgumentException("Missing signature");
+        }
+        String authData = authorization.substring(0, signatureStart);
+        String clientToken = field(authData, "client_token=");
+        String accessToken = field(authData, "access_token=");
+        String timeStamp = field(authData, "timestamp=");
+        if (field(authData, "nonce=") == null) {
+            throw new IllegalArgumentException("Missing nonce");
+        }
+        ClientCredential credential = clientToken == null ? null : credentials.get(clientToken);
+        if (credential == null || !credential.getAccessToken().equals(accessToken)) {
+            throw new IllegalArgumentException("Invalid client or access token");
+        }
+        checkTimeStamp(timeStamp);
+
+        StringBuilder dataToSign = new StringBuilder(256 + path.length())
+                .append(method).append("\thttps\t")
+                .append(signedHost(credential.getBaseURL())).append('\t')
+                .append(path).append("\t\t");
+        if ("POST".equals(method) && body != null) {
+            dataToSign.append(Base64.getEncoder().encodeToString(
+                    sha256(body, Math.min(body.length, maxBodySize))));
+        }
+        dataToSign.append('\t').append(authData);
+
+        // the signing key is the Base64 text of the timestamp's HMAC
+        byte[] signingKey = Base64.getEncoder().encode(hmac(
+                credential.getClientSecret().getBytes(StandardCharsets.UTF_8), timeStamp));
+        byte[] expected = hmac(signingKey, dataToSign.toString());
+        byte[] actual;
+        try {
+            actual = Base64.getDecoder().decode(
+                    authorization.substring(signatureStart + SIGNATURE_FIELD.length()).trim());
+        } catch (IllegalArgumentException illegalArgumentException) {
+            throw new IllegalArgumentException("Malformed signature");
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new IllegalArgumentException("The signature does not match");
+        }
+        return clientToken;
+    }
+
+    private void checkTimeStamp(final String timeStamp) {
+        if (timeStamp == null) {
+            throw new IllegalArgumentException("Missing timestamp");
+        }
+        long signedAt;
+        try {
+            signedAt = OffsetDateTime.parse(timeStamp, TIMESTAMP_FORMAT)
+                    .toInstant().toEpochMilli();
+        } catch (DateTimeParseException parseException) {
+            throw new IllegalArgumentException("Malformed timestamp " + timeStamp);
+        }
+        if (maxClockSkewMillis > 0
+                && Math.abs(System.currentTimeMillis() - signedAt) > maxClockSkewMillis) {
+            throw new IllegalArgumentException("Timestamp " + timeStamp + " is out of range");
+        }
+    }
+
+    private static String field(final String authData, final String name) {
+        int start = authData.indexOf(name);
+        if (start < 0) {
+            return null;
+        }
+        start += name.length();
+        int end = authData.indexOf(';', start);
+        return end < 0 ? authData.substring(start) : authData.substring(start, end);
+    }
+
+    private static String signedHost(final String baseURL) {
+        String host = baseURL.startsWith("https://") ? baseURL.substring(8) : baseURL;
+        return host.endsWith("/") ? host.substring(0, host.length() - 1) : host;
+    }
+
+    private static byte[] sha256(final byte[] data, final int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data, 0, length);
+            return digest.digest();
+        } catch (GeneralSecurityException securityException) {
+            throw new IllegalStateException(securityException);
+        }
+    }
+
+    private static byte[] hmac(final byte[] key, final String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException securityException) {
+            throw new IllegalStateException(securityException);
+        }
+    }
+}
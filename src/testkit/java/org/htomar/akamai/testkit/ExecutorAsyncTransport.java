@@ -0,0 +1,79 @@
+package org.htomar.akamai.testkit;
+
+import org.htomar.akamai.transport.AsyncHttpTransport;
+import org.htomar.akamai.transport.HttpTransport;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClientException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link AsyncHttpTransport} running the requests of a blocking transport on
+ * its own threads, so that the asynchronous purge paths can be driven
+ * against a {@link FakeCcuServer}.
+ *
+ * @author Himanshu Tomar
+ */
+public class ExecutorAsyncTransport implements AsyncHttpTransport {
+    private final HttpTransport delegate;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the transport actually sending the requests, closed
+     *                 together with this transport.
+     * @param threads  the number of requests sent at once.
+     */
+    public ExecutorAsyncTransport(final HttpTransport delegate, final int threads) {
+        Assert.notNull(delegate, "transport cannot be null.");
+        Assert.isTrue(threads > 0, "threads should be positive.");
+        this.delegate = delegate;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-ccu-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(final String url,
+                                                                 final HttpMethod method,
+                                                                 final HttpEntity<?> entity,
+                                                                 final Class<T> responseType) {
+        CompletableFuture<ResponseEntity<T>> response = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                response.complete(delegate.exchange(url, method, entity, responseType));
+            } catch (RuntimeException exception) {
+                response.completeExceptionally(exception);
+            }
+        });
+        return response;
+    }
+
+    @Override
+    public <T> ResponseEntity<T> exchange(final String url,
+                                          final HttpMethod method,
+                                          final HttpEntity<?> entity,
+                                          final Class<T> responseType)
+            throws RestClientException {
+        return delegate.exchange(url, method, entity, responseType);
+    }
+
+    @Override
+    public void warmUp(final Class<?> responseType, final byte[] sample) {
+        delegate.warmUp(responseType, sample);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        delegate.close();
+    }
+}
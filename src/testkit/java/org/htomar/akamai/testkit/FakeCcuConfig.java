@@ -0,0 +1,208 @@
+package org.htomar.akamai.testkit;
+
+/**
+ * Behavior of a {@link FakeCcuServer}: latency, injected failures, rate
+ * limit and request validation. Rates are probabilities between 0 and 1.
+ *
+ * @author Himanshu Tomar
+ */
+public class FakeCcuConfig {
+    private int threads = 16;
+    private LatencyDistribution latency = LatencyDistribution.none();
+    private double tooManyRequestsRate;
+    private double serverErrorRate;
+    private int serverErrorStatus = 503;
+    private int retryAfterSeconds = 1;
+    private double requestsPerSecond;
+    private int burst = 10;
+    private int maxBodySize = 50000;
+    private int estimatedSeconds = 5;
+    private long maxClockSkewMillis = 30000;
+    private boolean verifySignatures = true;
+
+    /**
+     * @return the number of threads answering requests
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads answering requests
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the distribution of the time taken to answer a request
+     */
+    public LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    /**
+     * @param latency the distribution of the time taken to answer a request
+     */
+    public void setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @return the share of valid requests rejected with 429
+     */
+    public double getTooManyRequestsRate() {
+        return tooManyRequestsRate;
+    }
+
+    /**
+     * @param tooManyRequestsRate the share of valid requests rejected with 429
+     */
+    public void setTooManyRequestsRate(double tooManyRequestsRate) {
+        this.tooManyRequestsRate = tooManyRequestsRate;
+    }
+
+    /**
+     * @return the share of valid requests failed with a server error
+     */
+    public double getServerErrorRate() {
+        return serverErrorRate;
+    }
+
+    /**
+     * @param serverErrorRate the share of valid requests failed with a server error
+     */
+    public void setServerErrorRate(double serverErrorRate) {
+        this.serverErrorRate = serverErrorRate;
+    }
+
+    /**
+     * @return the status of injected server errors
+     */
+    public int getServerErrorStatus() {
+        return serverErrorStatus;
+    }
+
+    /**
+     * @param serverErrorStatus the status of injected server errors
+     */
+    public void setServerErrorStatus(int serverErrorStatus) {
+        this.serverErrorStatus = serverErrorStatus;
+    }
+
+    /**
+     * @return the Retry-After seconds of 429 and 503 responses, 0 for none
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * @param retryAfterSeconds the Retry-After seconds of 429 and 503 responses, 0 for none
+     */
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return the purge requests accepted per second and client, 0 for no limit
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @param requestsPerSecond the purge requests accepted per second and client, 0 for no limit
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * @return the purge requests a client may send at once under the rate limit
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @param burst the purge requests a client may send at once under the rate limit
+     */
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    /**
+     * @return the largest body accepted, larger ones get 413
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @param maxBodySize the largest body accepted, larger ones get 413
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * @return the seconds after which an accepted purge is reported done
+     */
+    public int getEstimatedSeconds() {
+        return estimatedSeconds;
+    }
+
+    /**
+     * @param estimatedSeconds the seconds after which an accepted purge is reported done
+     */
+    public void setEstimatedSeconds(int estimatedSeconds) {
+        this.estimatedSeconds = estimatedSeconds;
+    }
+
+    /**
+     * @return the largest accepted difference between a signature timestamp
+     * and the server clock, 0 to accept any
+     */
+    public long getMaxClockSkewMillis() {
+        return maxClockSkewMillis;
+    }
+
+    /**
+     * @param maxClockSkewMillis the largest accepted difference between a
+     *                           signature timestamp and the server clock, 0 to accept any
+     */
+    public void setMaxClockSkewMillis(long maxClockSkewMillis) {
+        this.maxClockSkewMillis = maxClockSkewMillis;
+    }
+
+    /**
+     * @return whether requests without a valid EdgeGrid signature or Basic
+     * credential are rejected with 401
+     */
+    public boolean isVerifySignatures() {
+        return verifySignatures;
+    }
+
+    /**
+     * @param verifySignatures whether requests without a valid EdgeGrid
+     *                         signature or Basic credential are rejected with 401
+     */
+    public void setVerifySignatures(boolean verifySignatures) {
+        this.verifySignatures = verifySignatures;
+    }
+
+    @Override
+    public String toString() {
+        return "FakeCcuConfig [threads=" + threads
+                + ", tooManyRequestsRate=" + tooManyRequestsRate
+                + ", serverErrorRate=" + serverErrorRate
+                + ", serverErrorStatus=" + serverErrorStatus
+                + ", retryAfterSeconds=" + retryAfterSeconds
+                + ", requestsPerSecond=" + requestsPerSecond
+                + ", burst=" + burst + ", maxBodySize=" + maxBodySize
+                + ", estimatedSeconds=" + estimatedSeconds
+                + ", maxClockSkewMillis=" + maxClockSkewMillis
+                + ", verifySignatures=" + verifySignatures + "]";
+    }
+}
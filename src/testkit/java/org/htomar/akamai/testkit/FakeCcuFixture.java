@@ -0,0 +1,109 @@
+package org.htomar.akamai.testkit;
+
+import org.htomar.akamai.cache.CachePurgeV3;
+import org.htomar.akamai.transport.HttpTransport;
+import org.htomar.akamai.transport.PooledHttpTransport;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.htomar.openakamai.edge.auth.credentials.OpenAkamaiCredential;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A {@link FakeCcuServer} with a registered credential and a
+ * {@link CachePurgeV3} talking to it, the common setup of tests driving
+ * purges end to end. Retries are disabled, so that every purge sends a known
+ * number of requests.
+ *
+ * @author Himanshu Tomar
+ */
+public class FakeCcuFixture implements Closeable {
+    /**
+     * The base URL of the credential, the host the signatures are made for.
+     */
+    public static final String BASE_URL = "https://akab-fake.luna.akamaiapis.net";
+
+    private final FakeCcuConfig config;
+    private final FakeCcuServer server;
+    private final ClientCredential credential;
+    private final HttpTransport transport;
+    private final CachePurgeV3 cachePurgeV3;
+
+    /**
+     * Constructor using the default {@link FakeCcuConfig} and a blocking
+     * transport.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public FakeCcuFixture() throws IOException {
+        this(new FakeCcuConfig(), false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config       the server behavior, may be changed while running.
+     * @param asynchronous whether the transport is an {@link ExecutorAsyncTransport}.
+     * @throws IOException if the server cannot be started.
+     */
+    public FakeCcuFixture(final FakeCcuConfig config, final boolean asynchronous)
+            throws IOException {
+        this.config = config;
+        this.server = new FakeCcuServer(config);
+        this.credential = new OpenAkamaiCredential("client-token", "access-token",
+                "c2VjcmV0", BASE_URL);
+        server.addCredential(credential);
+        HttpTransport redirecting = new RedirectingTransport(new PooledHttpTransport(),
+                server.getBaseURL());
+        this.transport = asynchronous
+                ? new ExecutorAsyncTransport(redirecting, 4)
+                : redirecting;
+        this.cachePurgeV3 = new CachePurgeV3(transport);
+        cachePurgeV3.setRetrier(null);
+    }
+
+    /**
+     * @return the server behavior
+     */
+    public FakeCcuConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the server
+     */
+    public FakeCcuServer getServer() {
+        return server;
+    }
+
+    /**
+     * @return the credential accepted by the server
+     */
+    public ClientCredential getCredential() {
+        return credential;
+    }
+
+    /**
+     * @return the transport sending requests to the server
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return the purge utility sending requests to the server
+     */
+    public CachePurgeV3 getCachePurgeV3() {
+        return cachePurgeV3;
+    }
+
+    /**
+     * Closes the purge utility, the transport and the server.
+     */
+    @Override
+    public void close() {
+        cachePurgeV3.close();
+        transport.close();
+        server.close();
+    }
+}
@@ -0,0 +1,564 @@
+package org.htomar.akamai.testkit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.htomar.openakamai.edge.auth.credentials.BasicCredential;
+import org.htomar.openakamai.edge.auth.credentials.ClientCredential;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embeddable stand-in for the Akamai CCU v3 and v2 APIs, for load and
+ * integration testing of purge pipelines without network access.
+ * <p>
+ * The server listens on the loopback address over plain HTTP. Purge
+ * utilities reach it through a {@link RedirectingTransport}, so their
+ * credentials keep their https base URL, which is also the host the
+ * EdgeGrid signatures are checked against.
+ * </p>
+ * <p>
+ * Served endpoints:
+ * </p>
+ * <ul>
+ * <li>POST /ccu/v3/{invalidate|delete}/{url|cpcode|tag}/{production|staging},
+ * EdgeGrid signed;</li>
+ * <li>GET /ccu/v3/purges/{purgeId}, EdgeGrid signed, the progressUri of
+ * accepted v3 purges;</li>
+ * <li>POST /ccu/v2/queues/default and GET /ccu/v2/purges/{purgeId} and
+ * /ccu/v2/queues/default, with Basic auth.</li>
+ * </ul>
+ * <p>
+ * Every request waits for a latency drawn from the configured distribution.
+ * Valid purge requests are then subject to the rate limit and to randomly
+ * injected 429 and server errors, in that order, before being accepted.
+ * </p>
+ *
+ * @author Himanshu Tomar
+ */
+public class FakeCcuServer implements Closeable {
+    /**
+     * The logger used for logging.
+     */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(FakeCcuServer.class);
+
+    private static final String V3_PREFIX = "/ccu/v3/";
+    private static final String V3_STATUS_PREFIX = "/ccu/v3/purges/";
+    private static final String V2_QUEUE = "/ccu/v2/queues/default";
+    private static final String V2_STATUS_PREFIX = "/ccu/v2/purges/";
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String LIMIT_HEADER = "X-RateLimit-Limit";
+
+    private final FakeCcuConfig config;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ClientCredential> clientCredentials = new ConcurrentHashMap<>();
+    private final Map<String, String> basicCredentials = new ConcurrentHashMap<>();
+    private final EdgeGridVerifier verifier;
+    private final ConcurrentMap<String, FakePurge> purgesById = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<FakePurge> purges = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Constructor using the default {@link FakeCcuConfig}. Starts the server
+     * on a free port.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public FakeCcuServer() throws IOException {
+        this(new FakeCcuConfig());
+    }
+
+    /**
+     * Constructor. Starts the server on a free port.
+     *
+     * @param config the server behavior, read on every request.
+     * @throws IOException if the server cannot be started.
+     */
+    public FakeCcuServer(final FakeCcuConfig config) throws IOException {
+        this(config, 0);
+    }
+
+    /**
+     * Constructor. Starts the server.
+     *
+     * @param config the server behavior, read on every request.
+     * @param port   the port to listen on, 0 for a free one.
+     * @throws IOException if the server cannot be started.
+     */
+    public FakeCcuServer(final FakeCcuConfig config, final int port) throws IOException {
+        Assert.notNull(config, "config cannot be null.");
+        Assert.isTrue(config.getThreads() > 0, "threads should be positive.");
+        this.config = config;
+        this.verifier = new EdgeGridVerifier(clientCredentials, config.getMaxClockSkewMillis());
+        this.server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.executor = Executors.newFixedThreadPool(config.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "fake-ccu-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(V3_PREFIX, this::handleV3);
+        server.createContext("/ccu/v2/", this::handleV2);
+        server.start();
+        LOGGER.info("Started fake CCU server on {} with {}", getBaseURL(), config);
+    }
+
+    /**
+     * Registers a credential whose EdgeGrid signatures are accepted.
+     *
+     * @param credential the credential, its base URL being the signed host.
+     */
+    public void addCredential(final ClientCredential credential) {
+        Assert.notNull(credential, "credential cannot be null.");
+        clientCredentials.put(credential.getClientToken(), credential);
+    }
+
+    /**
+     * Registers a Basic auth credential accepted by the CCU v2 endpoints.
+     *
+     * @param credential the credential.
+     */
+    public void addCredential(final BasicCredential credential) {
+        Assert.notNull(credential, "credential cannot be null.");
+        basicCredentials.put(credential.getUsername(), credential.getPassword());
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return the scheme and authority of the server, for a {@link RedirectingTransport}
+     */
+    public String getBaseURL() {
+        return "http://" + server.getAddress().getHostString() + ':' + getPort();
+    }
+
+    /**
+     * @return the accepted purges, in the order they were accepted
+     */
+    public List<FakePurge> getPurges() {
+        return new ArrayList<>(purges);
+    }
+
+    /**
+     * @param purgeId the purge id.
+     * @return the accepted purge of the given id, null if none
+     */
+    public FakePurge getPurge(final String purgeId) {
+        return purgesById.get(purgeId);
+    }
+
+    /**
+     * @return the number of requests received
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @param status the HTTP status.
+     * @return the number of responses sent with the given status
+     */
+    public long getStatusCount(final int status) {
+        LongAdder count = statusCounts.get(status);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Forgets the accepted purges, counters and rate limit state.
+     */
+    public void reset() {
+        purges.clear();
+        purgesById.clear();
+        rateLimits.clear();
+        statusCounts.clear();
+        requests.reset();
+    }
+
+    private void handleV3(final HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            String signedPath = query == null ? path : path + '?' + query;
+            String method = exchange.getRequestMethod();
+            byte[] body = begin(exchange);
+            if (body == null) {
+                return;
+            }
+            String client = null;
+            if (config.isVerifySignatures()) {
+                try {
+                    client = verifier.verify(method, signedPath, body,
+                            config.getMaxBodySize(),
+                            exchange.getRequestHeaders().getFirst("Authorization"));
+                } catch (IllegalArgumentException illegalArgumentException) {
+                    sendProblem(exchange, 401, "Not authorized",
+                            illegalArgumentException.getMessage());
+                    return;
+                }
+            }
+            if (path.startsWith(V3_STATUS_PREFIX)) {
+                if (!"GET".equals(method)) {
+                    sendProblem(exchange, 405, "Method not allowed", method + " " + path);
+                    return;
+                }
+                sendStatus(exchange, path.substring(V3_STATUS_PREFIX.length()));
+                return;
+            }
+            String[] segments = path.substring(V3_PREFIX.length()).split("/");
+            if (segments.length != 3
+                    || !("invalidate".equals(segments[0]) || "delete".equals(segments[0]))
+                    || !("url".equals(segments[1]) || "cpcode".equals(segments[1])
+                    || "tag".equals(segments[1]))
+                    || !("production".equals(segments[2]) || "staging".equals(segments[2]))) {
+                sendProblem(exchange, 404, "Not found", "Unknown endpoint " + path);
+                return;
+            }
+            if (!"POST".equals(method)) {
+                sendProblem(exchange, 405, "Method not allowed", method + " " + path);
+                return;
+            }
+            accept(exchange, path, client, body, segments[1], false);
+        } catch (RuntimeException runtimeException) {
+            LOGGER.error("Fake CCU v3 request failed", runtimeException);
+            sendProblem(exchange, 500, "Internal server error", runtimeException.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleV2(final HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            String method = exchange.getRequestMethod();
+            byte[] body = begin(exchange);
+            if (body == null) {
+                return;
+            }
+            String client = null;
+            if (config.isVerifySignatures()) {
+                client = verifyBasic(exchange.getRequestHeaders().getFirst("Authorization"));
+                if (client == null) {
+                    sendProblem(exchange, 401, "Not authorized", "Invalid Basic credential");
+                    return;
+                }
+            }
+            if (path.startsWith(V2_STATUS_PREFIX) && "GET".equals(method)) {
+                sendStatus(exchange, path.substring(V2_STATUS_PREFIX.length()));
+            } else if (V2_QUEUE.equals(path) && "GET".equals(method)) {
+                Map<String, Object> queue = new LinkedHashMap<>();
+                queue.put("httpStatus", 200);
+                queue.put("queueLength", pendingPurges());
+                queue.put("detail", "The queue may take a minute to reflect new or removed requests.");
+                queue.put("supportId", supportId());
+                send(exchange, 200, queue);
+            } else if (V2_QUEUE.equals(path) && "POST".equals(method)) {
+                accept(exchange, path, client, body, null, true);
+            } else {
+                sendProblem(exchange, 404, "Not found", "Unknown endpoint " + method + " " + path);
+            }
+        } catch (RuntimeException runtimeException) {
+            LOGGER.error("Fake CCU v2 request failed", runtimeException);
+            sendProblem(exchange, 500, "Internal server error", runtimeException.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Counts the request, waits for its latency and reads its body.
+     *
+     * @return the body, null if a response was already sent.
+     */
+    private byte[] begin(final HttpExchange exchange) throws IOException {
+        requests.increment();
+        long latency = config.getLatency().nextMillis(ThreadLocalRandom.current());
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                if (body.size() > config.getMaxBodySize()) {
+                    sendProblem(exchange, 413, "Request entity too large",
+                            "The body exceeds " + config.getMaxBodySize() + " bytes");
+                    return null;
+                }
+            }
+        }
+        return body.toByteArray();
+    }
+
+    private void accept(final HttpExchange exchange, final String path,
+                        final String client, final byte[] body, final String type,
+                        final boolean v2) throws IOException {
+        if (!admit(exchange, client)) {
+            return;
+        }
+        Map<?, ?> request;
+        try {
+            request = objectMapper.readValue(body, Map.class);
+        } catch (IOException ioException) {
+            sendProblem(exchange, 400, "Bad request", "Malformed JSON body");
+            return;
+        }
+        Object objects = request.get("objects");
+        if (!(objects instanceof List) || ((List<?>) objects).isEmpty()) {
+            sendProblem(exchange, 400, "Bad request", "The objects field is empty");
+            return;
+        }
+        boolean cpCodes = v2 ? "cpcode".equals(request.get("type")) : "cpcode".equals(type);
+        Object hostname = request.get("hostname");
+        for (Object object : (List<?>) objects) {
+            String error = validate(object, cpCodes, "url".equals(type), hostname != null);
+            if (error != null) {
+                sendProblem(exchange, 400, "Bad request", error);
+                return;
+            }
+        }
+
+        String purgeId = UUID.randomUUID().toString();
+        int estimatedSeconds = config.getEstimatedSeconds();
+        FakePurge purge = new FakePurge(purgeId, path, client,
+                hostname == null ? null : hostname.toString(),
+                new ArrayList<>((List<?>) objects), System.currentTimeMillis(),
+                estimatedSeconds);
+        purgesById.put(purgeId, purge);
+        purges.add(purge);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("httpStatus", 201);
+        response.put("detail", v2 ? "Request accepted." : "Request accepted");
+        response.put("estimatedSeconds", estimatedSeconds);
+        response.put("purgeId", purgeId);
+        response.put("supportId", supportId());
+        response.put("progressUri", (v2 ? V2_STATUS_PREFIX : V3_STATUS_PREFIX) + purgeId);
+        response.put("pingAfterSeconds", estimatedSeconds);
+        send(exchange, 201, response);
+    }
+
+    /**
+     * Applies the rate limit and the injected failures.
+     *
+     * @return whether the request may be accepted.
+     */
+    private boolean admit(final HttpExchange exchange, final String client)
+            throws IOException {
+        if (config.getRequestsPerSecond() > 0) {
+            String key = client == null ? "" : client;
+            RateLimit rateLimit = rateLimits.computeIfAbsent(key,
+                    token -> new RateLimit(config.getRequestsPerSecond(), config.getBurst()));
+            long remaining = rateLimit.tryAcquire(System.nanoTime());
+            exchange.getResponseHeaders().set(LIMIT_HEADER, String.valueOf(config.getBurst()));
+            exchange.getResponseHeaders().set(REMAINING_HEADER, String.valueOf(Math.max(remaining, 0)));
+            if (remaining < 0) {
+                retryAfter(exchange);
+                sendProblem(exchange, 429, "Too many requests", "Rate limit exceeded");
+                return false;
+            }
+        }
+        double draw = ThreadLocalRandom.current().nextDouble();
+        if (draw < config.getTooManyRequestsRate()) {
+            retryAfter(exchange);
+            sendProblem(exchange, 429, "Too many requests", "Injected rate limit response");
+            return false;
+        }
+        if (draw < config.getTooManyRequestsRate() + config.getServerErrorRate()) {
+            retryAfter(exchange);
+            sendProblem(exchange, config.getServerErrorStatus(), "Server error",
+                    "Injected server error");
+            return false;
+        }
+        return true;
+    }
+
+    private void retryAfter(final HttpExchange exchange) {
+        if (config.getRetryAfterSeconds() > 0) {
+            exchange.getResponseHeaders().set("Retry-After",
+                    String.valueOf(config.getRetryAfterSeconds()));
+        }
+    }
+
+    private static String validate(final Object object, final boolean cpCode,
+                                   final boolean url, final boolean hasHostname) {
+        if (cpCode) {
+            return object instanceof Integer && (Integer) object > 0
+                    ? null
+                    : "Invalid CPCode " + object;
+        }
+        if (!(object instanceof String) || ((String) object).trim().isEmpty()) {
+            return "Invalid object " + object;
+        }
+        String value = (String) object;
+        if (url && !hasHostname && !value.startsWith("http://") && !value.startsWith("https://")) {
+            return "Relative URL " + value + " without hostname";
+        }
+        return null;
+    }
+
+    private void sendStatus(final HttpExchange exchange, final String purgeId)
+            throws IOException {
+        FakePurge purge = purgesById.get(purgeId);
+        if (purge == null) {
+            sendProblem(exchange, 404, "Not found", "Unknown purge " + purgeId);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean done = purge.isDone(now);
+        long remainingSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(
+                purge.getSubmissionTime() + purge.getEstimatedSeconds() * 1000L - now));
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("httpStatus", 200);
+        status.put("detail", done ? "Purge completed" : "Purge in progress");
+        status.put("purgeId", purgeId);
+        status.put("supportId", supportId());
+        status.put("purgeStatus", done ? "Done" : "In-Progress");
+        status.put("submittedBy", purge.getClient());
+        status.put("submissionTime", Instant.ofEpochMilli(purge.getSubmissionTime()).toString());
+        status.put("completionTime", done
+                ? Instant.ofEpochMilli(purge.getSubmissionTime()
+                + purge.getEstimatedSeconds() * 1000L).toString()
+                : null);
+        status.put("originalEstimatedSeconds", purge.getEstimatedSeconds());
+        status.put("originalQueueLength", 0);
+        status.put("progressUri", exchange.getRequestURI().getRawPath());
+        status.put("pingAfterSeconds", done ? 0 : remainingSeconds);
+        send(exchange, 200, status);
+    }
+
+    private String verifyBasic(final String authorization) {
+        if (authorization == null || !authorization.startsWith("Basic ")) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+                    StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            return null;
+        }
+        int colon = decoded.indexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        String username = decoded.substring(0, colon);
+        String password = basicCredentials.get(username);
+        return password != null && password.equals(decoded.substring(colon + 1))
+                ? username
+                : null;
+    }
+
+    private long pendingPurges() {
+        long now = System.currentTimeMillis();
+        return purges.stream().filter(purge -> !purge.isDone(now)).count();
+    }
+
+    private static String supportId() {
+        return "17PY" + Long.toHexString(ThreadLocalRandom.current().nextLong()).toUpperCase();
+    }
+
+    private void sendProblem(final HttpExchange exchange, final int status,
+                             final String title, final String detail) throws IOException {
+        Map<String, Object> problem = new LinkedHashMap<>();
+        problem.put("type", "https://problems.purge.akamaiapis.net/-/fake-ccu/" + status);
+        problem.put("title", title);
+        problem.put("httpStatus", status);
+        problem.put("detail", detail);
+        problem.put("supportId", supportId());
+        send(exchange, status, problem);
+    }
+
+    private void send(final HttpExchange exchange, final int status,
+                      final Map<String, Object> json) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(json);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // counted first, so that clients having the response see it counted
+        statusCounts.computeIfAbsent(status, code -> new LongAdder()).increment();
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stops the server, waiting at most a second for exchanges in progress.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+        LOGGER.info("Stopped fake CCU server with {} accepted purge(s)", purges.size());
+    }
+
+    /**
+     * Token bucket of one client.
+     */
+    private static final class RateLimit {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        private RateLimit(final double requestsPerSecond, final int burst) {
+            this.ratePerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * @return the tokens left after taking one, negative if none was available.
+         */
+        private synchronized long tryAcquire(final long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+            if (tokens < 1) {
+                return -1;
+            }
+            tokens--;
+            return (long) tokens;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.htomar.akamai.testkit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A purge request accepted by a {@link FakeCcuServer}.
+ *
+ * @author Himanshu Tomar
+ */
+public class FakePurge {
+    private final String purgeId;
+    private final String endpoint;
+    private final String client;
+    private final String hostname;
+    private final List<Object> objects;
+    private final long submissionTime;
+    private final int estimatedSeconds;
+
+    FakePurge(final String purgeId, final String endpoint, final String client,
+              final String hostname, final List<Object> objects,
+              final long submissionTime, final int estimatedSeconds) {
+        this.purgeId = purgeId;
+        this.endpoint = endpoint;
+        this.client = client;
+        this.hostname = hostname;
+        this.objects = Collections.unmodifiableList(objects);
+        this.submissionTime = submissionTime;
+        this.estimatedSeconds = estimatedSeconds;
+    }
+
+    /**
+     * @return the purge id returned to the client
+     */
+    public String getPurgeId() {
+        return purgeId;
+    }
+
+    /**
+     * @return the request path, such as /ccu/v3/invalidate/url/production
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the client token, or the Basic auth username for CCU v2
+     */
+    public String getClient() {
+        return client;
+    }
+
+    /**
+     * @return the hostname of relative URLs, null if none
+     */
+    public String getHostname() {
+        return hostname;
+    }
+
+    /**
+     * @return the URL or tag strings, or CPCode numbers, of the request
+     */
+    public List<Object> getObjects() {
+        return objects;
+    }
+
+    /**
+     * @return the time the purge was accepted, in epoch milliseconds
+     */
+    public long getSubmissionTime() {
+        return submissionTime;
+    }
+
+    /**
+     * @return the seconds after which the purge is reported done
+     */
+    public int getEstimatedSeconds() {
+        return estimatedSeconds;
+    }
+
+    /**
+     * @param now the current time in epoch milliseconds.
+     * @return whether the purge is reported done at the given time
+     */
+    public boolean isDone(final long now) {
+        return now >= submissionTime + estimatedSeconds * 1000L;
+    }
+
+    @Override
+    public String toString() {
+        return "FakePurge [purgeId=" + purgeId + ", endpoint=" + endpoint
+                + ", client=" + client + ", hostname=" + hostname
+                + ", objects=" + objects.size() + "]";
+    }
+}
@@ -0,0 +1,72 @@
+package org.htomar.akamai.testkit;
+
+import org.springframework.util.Assert;
+
+import java.util.Random;
+
+/**
+ * Distribution of the time {@link FakeCcuServer} takes to answer a request.
+ *
+ * @author Himanshu Tomar
+ */
+public interface LatencyDistribution {
+
+    /**
+     * Draws the latency of one request.
+     *
+     * @param random the source of randomness of the calling thread.
+     * @return the latency in milliseconds.
+     */
+    long nextMillis(Random random);
+
+    /**
+     * @return a distribution answering right away
+     */
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    /**
+     * @param millis the latency in milliseconds.
+     * @return a distribution always answering after the given latency
+     */
+    static LatencyDistribution fixed(final long millis) {
+        Assert.isTrue(millis >= 0, "latency cannot be negative.");
+        return random -> millis;
+    }
+
+    /**
+     * @param minMillis the lowest latency in milliseconds.
+     * @param maxMillis the highest latency in milliseconds.
+     * @return a distribution uniform between the given latencies
+     */
+    static LatencyDistribution uniform(final long minMillis, final long maxMillis) {
+        Assert.isTrue(minMillis >= 0 && maxMillis >= minMillis,
+                "latency range is invalid.");
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    /**
+     * @param meanMillis the mean latency in milliseconds.
+     * @return an exponential distribution with the given mean
+     */
+    static LatencyDistribution exponential(final double meanMillis) {
+        Assert.isTrue(meanMillis > 0, "mean latency should be positive.");
+        return random -> (long) (-meanMillis * Math.log(1 - random.nextDouble()));
+    }
+
+    /**
+     * Log-normal distribution, the usual shape of network service latencies:
+     * most requests close to the median and a long tail of slow ones.
+     *
+     * @param medianMillis the median latency in milliseconds.
+     * @param sigma        the standard deviation of the latency logarithm,
+     *                     0.5 giving a 99th percentile about three times the median.
+     * @return a log-normal distribution with the given median
+     */
+    static LatencyDistribution logNormal(final double medianMillis, final double sigma) {
+        Assert.isTrue(medianMillis > 0, "median latency should be positive.");
+        Assert.isTrue(sigma >= 0, "sigma cannot be negative.");
+        return random -> (long) (medianMillis * Math.exp(sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,67 @@
+package org.htomar.akamai.testkit;
+
+import org.htomar.akamai.transport.HttpTransport;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * {@link HttpTransport} sending every request to another base URL, keeping
+ * its path. Lets purge utilities built for https Akamai hosts talk to a
+ * {@link FakeCcuServer}, while their requests stay signed for the original
+ * host.
+ *
+ * @author Himanshu Tomar
+ */
+public class RedirectingTransport implements HttpTransport {
+    private final HttpTransport delegate;
+    private final String targetBaseURL;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate      the transport actually sending the requests, closed
+     *                      together with this transport.
+     * @param targetBaseURL the scheme and authority requests are sent to,
+     *                      such as {@link FakeCcuServer#getBaseURL()}.
+     */
+    public RedirectingTransport(final HttpTransport delegate,
+                                final String targetBaseURL) {
+        Assert.notNull(delegate, "transport cannot be null.");
+        Assert.hasText(targetBaseURL, "target base URL cannot be null.");
+        this.delegate = delegate;
+        this.targetBaseURL = targetBaseURL.endsWith("/")
+                ? targetBaseURL.substring(0, targetBaseURL.length() - 1)
+                : targetBaseURL;
+    }
+
+    @Override
+    public <T> ResponseEntity<T> exchange(final String url,
+                                          final HttpMethod method,
+                                          final HttpEntity<?> entity,
+                                          final Class<T> responseType)
+            throws RestClientException {
+        return delegate.exchange(redirect(url), method, entity, responseType);
+    }
+
+    private String redirect(final String url) {
+        int authority = url.indexOf("://");
+        if (authority < 0) {
+            return targetBaseURL + url;
+        }
+        int path = url.indexOf('/', authority + 3);
+        return path < 0 ? targetBaseURL : targetBaseURL + url.substring(path);
+    }
+
+    @Override
+    public void warmUp(final Class<?> responseType, final byte[] sample) {
+        delegate.warmUp(responseType, sample);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}